@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import group3.AuditRing;
+import group3.CoarseClock;
+import group3.LogEntry;
+import group3.LogType;
+
+/**
+ * Holds the same generated log entries once as a list of LogEntry objects
+ * and once in an AuditRing, and for each reports the heap it keeps live and
+ * how long it takes to find the latest withdrawals of one account. Arguments:
+ * entries (default 500,000) and accounts (default 1,000).
+ */
+public class AuditRingBenchmark {
+	private static final int FIRST = 100_000;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+		int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+		long start = CoarseClock.micros();
+
+		long baseline = liveHeap();
+		List<LogEntry> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(entry(i, accounts, start));
+		}
+		long listBytes = liveHeap() - baseline;
+		measure("List<LogEntry>", listBytes, () -> {
+			int found = 0;
+			for (int i = list.size() - 1; i >= 0 && found < 20; i--) {
+				LogEntry e = list.get(i);
+				if (e.getAccountNum() == FIRST + 5 && e.getType() == LogType.withdrawal) {
+					found++;
+				}
+			}
+			return found;
+		});
+		list.clear();
+
+		baseline = liveHeap();
+		AuditRing ring = new AuditRing(count * 64L);
+		for (int i = 0; i < count; i++) {
+			ring.add(entry(i, accounts, start));
+		}
+		long ringBytes = liveHeap() - baseline;
+		measure("AuditRing (" + ring.size() + " entries kept)", ringBytes,
+				() -> ring.recent(FIRST + 5, LogType.withdrawal, Long.MIN_VALUE, 20).size());
+	}
+
+	// the kinds of messages the servers log, with the numbers that vary
+	private static LogEntry entry(int i, int accounts, long start) {
+		int account = FIRST + i % accounts;
+		double amount = (i % 50_000) / 100.0;
+		String message;
+		LogType type;
+		switch (i % 4) {
+		case 0:
+			type = LogType.deposit;
+			message = "ATM deposited " + amount;
+			break;
+		case 1:
+			type = LogType.withdrawal;
+			message = "Teller withdrew " + amount + ", new balance updated in accounts file";
+			break;
+		case 2:
+			type = LogType.transfer;
+			message = "ATM transferred " + amount + " from " + account + " to " + (account + 1)
+					+ ", new balances " + amount * 3 + " and " + amount * 2;
+			break;
+		default:
+			type = LogType.interest;
+			message = "Interest credited " + amount / 10 + ", new balance " + amount * 7;
+		}
+		return new LogEntry(account, type, message, start + i);
+	}
+
+	private static void measure(String name, long heapBytes, Scan scan) {
+		int scans = 2_000;
+		int found = 0;
+		long begin = System.nanoTime();
+		for (int i = 0; i < scans; i++) {
+			found += scan.run();
+		}
+		long elapsed = System.nanoTime() - begin;
+		System.out.println(name + ": live heap " + heapBytes / (1 << 20) + " MB, " + elapsed / scans / 1_000
+				+ " us per scan (found " + found / scans + ")");
+	}
+
+	private static long liveHeap() {
+		System.gc();
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private interface Scan {
+		int run();
+	}
+}
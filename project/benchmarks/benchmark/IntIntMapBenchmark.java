@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import group3.IntIntMap;
+
+/**
+ * Puts the same random account numbers into an IntIntMap and a
+ * HashMap<Integer, Integer>, then looks them up in another random order, and
+ * reports puts and gets per second and the heap each map keeps live. Each
+ * measurement is repeated and the best round is reported, so the first rounds
+ * serve as JIT warm-up. Arguments: keys (default 1,000,000) and rounds
+ * (default 5).
+ */
+public class IntIntMapBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int[] keys = new int[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+		}
+		int[] probes = keys.clone();
+		for (int i = probes.length - 1; i > 0; i--) {
+			int j = ThreadLocalRandom.current().nextInt(i + 1);
+			int swap = probes[i];
+			probes[i] = probes[j];
+			probes[j] = swap;
+		}
+
+		long bestPut = Long.MAX_VALUE;
+		long bestGet = Long.MAX_VALUE;
+		long bytes = 0;
+		long sum = 0;
+		for (int round = 0; round < rounds; round++) {
+			long baseline = liveHeap();
+			long start = System.nanoTime();
+			IntIntMap map = new IntIntMap(16);
+			for (int i = 0; i < count; i++) {
+				map.put(keys[i], i);
+			}
+			bestPut = Math.min(bestPut, System.nanoTime() - start);
+			start = System.nanoTime();
+			for (int key : probes) {
+				sum += map.get(key);
+			}
+			bestGet = Math.min(bestGet, System.nanoTime() - start);
+			bytes = liveHeap() - baseline;
+			sum += map.size();
+		}
+		report("IntIntMap", count, bestPut, bestGet, bytes);
+
+		bestPut = Long.MAX_VALUE;
+		bestGet = Long.MAX_VALUE;
+		for (int round = 0; round < rounds; round++) {
+			long baseline = liveHeap();
+			long start = System.nanoTime();
+			Map<Integer, Integer> map = new HashMap<>(16);
+			for (int i = 0; i < count; i++) {
+				map.put(keys[i], i);
+			}
+			bestPut = Math.min(bestPut, System.nanoTime() - start);
+			start = System.nanoTime();
+			for (int key : probes) {
+				sum += map.get(key);
+			}
+			bestGet = Math.min(bestGet, System.nanoTime() - start);
+			bytes = liveHeap() - baseline;
+			sum += map.size();
+		}
+		report("HashMap<Integer, Integer>", count, bestPut, bestGet, bytes);
+		System.out.println("(checksum " + sum + ")");
+	}
+
+	private static void report(String name, int count, long putNanos, long getNanos, long bytes) {
+		System.out.println(name + ": " + (long) (count / (putNanos / 1e9)) + " puts/s, "
+				+ (long) (count / (getNanos / 1e9)) + " gets/s, " + bytes / (1 << 20) + " MB live ("
+				+ bytes / count + " bytes per key)");
+	}
+
+	private static long liveHeap() {
+		System.gc();
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+
+import group3.InterestAccrualJob;
+
+/**
+ * Runs the end-of-day job over a generated book of accounts (one million by
+ * default, or the count given as the first argument) and prints the time of
+ * each run. The first runs warm up the JIT.
+ */
+public class InterestAccrualBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		File accounts = File.createTempFile("bench_accounts", ".txt");
+		File log = File.createTempFile("bench_log", ".txt");
+		accounts.deleteOnExit();
+		new File(accounts.getPath() + ".accrued").deleteOnExit();
+		log.deleteOnExit();
+
+		// a third each of checking, saving and line of credit with some drawn down
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(accounts), 1 << 16))) {
+			for (int i = 0; i < count; i++) {
+				int num = 100_000 + i;
+				switch (i % 3) {
+				case 0:
+					out.println(num + ",1234,checking," + (i % 5000));
+					break;
+				case 1:
+					out.println(num + ",1234,saving," + (i % 5000) + ".25");
+					break;
+				default:
+					out.println(num + ",1234,lineOfCredit," + (i % 5000) + ",5000");
+					break;
+				}
+			}
+		}
+
+		InterestAccrualJob job = new InterestAccrualJob(accounts, log);
+		LocalDate day = LocalDate.now().minusDays(6);
+		for (int run = 1; run <= 5; run++) {
+			// one more day each run; run() alone would find the day done after the first
+			InterestAccrualJob.Result result = job.run(day.plusDays(run));
+			System.out.println("run " + run + ": " + result);
+			// keep the log from growing across runs
+			new PrintWriter(log).close();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Scanner;
+
+import group3.RecordReader;
+
+/**
+ * Sums the balances of a generated accounts file, once with BufferedReader,
+ * split and parseDouble and once with RecordReader, and reports lines per
+ * second and bytes allocated per line; the best of several rounds is
+ * reported. Then reads a smaller file into lines the way the servers' parse
+ * used to (Scanner and String +=) and with RecordReader. Arguments: lines
+ * (default 1,000,000), rounds (default 5) and lines for the parse comparison
+ * (default 20,000).
+ */
+public class RecordReaderBenchmark {
+	private static final com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int parseCount = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+		File accounts = generate(count);
+		File small = generate(parseCount);
+
+		measure("BufferedReader + split", count, rounds, () -> {
+			double total = 0;
+			try (BufferedReader reader = new BufferedReader(new FileReader(accounts), 1 << 16)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] info = line.split(",");
+					if (Integer.parseInt(info[0]) > 0) {
+						total += Double.parseDouble(info[3]);
+					}
+				}
+			}
+			return total;
+		});
+		measure("RecordReader", count, rounds, () -> {
+			double total = 0;
+			try (RecordReader reader = new RecordReader(accounts)) {
+				while (reader.next()) {
+					if (reader.intField(0) > 0) {
+						total += reader.decimalField(3);
+					}
+				}
+			}
+			return total;
+		});
+
+		measure("Scanner + String += (old parse)", parseCount, 1, () -> {
+			String data = "";
+			try (Scanner scan = new Scanner(small)) {
+				while (scan.hasNextLine()) {
+					data += scan.nextLine() + "\n";
+				}
+			}
+			return data.split("\n").length;
+		});
+		measure("RecordReader lines (new parse)", parseCount, rounds, () -> {
+			int lines = 0;
+			try (RecordReader reader = new RecordReader(small)) {
+				while (reader.next()) {
+					lines += reader.line().isEmpty() ? 0 : 1;
+				}
+			}
+			return lines;
+		});
+	}
+
+	private static File generate(int count) throws IOException {
+		File file = File.createTempFile("bench_records", ".txt");
+		file.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16))) {
+			for (int i = 0; i < count; i++) {
+				out.println((100_000 + i) + "," + (1000 + i % 9000) + ",checking," + (i % 100_000) / 100.0);
+			}
+		}
+		return file;
+	}
+
+	private static void measure(String name, int lines, int rounds, Pass pass) throws Exception {
+		long best = Long.MAX_VALUE;
+		long allocated = 0;
+		double result = 0;
+		for (int round = 0; round < rounds; round++) {
+			long bytes = threads.getCurrentThreadAllocatedBytes();
+			long start = System.nanoTime();
+			result = pass.run();
+			long elapsed = System.nanoTime() - start;
+			if (elapsed < best) {
+				best = elapsed;
+				allocated = threads.getCurrentThreadAllocatedBytes() - bytes;
+			}
+		}
+		System.out.println(name + ": " + (long) (lines / (best / 1e9)) + " lines/s, " + best / 1_000_000 + " ms, "
+				+ allocated / lines + " bytes allocated per line (result " + (long) result + ")");
+	}
+
+	private interface Pass {
+		double run() throws Exception;
+	}
+}
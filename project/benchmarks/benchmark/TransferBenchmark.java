@@ -0,0 +1,93 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import group3.AccountTransfer;
+
+/**
+ * Runs random transfers between a generated set of accounts from several
+ * threads at once and checks that the total balance of the book is the same
+ * afterwards. Arguments: accounts (default 1000), threads (default 8) and
+ * transfers per thread (default 500).
+ */
+public class TransferBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int perThread = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+		File accounts = File.createTempFile("bench_accounts", ".txt");
+		File log = File.createTempFile("bench_log", ".txt");
+		accounts.deleteOnExit();
+		log.deleteOnExit();
+		new File(accounts.getPath() + ".lock").deleteOnExit();
+
+		// small balances so some transfers are refused for lack of funds
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(accounts), 1 << 16))) {
+			for (int i = 0; i < count; i++) {
+				out.println((100_000 + i) + ",1234,checking," + (i % 7) * 50 + ".00");
+			}
+		}
+		long before = totalCents(accounts);
+
+		AccountTransfer transfers = new AccountTransfer(accounts, log);
+		Map<AccountTransfer.Status, AtomicInteger> outcomes = new EnumMap<>(AccountTransfer.Status.class);
+		for (AccountTransfer.Status status : AccountTransfer.Status.values()) {
+			outcomes.put(status, new AtomicInteger());
+		}
+
+		// the console echo of every log entry would dominate the timing
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		long start = System.nanoTime();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < perThread; i++) {
+					String from = String.valueOf(100_000 + random.nextInt(count));
+					String to = String.valueOf(100_000 + random.nextInt(count));
+					double amount = random.nextInt(1, 10_000) / 100.0;
+					outcomes.get(transfers.transfer(from, to, amount, "Benchmark").getStatus()).incrementAndGet();
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		System.setOut(console);
+
+		long after = totalCents(accounts);
+		int total = threads * perThread;
+		System.out.println(total + " transfers on " + threads + " threads in " + elapsed / 1_000_000 + " ms ("
+				+ (long) (total / (elapsed / 1e9)) + "/s)");
+		System.out.println("outcomes: " + outcomes);
+		System.out.println("journal records: " + Files.readAllLines(log.toPath()).size());
+		System.out.println("total before " + before / 100.0 + ", after " + after / 100.0
+				+ (before == after ? " - conserved" : " - NOT CONSERVED"));
+		if (before != after) {
+			System.exit(1);
+		}
+	}
+
+	// sum of all balances in cents, so the comparison is exact
+	private static long totalCents(File accounts) throws Exception {
+		long cents = 0;
+		for (String line : Files.readAllLines(accounts.toPath())) {
+			cents += Math.round(Double.parseDouble(line.split(",")[3]) * 100);
+		}
+		return cents;
+	}
+}
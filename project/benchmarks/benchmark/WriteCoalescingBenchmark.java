@@ -0,0 +1,66 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import group3.AccountWriteCoalescer;
+
+/**
+ * Many threads depositing into one hot account of a generated book, once per
+ * coalescing window. Prints throughput, the median and 99th percentile wait
+ * of a deposit and how many deposits each write of the file carried.
+ * Arguments: accounts (default 10000), threads (default 32), deposits per
+ * thread (default 100), then the windows in ms to compare (default 0 1 2 5).
+ */
+public class WriteCoalescingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		int perThread = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		long[] windows = args.length > 3 ? Arrays.stream(args, 3, args.length).mapToLong(Long::parseLong).toArray()
+				: new long[] { 0, 1, 2, 5 };
+
+		for (long window : windows) {
+			File accounts = File.createTempFile("bench_accounts", ".txt");
+			File log = File.createTempFile("bench_log", ".txt");
+			accounts.deleteOnExit();
+			log.deleteOnExit();
+			new File(accounts.getPath() + ".lock").deleteOnExit();
+			try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(accounts), 1 << 16))) {
+				for (int i = 0; i < count; i++) {
+					out.println((100_000 + i) + ",1234,checking,100.0");
+				}
+			}
+			String hot = String.valueOf(100_000 + count / 2);
+
+			AccountWriteCoalescer coalescer = new AccountWriteCoalescer(accounts, log, window);
+			long[] waits = new long[threads * perThread];
+			Thread[] workers = new Thread[threads];
+			long start = System.nanoTime();
+			for (int t = 0; t < threads; t++) {
+				int first = t * perThread;
+				workers[t] = new Thread(() -> {
+					for (int i = 0; i < perThread; i++) {
+						long begin = System.nanoTime();
+						coalescer.deposit(hot, 1, "Benchmark deposit");
+						waits[first + i] = System.nanoTime() - begin;
+					}
+				});
+				workers[t].start();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			long elapsed = System.nanoTime() - start;
+
+			Arrays.sort(waits);
+			System.out.println("window " + window + " ms: " + (long) (waits.length / (elapsed / 1e9))
+					+ " deposits/s, wait p50 " + waits[waits.length / 2] / 1000 + " us, p99 "
+					+ waits[(int) (waits.length * 0.99)] / 1000 + " us, " + coalescer.stats());
+		}
+	}
+}
@@ -11,6 +11,7 @@ public class ATM {
 	static MessageType login = MessageType.customerLogin;
 	static MessageType withdraw = MessageType.withdrawal;
 	static MessageType deposit = MessageType.deposit;
+	static MessageType transfer = MessageType.transfer;
 	static MessageType logout = MessageType.logout;
 	static MessageStatus request = MessageStatus.request;
 	static Application atmApp = Application.ATM;
@@ -149,6 +150,13 @@ public class ATM {
 		}
 	}
 
+	// records the time from sending request to reading its reply next to its trace id
+	private static void logRoundTrip(Message request, long sent) {
+		long nanos = System.nanoTime() - sent;
+		TraceSink.roundTrip(request, nanos);
+		System.out.println("Trace " + RequestTrace.hex(request.getTraceId()) + " round trip " + nanos / 1000 + " us");
+	}
+
 	// withdraw money from account
 	public boolean withdraw(double amount) {
 		if (!connected || currentAccountNum == null) {
@@ -158,11 +166,14 @@ public class ATM {
 		try {
 			Message withdrawMsg = new Message(request, withdraw, atmApp, currentAccountNum, String.valueOf(amount));
 
+			long sent = System.nanoTime();
 			outputStream.writeObject(withdrawMsg);
 			outputStream.flush();
-			System.out.println("Withdrawal request sent: $" + amount);
+			System.out.println("Withdrawal request sent: $" + amount
+					+ " (trace " + RequestTrace.hex(withdrawMsg.getTraceId()) + ")");
 
 			Message response = (Message) inputStream.readObject();
+			logRoundTrip(withdrawMsg, sent);
 
 			if (response.getStatus() == MessageStatus.confirmation) {
 				System.out.println("Withdrawal successful");
@@ -190,11 +201,14 @@ public class ATM {
 		try {
 			Message depositMsg = new Message(request, deposit, atmApp, currentAccountNum, String.valueOf(amount));
 
+			long sent = System.nanoTime();
 			outputStream.writeObject(depositMsg);
 			outputStream.flush();
-			System.out.println("Deposit request sent: $" + amount);
+			System.out.println("Deposit request sent: $" + amount
+					+ " (trace " + RequestTrace.hex(depositMsg.getTraceId()) + ")");
 
 			Message response = (Message) inputStream.readObject();
+			logRoundTrip(depositMsg, sent);
 
 			if (response.getStatus() == MessageStatus.confirmation) {
 				System.out.println("Deposit successful");
@@ -213,6 +227,38 @@ public class ATM {
 		}
 	}
 
+	// transfer money from the logged in account to another account
+	public boolean transfer(String toAccountNum, double amount) {
+		if (!connected || currentAccountNum == null) {
+			return false;
+		}
+
+		try {
+			Message transferMsg = new Message(request, transfer, atmApp, currentAccountNum, toAccountNum + "," + amount);
+
+			long sent = System.nanoTime();
+			outputStream.writeObject(transferMsg);
+			outputStream.flush();
+			System.out.println("Transfer request sent: $" + amount + " to " + toAccountNum
+					+ " (trace " + RequestTrace.hex(transferMsg.getTraceId()) + ")");
+
+			Message response = (Message) inputStream.readObject();
+			logRoundTrip(transferMsg, sent);
+
+			if (response.getStatus() == MessageStatus.confirmation) {
+				System.out.println("Transfer successful");
+				return true;
+			} else {
+				System.out.println("Transfer failed: " + response.getText());
+				return false;
+			}
+
+		} catch (IOException | ClassNotFoundException e) {
+			System.out.println("Error during transfer: " + e.getMessage());
+			return false;
+		}
+	}
+
 	// logout from ATM session
 	public boolean logout() {
 		if (!connected) {
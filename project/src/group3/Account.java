@@ -3,7 +3,6 @@ package group3;
 import java.io.*;
 import java.io.File;
 import java.io.Serializable;
-import java.time.LocalDateTime;
 import java.util.Scanner;
 
 public class Account implements Serializable {
@@ -115,10 +114,11 @@ public class Account implements Serializable {
 				if (parts.length < 4) {
 					continue;
 				}
-				// parts[0] is account number
+				// parts[0] is account number; a transfer also belongs to the account it paid into
 				try {
 					int num = Integer.parseInt(parts[0]);
-					if (num != accountNumber) {
+					if (num != accountNumber && !(parts[1].equals(String.valueOf(LogType.transfer))
+							&& LogEntry.receiverOf(parts[2]) == accountNumber)) {
 						continue;
 					}
 				} catch (NumberFormatException e) {
@@ -145,7 +145,7 @@ public class Account implements Serializable {
 
 	// helper to append a log entry for this account
 	private void writeLog(LogType type, String message) {
-		LogEntry entry = new LogEntry(accountNumber, type, message, LocalDateTime.now().toString());
+		LogEntry entry = new LogEntry(accountNumber, type, message);
 		LogEntry.appendToLog(new File("src/group3/log.txt"), entry);
 	}
 }
@@ -0,0 +1,232 @@
+package group3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded read-through cache of parsed account records, so balance lookups
+ * do not read accounts.txt every time. Entries are evicted least recently
+ * used first once the cache holds bank.accountCacheSize records (default
+ * 10,000).
+ *
+ * Every code path in this process that writes an account line passes the new
+ * line to put (or calls invalidate or clear) while it still holds the
+ * exclusive lock, so the cache is written through and never serves a balance
+ * older than the file. Writes made by other processes are picked up from the
+ * DataFileLock change ring before each lookup, the same way CredentialIndex
+ * does it.
+ *
+ * A lookup that misses loads the record outside the cache monitor; the loaded
+ * record is only kept if nothing was invalidated in the meantime, so a slow
+ * load can never put back a value a concurrent write has replaced.
+ *
+ * There is one cache per accounts file; use forFile.
+ */
+public class AccountCache {
+	private static final Map<String, AccountCache> caches = new ConcurrentHashMap<>();
+
+	private final File file;
+	private final int capacity;
+	private final LinkedHashMap<String, Record> records;
+	private final DataFileLock.Cursor changes;
+	// bumped on every invalidation; a load only fills the cache if it is unchanged
+	private long generation;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public AccountCache(File accounts, int capacity) {
+		this.file = accounts;
+		this.capacity = capacity;
+		this.changes = DataFileLock.forFile(accounts).cursor();
+		this.records = new LinkedHashMap<String, Record>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Record> eldest) {
+				if (size() > AccountCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	// the shared cache for an accounts file, with the configured capacity
+	public static AccountCache forFile(File accounts) {
+		return caches.computeIfAbsent(accounts.getAbsolutePath(),
+				k -> new AccountCache(accounts, Integer.getInteger("bank.accountCacheSize", 10_000)));
+	}
+
+	/**
+	 * The record of an account, from the cache or else from the file; null if
+	 * there is no such account.
+	 */
+	public Record get(String accountNum) {
+		catchUp();
+		long seen;
+		synchronized (this) {
+			Record cached = records.get(accountNum);
+			if (cached != null) {
+				hits++;
+				return cached;
+			}
+			misses++;
+			seen = generation;
+		}
+		Record loaded = load(accountNum);
+		if (loaded != null) {
+			synchronized (this) {
+				if (generation == seen) {
+					records.put(accountNum, loaded);
+				}
+			}
+		}
+		return loaded;
+	}
+
+	// write-through: call with the new line of an account just written to the file
+	public void put(String line) {
+		Record record = Record.parse(line);
+		if (record == null) {
+			int comma = line.indexOf(',');
+			invalidate(comma < 0 ? line : line.substring(0, comma));
+			return;
+		}
+		synchronized (this) {
+			generation++;
+			records.put(record.key, record);
+		}
+	}
+
+	// call after an account line has been removed or changed without a new line to hand
+	public synchronized void invalidate(String accountNum) {
+		generation++;
+		records.remove(accountNum);
+	}
+
+	// call after a write that may have changed any account
+	public synchronized void clear() {
+		generation++;
+		records.clear();
+	}
+
+	// drop what other processes changed since the last lookup
+	private void catchUp() {
+		int[] changed = changes.poll();
+		if (changed == null) {
+			clear();
+		} else if (changed.length > 0) {
+			Set<Integer> hashes = new HashSet<>();
+			for (int hash : changed) {
+				hashes.add(hash);
+			}
+			synchronized (this) {
+				generation++;
+				records.keySet().removeIf(key -> hashes.contains(key.hashCode()));
+			}
+		}
+	}
+
+	private Record load(String accountNum) {
+		// lines that are not the account are skipped without creating any String
+		try (DataFileLock.Held held = DataFileLock.forFile(file).lockShared();
+				RecordReader reader = new RecordReader(file)) {
+			while (reader.next()) {
+				if (reader.fieldEquals(0, accountNum)) {
+					return Record.read(reader);
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading accounts: " + e.getMessage());
+		}
+		return null;
+	}
+
+	// counters for /api/stats
+	public synchronized Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("size", records.size());
+		stats.put("capacity", capacity);
+		stats.put("hits", hits);
+		stats.put("misses", misses);
+		stats.put("evictions", evictions);
+		stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		return stats;
+	}
+
+	/**
+	 * One parsed line of accounts.txt: num,pin,type,balance[,initialBalance].
+	 * Immutable, so it can be handed to any number of readers.
+	 */
+	public static final class Record {
+		private final String key;
+		private final int number;
+		private final String pin;
+		private final String type;
+		private final double balance;
+		// credit limit of a line of credit, NaN for other accounts
+		private final double limit;
+
+		private Record(String key, int number, String pin, String type, double balance, double limit) {
+			this.key = key;
+			this.number = number;
+			this.pin = pin;
+			this.type = type;
+			this.balance = balance;
+			this.limit = limit;
+		}
+
+		// the current line of a reader, or null if it is not a valid account
+		static Record read(RecordReader reader) {
+			if (reader.fields() < 4) {
+				return null;
+			}
+			try {
+				return new Record(reader.field(0), reader.intField(0), reader.field(1), reader.field(2),
+						reader.decimalField(3), reader.fields() > 4 ? reader.decimalField(4) : Double.NaN);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		// null for a line that is not a valid account
+		static Record parse(String line) {
+			String[] info = line.split(",");
+			if (info.length < 4) {
+				return null;
+			}
+			try {
+				return new Record(info[0], Integer.parseInt(info[0]), info[1], info[2], Double.parseDouble(info[3]),
+						info.length > 4 ? Double.parseDouble(info[4]) : Double.NaN);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		public int getNumber() {
+			return number;
+		}
+
+		public String getPin() {
+			return pin;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public double getBalance() {
+			return balance;
+		}
+
+		public double getLimit() {
+			return limit;
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package group3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counting Bloom filter over the account numbers in an accounts file, used to
+ * answer "does this account exist?" without reading the file. A "no" is
+ * definite and short-circuits the lookup; a "maybe" still goes to storage,
+ * and if storage then says no it is counted as a false positive.
+ *
+ * Each slot is a 4-bit counter rather than a single bit so accounts can be
+ * removed as well as added. The filter is sized for about 1% false positives
+ * and is rebuilt at twice the size when it fills up.
+ *
+ * Before the filter is trusted to say no it asks DataFileLock.Cursor what
+ * other processes changed. The cursor names changed records by the hash of
+ * their account number; these are remembered, and an account number with
+ * one of those hashes is added to the filter when it is looked up, so
+ * storage decides whether it now exists. Only when the changes cannot be
+ * named (the file was edited without the lock, or too much changed), or more
+ * are remembered than the filter holds, is the filter rebuilt from the file.
+ *
+ * There is one filter per accounts file; use forFile.
+ */
+public class AccountFilter {
+	// hash functions per key and counters per expected key for ~1% false positives
+	private static final int HASHES = 7;
+	private static final int SLOTS_PER_KEY = 10;
+	private static final int MIN_CAPACITY = 1024;
+
+	private static final Map<String, AccountFilter> filters = new ConcurrentHashMap<>();
+
+	private final File accountFile;
+	// 16 four-bit counters per long
+	private long[] counters;
+	private int slots;
+	private int capacity;
+	private int count;
+	// changes made to the file by other processes
+	private final DataFileLock.Cursor changes;
+	// hashes of account numbers other processes changed, not yet looked up
+	private final Set<Integer> foreign = new HashSet<>();
+
+	private final LongAdder negatives = new LongAdder();
+	private final LongAdder positives = new LongAdder();
+	private final LongAdder falsePositives = new LongAdder();
+
+	private AccountFilter(File accountFile) {
+		this.accountFile = accountFile;
+		this.changes = DataFileLock.forFile(accountFile).cursor();
+	}
+
+	// the shared filter for an accounts file, loaded on first use
+	public static AccountFilter forFile(File accountFile) {
+		return filters.computeIfAbsent(accountFile.getAbsolutePath(), k -> {
+			AccountFilter filter = new AccountFilter(accountFile);
+			filter.rebuild();
+			return filter;
+		});
+	}
+
+	/**
+	 * False means the account definitely does not exist. True means it may
+	 * exist and storage has to be checked; report what storage said with
+	 * confirm so the false positive rate can be tracked.
+	 */
+	public boolean mightContain(String accountNum) {
+		int num;
+		try {
+			num = Integer.parseInt(accountNum.trim());
+		} catch (NumberFormatException e) {
+			negatives.increment();
+			return false;
+		}
+		return mightContain(num);
+	}
+
+	public boolean mightContain(int accountNum) {
+		synchronized (this) {
+			if (test(accountNum)) {
+				positives.increment();
+				return true;
+			}
+		}
+		// only trust a "no" if nobody else has changed this account since we looked
+		int[] changed = changes.poll();
+		boolean reload = changed == null;
+		if (!reload) {
+			synchronized (this) {
+				for (int hash : changed) {
+					foreign.add(hash);
+				}
+				// changed elsewhere, perhaps created: let storage decide
+				reload = (foreign.remove(String.valueOf(accountNum).hashCode()) && !insert(accountNum))
+						|| foreign.size() > capacity;
+			}
+		}
+		if (reload) {
+			rebuild();
+		}
+		synchronized (this) {
+			if (test(accountNum)) {
+				positives.increment();
+				return true;
+			}
+		}
+		negatives.increment();
+		return false;
+	}
+
+	// storage answer for a key the filter said might exist
+	public void confirm(boolean exists) {
+		if (!exists) {
+			falsePositives.increment();
+		}
+	}
+
+	/**
+	 * Definite answer: the filter rules out most numbers, and a "maybe" is
+	 * settled by a scan of the accounts file. Call under a lock of the file
+	 * for the answer to still hold when it is acted on.
+	 */
+	public boolean exists(String accountNum) {
+		if (!mightContain(accountNum)) {
+			return false;
+		}
+		boolean found = false;
+		try (RecordReader reader = new RecordReader(accountFile)) {
+			while (!found && reader.next()) {
+				found = reader.fields() >= 1 && reader.fieldEquals(0, accountNum);
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading accounts: " + e.getMessage());
+		}
+		confirm(found);
+		return found;
+	}
+
+	// call after an account has been written to the accounts file
+	public void add(int accountNum) {
+		if (!insert(accountNum)) {
+			// full: rebuild reads the file, which already holds the new account
+			rebuild();
+		}
+	}
+
+	// false if the filter is full
+	private synchronized boolean insert(int accountNum) {
+		if (count >= capacity) {
+			return false;
+		}
+		for (int i = 0; i < HASHES; i++) {
+			increment(slot(accountNum, i));
+		}
+		count++;
+		return true;
+	}
+
+	// call after an account has been removed from the accounts file
+	public synchronized void remove(int accountNum) {
+		if (!test(accountNum)) {
+			return;
+		}
+		for (int i = 0; i < HASHES; i++) {
+			decrement(slot(accountNum, i));
+		}
+		count--;
+	}
+
+	/**
+	 * Counters for monitoring: queries answered without storage, confirmed
+	 * false positives, and the expected and observed false positive rates.
+	 */
+	public synchronized Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		long neg = negatives.sum();
+		long pos = positives.sum();
+		long fp = falsePositives.sum();
+		stats.put("accounts", count);
+		stats.put("capacity", capacity);
+		stats.put("sizeBytes", counters.length * 8L);
+		stats.put("negatives", neg);
+		stats.put("positives", pos);
+		stats.put("falsePositives", fp);
+		// (1 - e^(-kn/m))^k
+		stats.put("expectedFalsePositiveRate", Math.pow(1 - Math.exp(-(double) HASHES * count / slots), HASHES));
+		// share of keys that were not in storage but got past the filter
+		stats.put("observedFalsePositiveRate", fp + neg == 0 ? 0.0 : (double) fp / (fp + neg));
+		return stats;
+	}
+
+	/**
+	 * Reload every account number from the file into a filter sized for it.
+	 * The file is read without holding this object's monitor, since reading
+	 * may wait for a writer that is about to call add.
+	 */
+	private void rebuild() {
+		int[] nums = new int[64];
+		int n = 0;
+		if (accountFile.exists()) {
+			try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockShared();
+					RecordReader reader = new RecordReader(accountFile)) {
+				while (reader.next()) {
+					if (reader.fields() < 2) {
+						continue;
+					}
+					try {
+						int num = reader.intField(0);
+						if (n == nums.length) {
+							nums = Arrays.copyOf(nums, n * 2);
+						}
+						nums[n++] = num;
+					} catch (NumberFormatException e) {
+						// skip malformed lines
+					}
+				}
+			} catch (IOException e) {
+				System.out.println("Error loading account filter: " + e.getMessage());
+			}
+		}
+		install(nums, n);
+	}
+
+	private synchronized void install(int[] nums, int n) {
+		capacity = Math.max(MIN_CAPACITY, n * 2);
+		slots = capacity * SLOTS_PER_KEY;
+		counters = new long[(slots + 15) / 16];
+		count = 0;
+		// the file as read holds every change reported so far
+		foreign.clear();
+		for (int i = 0; i < n; i++) {
+			for (int h = 0; h < HASHES; h++) {
+				increment(slot(nums[i], h));
+			}
+			count++;
+		}
+	}
+
+	private boolean test(int accountNum) {
+		for (int i = 0; i < HASHES; i++) {
+			if (get(slot(accountNum, i)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// double hashing over a 64-bit mix of the account number
+	private int slot(int accountNum, int i) {
+		long h = accountNum * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		h *= 0xBF58476D1CE4E5B9L;
+		h ^= h >>> 29;
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32) | 1;
+		return Math.floorMod(h1 + i * h2, slots);
+	}
+
+	private int get(int slot) {
+		return (int) (counters[slot >>> 4] >>> ((slot & 15) << 2)) & 0xf;
+	}
+
+	// counters stick at 15 instead of overflowing
+	private void increment(int slot) {
+		if (get(slot) < 15) {
+			counters[slot >>> 4] += 1L << ((slot & 15) << 2);
+		}
+	}
+
+	private void decrement(int slot) {
+		int c = get(slot);
+		if (c > 0 && c < 15) {
+			counters[slot >>> 4] -= 1L << ((slot & 15) << 2);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package group3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out new account numbers in constant time. Numbers come from an atomic
+ * counter; the counter may only run up to a ceiling that has been written to
+ * a high-water mark file next to the accounts file (accounts.txt.seq) before
+ * any number below it is used. The ceiling moves up a block at a time, so the
+ * file is touched once per BLOCK accounts, and a restart continues above every
+ * number that could have been handed out. The high-water mark is updated under
+ * a file lock, so separate server processes never get overlapping blocks.
+ *
+ * A number chosen elsewhere (typed in by an employee, imported) is reported
+ * with observe, which moves the persisted mark past it too. It may still lie
+ * in a block another process reserved earlier, so whoever writes a drawn
+ * number checks the accounts file for it under the accounts lock and draws
+ * again if it is taken.
+ *
+ * There is one allocator per accounts file; use forFile.
+ */
+public class AccountNumberAllocator {
+	// account numbers reserved per write of the high-water mark
+	private static final int BLOCK = 100;
+	// first number handed out for an empty accounts file (as Profile used to)
+	private static final int FIRST = 1000;
+
+	private static final Map<String, AccountNumberAllocator> allocators = new ConcurrentHashMap<>();
+
+	private final File accountFile;
+	private final File seqFile;
+	private final AtomicInteger counter = new AtomicInteger();
+	// every number below the ceiling is covered by the persisted high-water mark
+	private volatile int ceiling;
+
+	private AccountNumberAllocator(File accountFile) {
+		this.accountFile = accountFile;
+		this.seqFile = new File(accountFile.getPath() + ".seq");
+		// nothing reserved yet: the first next() takes a block starting above the
+		// persisted mark (or above the largest number in the file the first time)
+		counter.set(FIRST);
+		ceiling = FIRST;
+	}
+
+	// the shared allocator for an accounts file
+	public static AccountNumberAllocator forFile(File accountFile) {
+		return allocators.computeIfAbsent(accountFile.getAbsolutePath(), k -> new AccountNumberAllocator(accountFile));
+	}
+
+	/**
+	 * Returns an account number that has not been handed out before by any
+	 * allocator sharing this accounts file.
+	 */
+	public int next() {
+		while (true) {
+			int n = counter.getAndIncrement();
+			if (n < ceiling) {
+				return n;
+			}
+			// past the reserved block: reserve the next one and draw again
+			reserve(n);
+		}
+	}
+
+	/**
+	 * Makes sure a number chosen elsewhere (e.g. typed in by an employee or
+	 * imported) is never handed out later, by this process or, once it is
+	 * past every reserved block, by any other or after a restart.
+	 */
+	public synchronized void observe(int accountNum) {
+		if (accountNum < ceiling) {
+			// the persisted mark is already past it
+			counter.accumulateAndGet(accountNum + 1, Math::max);
+		} else {
+			// a block above it moves the mark past it, one write for a run of imports
+			reserveFrom(accountNum + 1);
+		}
+	}
+
+	private synchronized void reserve(int n) {
+		if (counter.get() < ceiling) {
+			// another thread already reserved a new block; n was drawn before the
+			// counter was reset, so the caller simply draws again
+			return;
+		}
+		reserveFrom(n);
+	}
+
+	// persists a block starting at n or above and makes it the current one
+	private void reserveFrom(int n) {
+		try (FileChannel channel = FileChannel.open(seqFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+				FileLock lock = channel.lock()) {
+			int persisted = readMark(channel);
+			if (persisted < 0) {
+				persisted = maxInAccountFile() + 1;
+			}
+			int start = Math.max(Math.max(persisted, ceiling), n);
+			int end = start + BLOCK;
+			writeMark(channel, end);
+			// the counter moves before the ceiling so no thread can draw a number
+			// from the old counter that is below the new ceiling
+			counter.set(start);
+			ceiling = end;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not reserve account numbers", e);
+		}
+	}
+
+	// persisted high-water mark, or -1 if none has been written yet
+	private static int readMark(FileChannel channel) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(32);
+		channel.read(buf, 0);
+		String text = new String(buf.array(), 0, buf.position(), StandardCharsets.US_ASCII).trim();
+		if (text.isEmpty()) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(text);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static void writeMark(FileChannel channel, int mark) throws IOException {
+		channel.truncate(0);
+		channel.write(ByteBuffer.wrap((mark + "\n").getBytes(StandardCharsets.US_ASCII)), 0);
+		// durable before any number below the mark is used
+		channel.force(true);
+	}
+
+	// one scan of the accounts file, only needed before the first mark exists
+	private int maxInAccountFile() {
+		int max = FIRST - 1;
+		if (!accountFile.exists()) {
+			return max;
+		}
+		try (RecordReader reader = new RecordReader(accountFile)) {
+			while (reader.next()) {
+				try {
+					max = Math.max(max, reader.intField(0));
+				} catch (NumberFormatException e) {
+					// skip malformed lines
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading accounts: " + e.getMessage());
+		}
+		return max;
+	}
+}
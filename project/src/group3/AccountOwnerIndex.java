@@ -0,0 +1,128 @@
+package group3;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from account number to the username of the profile it is
+ * linked to, built from the accounts list at the end of each profiles.txt line.
+ * Lookups are a single probe of an IntIntMap from account number to the
+ * slot of the owner's username, with no boxing; the index is kept current by
+ * passing every profile line that is written to putProfile.
+ */
+public class AccountOwnerIndex {
+	private final IntIntMap owners = new IntIntMap(1024);
+	// usernames by slot; a removed profile keeps its slot for when it comes back
+	private final List<String> usernames = new ArrayList<>();
+	private final Map<String, Integer> slots = new HashMap<>();
+	// accounts each profile had when last seen, so a rewrite can drop stale links
+	private final Map<String, int[]> linked = new ConcurrentHashMap<>();
+
+	// build the index from a profiles file
+	public static AccountOwnerIndex load(File profiles) {
+		AccountOwnerIndex index = new AccountOwnerIndex();
+		if (!profiles.exists()) {
+			return index;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(profiles), 1 << 16)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				index.putProfile(line);
+			}
+		} catch (IOException e) {
+			System.out.println("Error loading account owner index: " + e.getMessage());
+		}
+		return index;
+	}
+
+	/**
+	 * Records the links of a profile line:
+	 * username,password,name,phone,address,email,creditScore,[acc1,acc2]
+	 */
+	public synchronized void putProfile(String profileLine) {
+		String[] fields = profileLine.split(",", 8);
+		if (fields.length < 1 || fields[0].isEmpty()) {
+			return;
+		}
+		String username = fields[0];
+		int[] accounts = parseAccounts(fields.length > 7 ? fields[7] : "[]");
+		int slot = slots.computeIfAbsent(username, u -> {
+			usernames.add(u);
+			return usernames.size() - 1;
+		});
+		int[] previous = linked.put(username, accounts);
+		if (previous != null) {
+			unlink(previous, slot);
+		}
+		for (int num : accounts) {
+			owners.put(num, slot);
+		}
+	}
+
+	// drops a profile that is no longer in the file
+	public synchronized void removeProfile(String username) {
+		int[] previous = linked.remove(username);
+		if (previous != null) {
+			unlink(previous, slots.get(username));
+		}
+	}
+
+	// drops the links of accounts that still point at the slot
+	private void unlink(int[] accounts, int slot) {
+		for (int num : accounts) {
+			if (owners.get(num) == slot) {
+				owners.remove(num);
+			}
+		}
+	}
+
+	// username of the profile the account is linked to, or null
+	public synchronized String ownerOf(int accountNum) {
+		int slot = owners.get(accountNum);
+		return slot == IntIntMap.NO_VALUE ? null : usernames.get(slot);
+	}
+
+	// accounts linked to a profile, in the order they appear in the file
+	public int[] accountsOf(String username) {
+		int[] accounts = linked.get(username);
+		return accounts == null ? new int[0] : accounts.clone();
+	}
+
+	public synchronized int size() {
+		return owners.size();
+	}
+
+	// parse "[1212,1213]" into its account numbers, skipping anything malformed
+	static int[] parseAccounts(String field) {
+		String inner = field.trim();
+		if (inner.startsWith("[")) {
+			inner = inner.substring(1);
+		}
+		if (inner.endsWith("]")) {
+			inner = inner.substring(0, inner.length() - 1);
+		}
+		if (inner.isBlank()) {
+			return new int[0];
+		}
+		String[] parts = inner.split(",");
+		int[] nums = new int[parts.length];
+		int count = 0;
+		for (String part : parts) {
+			try {
+				nums[count] = Integer.parseInt(part.trim());
+				count++;
+			} catch (NumberFormatException e) {
+				// not an account number
+			}
+		}
+		return Arrays.copyOf(nums, count);
+	}
+}
@@ -0,0 +1,202 @@
+package group3;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Moves money from one account to another as a single change to the
+ * accounts file: both balances are checked and updated in one read, one
+ * atomic replace of the file and one LogEntry naming both accounts and both
+ * new balances, all under the exclusive lock of the accounts file. The entry
+ * is logged under the paying account; LogEntry.getReceiverNum reads the
+ * other one back out of it, so per-account histories show it on both sides. No reader in any process ever sees the money missing
+ * from both accounts, which a withdrawal followed by a deposit allows.
+ *
+ * Every account lives in accounts.txt, so its DataFileLock is the one lock a
+ * transfer needs and two transfers cannot deadlock on each other whichever
+ * way they go. Callers that need more than one data file lock take them in
+ * the order accounts, then profiles (as BulkImporter does); the records a
+ * transfer touched are reported in account number order.
+ */
+public class AccountTransfer {
+	/**
+	 * Outcome of a transfer; anything but done leaves both accounts as they
+	 * were.
+	 */
+	public enum Status {
+		done,
+		invalidAmount,
+		sameAccount,
+		noSuchAccount,
+		insufficientFunds,
+		overLimit,
+		failed
+	}
+
+	private final File accountFile;
+	private final File logFile;
+
+	public AccountTransfer(File accounts, File log) {
+		this.accountFile = accounts;
+		this.logFile = log;
+	}
+
+	/**
+	 * Moves amount from one account to the other. The source must hold at
+	 * least amount, and a line of credit may not be paid back past its limit,
+	 * the same rules as a withdrawal and a deposit. via names the caller in
+	 * the log ("Teller", "ATM", "REST API").
+	 */
+	public Result transfer(String from, String to, double amount, String via) {
+		// balances are kept to the cent
+		amount = round(amount);
+		if (!(amount > 0) || Double.isInfinite(amount)) {
+			return new Result(Status.invalidAmount, 0, 0);
+		}
+		if (from == null || to == null) {
+			return new Result(Status.noSuchAccount, 0, 0);
+		}
+		if (from.equals(to)) {
+			return new Result(Status.sameAccount, 0, 0);
+		}
+		try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+			Result result = transferLocked(from, to, amount, via);
+			if (result.isDone()) {
+				boolean fromFirst = compareNumbers(from, to) < 0;
+				held.touched(fromFirst ? from : to);
+				held.touched(fromFirst ? to : from);
+			} else {
+				// a refused transfer wrote nothing, so no version moves
+				held.unchanged();
+			}
+			return result;
+		} catch (IOException e) {
+			System.out.println("Transfer failed: " + e.getMessage());
+			return new Result(Status.failed, 0, 0);
+		}
+	}
+
+	private Result transferLocked(String from, String to, double amount, String via) throws IOException {
+		BankEvents.StorageAccess read = BankEvents.beginStorage();
+		List<String> lines = Files.readAllLines(accountFile.toPath());
+		BankEvents.storage(read, accountFile, "read", number(from), lines.size(), "ok");
+		int fromLine = -1;
+		int toLine = -1;
+		for (int i = 0; i < lines.size() && (fromLine < 0 || toLine < 0); i++) {
+			String line = lines.get(i);
+			if (fromLine < 0 && line.startsWith(from + ",")) {
+				fromLine = i;
+			} else if (toLine < 0 && line.startsWith(to + ",")) {
+				toLine = i;
+			}
+		}
+		if (fromLine < 0 || toLine < 0) {
+			return new Result(Status.noSuchAccount, 0, 0);
+		}
+
+		String[] source = lines.get(fromLine).split(",");
+		String[] target = lines.get(toLine).split(",");
+		if (source.length < 4 || target.length < 4) {
+			return new Result(Status.noSuchAccount, 0, 0);
+		}
+		double fromBalance;
+		double toBalance;
+		try {
+			fromBalance = Double.parseDouble(source[3]);
+			toBalance = Double.parseDouble(target[3]);
+			if (fromBalance < amount) {
+				return new Result(Status.insufficientFunds, fromBalance, toBalance);
+			}
+			if (target.length > 4 && target[2].equals(String.valueOf(AccountType.lineOfCredit))
+					&& toBalance + amount > Double.parseDouble(target[4])) {
+				return new Result(Status.overLimit, fromBalance, toBalance);
+			}
+		} catch (NumberFormatException e) {
+			return new Result(Status.failed, 0, 0);
+		}
+		fromBalance = round(fromBalance - amount);
+		toBalance = round(toBalance + amount);
+		source[3] = String.valueOf(fromBalance);
+		target[3] = String.valueOf(toBalance);
+		lines.set(fromLine, String.join(",", source));
+		lines.set(toLine, String.join(",", target));
+
+		// both balances land in one replace of the file
+		BankEvents.StorageAccess rewrite = BankEvents.beginStorage();
+		File temp = new File(accountFile.getPath() + ".tmp");
+		try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temp), 1 << 16))) {
+			for (String line : lines) {
+				writer.println(line);
+			}
+		}
+		Files.move(temp.toPath(), accountFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		BankEvents.storage(rewrite, accountFile, "rewrite", number(from), lines.size(), "ok");
+		AccountCache cache = AccountCache.forFile(accountFile);
+		cache.put(lines.get(fromLine));
+		cache.put(lines.get(toLine));
+
+		// one journal record for both sides, written before the lock is released; the
+		// message layout is what LogEntry.receiverOf parses
+		LogEntry.appendToLog(logFile, new LogEntry(number(from), LogType.transfer, via + " transferred " + amount
+				+ " from " + from + " to " + to + ", new balances " + fromBalance + " and " + toBalance));
+		return new Result(Status.done, fromBalance, toBalance);
+	}
+
+	// numeric order of two account numbers; anything unparsable sorts as text
+	private static int compareNumbers(String a, String b) {
+		try {
+			return Integer.compare(Integer.parseInt(a), Integer.parseInt(b));
+		} catch (NumberFormatException e) {
+			return a.compareTo(b);
+		}
+	}
+
+	private static int number(String num) {
+		try {
+			return Integer.parseInt(num);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private static double round(double amount) {
+		return Math.round(amount * 100) / 100.0;
+	}
+
+	// outcome of one transfer and the balances it left
+	public static class Result {
+		private final Status status;
+		private final double fromBalance;
+		private final double toBalance;
+
+		Result(Status status, double fromBalance, double toBalance) {
+			this.status = status;
+			this.fromBalance = fromBalance;
+			this.toBalance = toBalance;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		public boolean isDone() {
+			return status == Status.done;
+		}
+
+		public double getFromBalance() {
+			return fromBalance;
+		}
+
+		public double getToBalance() {
+			return toBalance;
+		}
+
+		@Override
+		public String toString() {
+			return status + (isDone() ? ", new balances " + fromBalance + " and " + toBalance : "");
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package group3;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches deposits and withdrawals so that a burst of them costs one write of
+ * the accounts file and one append to the log instead of one of each per
+ * request.
+ *
+ * A caller's change is queued and the caller waits. The first change of a
+ * batch schedules a flush a short window later (bank.coalesceMillis, default
+ * 2 ms); everything that arrives until then, and while an earlier flush is
+ * still writing, goes into the same batch. The flush takes the exclusive lock,
+ * reads the file once, applies the changes in arrival order with the same
+ * checks as a single deposit or withdrawal, commits the file with one atomic
+ * replace, appends the log entries of the accepted changes together and only
+ * then wakes the callers. A caller therefore never hears of a change before it
+ * is on disk, and waits at most the window plus one flush.
+ *
+ * Since any change rewrites the whole file, a batch covers every account, not
+ * only the hot one. There is one coalescer per accounts file; use forFile.
+ */
+public class AccountWriteCoalescer {
+	private static final Map<String, AccountWriteCoalescer> instances = new ConcurrentHashMap<>();
+
+	private final File accountFile;
+	private final File logFile;
+	private final long windowMillis;
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "AccountWriteCoalescer");
+		t.setDaemon(true);
+		return t;
+	});
+	// changes waiting for the next flush, in arrival order
+	private List<Change> pending = new ArrayList<>();
+	private boolean scheduled;
+	// changes received and the file writes that carried them
+	private final LongAdder changes = new LongAdder();
+	private final LongAdder writes = new LongAdder();
+	private volatile int largestBatch;
+
+	public AccountWriteCoalescer(File accounts, File log, long windowMillis) {
+		this.accountFile = accounts;
+		this.logFile = log;
+		this.windowMillis = windowMillis;
+	}
+
+	// the shared coalescer for an accounts file, with the configured window
+	public static AccountWriteCoalescer forFile(File accounts, File log) {
+		return instances.computeIfAbsent(accounts.getAbsolutePath(), k -> new AccountWriteCoalescer(accounts, log,
+				Long.parseLong(System.getProperty("bank.coalesceMillis", "2"))));
+	}
+
+	/**
+	 * Adds amount to the balance once it is written; a line of credit may not
+	 * go past its limit. message is the text of the log entry, to which
+	 * ", new balance " and the balance it left are added.
+	 */
+	public Update deposit(String accountNum, double amount, String message) {
+		if (!validAmount(amount)) {
+			return new Update(AccountTransfer.Status.invalidAmount, 0);
+		}
+		return submit(new Change(accountNum, amount, LogType.deposit, message));
+	}
+
+	/**
+	 * Takes amount from the balance once it is written; the balance may not go
+	 * below zero. message is the text of the log entry, which gets the
+	 * new balance added the same way.
+	 */
+	public Update withdraw(String accountNum, double amount, String message) {
+		if (!validAmount(amount)) {
+			return new Update(AccountTransfer.Status.invalidAmount, 0);
+		}
+		return submit(new Change(accountNum, -amount, LogType.withdrawal, message));
+	}
+
+	private static boolean validAmount(double amount) {
+		return amount > 0 && !Double.isInfinite(amount);
+	}
+
+	// callers must not hold the accounts file lock: the flush needs it
+	private Update submit(Change change) {
+		changes.increment();
+		synchronized (this) {
+			pending.add(change);
+			if (!scheduled) {
+				scheduled = true;
+				flusher.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+		Update update = change.result.join();
+		// the flush ran on the flusher thread, so its time is added to the caller's trace here
+		RequestTrace.addStorage(change.storageNanos);
+		RequestTrace.addLog(change.logNanos);
+		return update;
+	}
+
+	// runs on the flusher thread only
+	private void flush() {
+		List<Change> batch;
+		synchronized (this) {
+			batch = pending;
+			pending = new ArrayList<>();
+			scheduled = false;
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		largestBatch = Math.max(largestBatch, batch.size());
+		try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+			List<String> written = apply(batch);
+			if (written.isEmpty()) {
+				// every change was refused and the file was not rewritten
+				held.unchanged();
+			}
+			for (String accountNum : written) {
+				held.touched(accountNum);
+			}
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Error writing accounts: " + e.getMessage());
+			for (Change change : batch) {
+				change.result.complete(new Update(AccountTransfer.Status.failed, 0));
+			}
+		}
+	}
+
+	// applies the batch; returns the numbers of the accounts whose change was accepted
+	private List<String> apply(List<Change> batch) throws IOException {
+		BankEvents.StorageAccess read = BankEvents.beginStorage();
+		List<String> lines = Files.readAllLines(accountFile.toPath());
+		long storageNanos = BankEvents.storage(read, accountFile, "read", 0, lines.size(), "ok");
+		long logNanos = 0;
+		// line number and fields of each account in the batch, found in one pass
+		Map<String, Integer> lineOf = new HashMap<>();
+		for (Change change : batch) {
+			lineOf.put(change.accountNum, -1);
+		}
+		Map<String, String[]> fields = new HashMap<>();
+		for (int i = 0, found = 0; i < lines.size() && found < lineOf.size(); i++) {
+			String line = lines.get(i);
+			int comma = line.indexOf(',');
+			String key = comma < 0 ? line : line.substring(0, comma);
+			Integer seen = lineOf.get(key);
+			if (seen != null && seen < 0) {
+				lineOf.put(key, i);
+				fields.put(key, line.split(","));
+				found++;
+			}
+		}
+
+		List<Update> updates = new ArrayList<>(batch.size());
+		List<LogEntry> log = new ArrayList<>();
+		List<String> written = new ArrayList<>();
+		// one time for the whole batch, which is written at once
+		long micros = CoarseClock.micros();
+		for (Change change : batch) {
+			Update update = applyOne(fields.get(change.accountNum), change.delta);
+			updates.add(update);
+			if (update.isDone()) {
+				log.add(new LogEntry(Integer.parseInt(change.accountNum), change.type,
+						change.message + ", new balance " + update.getBalance(), micros));
+				written.add(change.accountNum);
+			}
+		}
+
+		if (!log.isEmpty()) {
+			for (Map.Entry<String, Integer> e : lineOf.entrySet()) {
+				if (e.getValue() >= 0) {
+					lines.set(e.getValue(), String.join(",", fields.get(e.getKey())));
+				}
+			}
+			BankEvents.StorageAccess rewrite = BankEvents.beginStorage();
+			File temp = new File(accountFile.getPath() + ".tmp");
+			try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temp), 1 << 16))) {
+				for (String line : lines) {
+					writer.println(line);
+				}
+			}
+			Files.move(temp.toPath(), accountFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			storageNanos += BankEvents.storage(rewrite, accountFile, "rewrite",
+					log.size() == 1 ? log.get(0).getAccountNum() : 0, lines.size(), "ok");
+			AccountCache cache = AccountCache.forFile(accountFile);
+			for (int line : lineOf.values()) {
+				if (line >= 0) {
+					cache.put(lines.get(line));
+				}
+			}
+			long logStart = System.nanoTime();
+			LogEntry.appendAllToLog(logFile, log);
+			logNanos = System.nanoTime() - logStart;
+			writes.increment();
+		}
+
+		// only now is every accepted change on disk
+		for (int i = 0; i < batch.size(); i++) {
+			Change change = batch.get(i);
+			change.storageNanos = storageNanos;
+			change.logNanos = logNanos;
+			change.result.complete(updates.get(i));
+		}
+		return written;
+	}
+
+	// counters for /api/stats
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		long received = changes.sum();
+		long written = writes.sum();
+		stats.put("windowMillis", windowMillis);
+		stats.put("changes", received);
+		stats.put("fileWrites", written);
+		stats.put("largestBatch", largestBatch);
+		stats.put("changesPerWrite", written == 0 ? 0.0 : (double) received / written);
+		return stats;
+	}
+
+	// one change against the fields of its account line, updated in place
+	private static Update applyOne(String[] info, double delta) {
+		if (info == null || info.length < 4) {
+			return new Update(AccountTransfer.Status.noSuchAccount, 0);
+		}
+		try {
+			double balance = Double.parseDouble(info[3]);
+			if (balance + delta < 0) {
+				return new Update(AccountTransfer.Status.insufficientFunds, balance);
+			}
+			if (delta > 0 && info.length > 4 && info[2].equals(String.valueOf(AccountType.lineOfCredit))
+					&& balance + delta > Double.parseDouble(info[4])) {
+				return new Update(AccountTransfer.Status.overLimit, balance);
+			}
+			balance += delta;
+			info[3] = String.valueOf(balance);
+			return new Update(AccountTransfer.Status.done, balance);
+		} catch (NumberFormatException e) {
+			return new Update(AccountTransfer.Status.failed, 0);
+		}
+	}
+
+	private static final class Change {
+		final String accountNum;
+		final double delta;
+		final LogType type;
+		final String message;
+		final CompletableFuture<Update> result = new CompletableFuture<>();
+		// time the batch spent on the file and the log, for the caller's RequestTrace
+		long storageNanos;
+		long logNanos;
+
+		Change(String accountNum, double delta, LogType type, String message) {
+			this.accountNum = accountNum;
+			this.delta = delta;
+			this.type = type;
+			this.message = message;
+		}
+	}
+
+	// outcome of one deposit or withdrawal and the balance it left
+	public static class Update {
+		private final AccountTransfer.Status status;
+		private final double balance;
+
+		Update(AccountTransfer.Status status, double balance) {
+			this.status = status;
+			this.balance = balance;
+		}
+
+		public AccountTransfer.Status getStatus() {
+			return status;
+		}
+
+		public boolean isDone() {
+			return status == AccountTransfer.Status.done;
+		}
+
+		public double getBalance() {
+			return balance;
+		}
+	}
+}
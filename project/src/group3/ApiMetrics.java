@@ -0,0 +1,141 @@
+package group3;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts per route and response status, and a LatencyHistogram of
+ * the handling time per route, for /api/metrics. Recording a request looks
+ * its route up in a concurrent map and bumps counters, with no lock once the
+ * route has been seen; requests for paths that are not routes all count as
+ * one "unmatched" route, so a scan of made-up URLs cannot grow the map.
+ *
+ * Everything counts from the start of the server. The text format is the
+ * one Prometheus scrapes, with the latencies as a summary in seconds.
+ */
+public class ApiMetrics {
+	static final String UNMATCHED = "unmatched";
+	private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+	private static final ApiMetrics shared = new ApiMetrics();
+
+	private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+	// the metrics RestApiServer records into
+	public static ApiMetrics shared() {
+		return shared;
+	}
+
+	/**
+	 * Counts one request. route is the path it was routed by, or null if it
+	 * matched no route; status is the response code sent, or -1 if none was.
+	 */
+	public void record(String method, String route, int status, long nanos) {
+		String key = route != null ? method + " " + route : UNMATCHED;
+		Route r = routes.get(key);
+		if (r == null) {
+			r = routes.computeIfAbsent(key, k -> route != null ? new Route(method, route) : new Route("", UNMATCHED));
+		}
+		LongAdder requests = r.statuses.get(status);
+		if (requests == null) {
+			requests = r.statuses.computeIfAbsent(status, s -> new LongAdder());
+		}
+		requests.increment();
+		r.latency.record(nanos / 1000);
+	}
+
+	// the routes sorted by path and method, so the output is stable
+	private List<Route> sorted() {
+		List<Route> sorted = new ArrayList<>(routes.values());
+		sorted.sort((a, b) -> a.path.equals(b.path) ? a.method.compareTo(b.method) : a.path.compareTo(b.path));
+		return sorted;
+	}
+
+	/**
+	 * The metrics as Prometheus text: bank_api_requests_total per method,
+	 * route and status, and bank_api_request_duration_seconds per method
+	 * and route.
+	 */
+	public String prometheus() {
+		List<Route> sorted = sorted();
+		StringBuilder out = new StringBuilder();
+		out.append("# HELP bank_api_requests_total REST API requests by route and response status.\n");
+		out.append("# TYPE bank_api_requests_total counter\n");
+		for (Route r : sorted) {
+			for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(r.statuses).entrySet()) {
+				out.append("bank_api_requests_total{").append(r.labels()).append(",status=\"")
+						.append(statusLabel(status.getKey())).append("\"} ").append(status.getValue().sum()).append('\n');
+			}
+		}
+		out.append("# HELP bank_api_request_duration_seconds Time to handle a REST API request.\n");
+		out.append("# TYPE bank_api_request_duration_seconds summary\n");
+		for (Route r : sorted) {
+			for (double q : QUANTILES) {
+				out.append("bank_api_request_duration_seconds{").append(r.labels()).append(",quantile=\"").append(q)
+						.append("\"} ").append(seconds(r.latency.percentile(q))).append('\n');
+			}
+			out.append("bank_api_request_duration_seconds_sum{").append(r.labels()).append("} ")
+					.append(seconds(r.latency.getSumMicros())).append('\n');
+			out.append("bank_api_request_duration_seconds_count{").append(r.labels()).append("} ")
+					.append(r.latency.getCount()).append('\n');
+		}
+		return out.toString();
+	}
+
+	// the same as a list of routes, each with its counts and latencies in microseconds
+	public Map<String, Object> json() {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (Route r : sorted()) {
+			Map<String, Object> route = new LinkedHashMap<>();
+			route.put("method", r.method);
+			route.put("route", r.path);
+			route.put("count", r.latency.getCount());
+			Map<String, Long> statuses = new LinkedHashMap<>();
+			for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(r.statuses).entrySet()) {
+				statuses.put(statusLabel(status.getKey()), status.getValue().sum());
+			}
+			route.put("statuses", statuses);
+			Map<String, Object> latency = new LinkedHashMap<>();
+			latency.put("p50", r.latency.percentile(0.5));
+			latency.put("p99", r.latency.percentile(0.99));
+			latency.put("p999", r.latency.percentile(0.999));
+			latency.put("max", r.latency.getMaxMicros());
+			long count = r.latency.getCount();
+			latency.put("mean", count == 0 ? 0.0 : (double) r.latency.getSumMicros() / count);
+			route.put("latencyMicros", latency);
+			list.add(route);
+		}
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("routes", list);
+		return json;
+	}
+
+	private static String statusLabel(int status) {
+		return status < 0 ? "none" : String.valueOf(status);
+	}
+
+	private static String seconds(long micros) {
+		return String.valueOf(micros / 1e6);
+	}
+
+	private static class Route {
+		final String method;
+		final String path;
+		final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		Route(String method, String path) {
+			this.method = method;
+			this.path = path;
+		}
+
+		// routes are fixed strings from RestApiServer, so they need no escaping
+		String labels() {
+			return "method=\"" + method + "\",route=\"" + path + "\"";
+		}
+	}
+}
@@ -0,0 +1,478 @@
+package group3;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The most recent log entries, kept in memory for dashboards in far less
+ * space than the entries themselves. Entries are stored column by column in
+ * a ring of primitive arrays: account, receiving account (of a transfer),
+ * type, time, and the message split into
+ * a template and its numbers. "ATM deposited 50.0" and "ATM deposited 7.25"
+ * share the template "ATM deposited #", which is kept once in a dictionary
+ * and referred to by id; the first number of a message is its amount column,
+ * the last (if there are two or more) its balance column, and any in between
+ * go to a shared ring of extra numbers. A number is stored as its digits and
+ * decimal places, so the message comes back exactly as it was logged.
+ *
+ * The ring and the dictionary together stay within bank.auditRingBytes
+ * (default 16 MB): a quarter goes to the dictionary, the rest to the columns,
+ * which start small and double as entries come in. When either is full the
+ * oldest entries are dropped, and a template no entry refers to any more is
+ * dropped with them.
+ *
+ * The ring of a log file (forFile) is filled from the end of the file when
+ * first used, and before each query reads what was appended to the file since
+ * the last one, up to the last complete line. It therefore also shows what
+ * the other server process logged. A log that got shorter (was replaced) is
+ * read again from its end.
+ */
+public class AuditRing {
+	private static final Map<String, AuditRing> rings = new ConcurrentHashMap<>();
+	// bytes of column data per entry, counting one extra number
+	private static final int ENTRY_BYTES = 4 + 4 + 1 + 8 + 8 + 8 + 4 + 4 + 1 + 8;
+	// stands for a number in a template
+	private static final char NUMBER = '\u0000';
+	private static final int MAX_NUMBERS = 16;
+	// a message with no first or last number
+	private static final long NONE = -1;
+	private static final LogType[] TYPES = LogType.values();
+	private static final double[] POWERS = new double[32];
+	static {
+		POWERS[0] = 1;
+		for (int i = 1; i < POWERS.length; i++) {
+			POWERS[i] = POWERS[i - 1] * 10;
+		}
+	}
+
+	// most entries the budget allows; the columns grow to it as needed
+	private final int capacity;
+	private final long dictionaryBudget;
+	// the columns; entry i of the ring is at (head + i) % accounts.length
+	private int[] accounts;
+	private int[] receivers;
+	private byte[] types;
+	private long[] micros;
+	private long[] amounts;
+	private long[] balances;
+	private int[] templateIds;
+	private int[] extraStarts;
+	private byte[] extraCounts;
+	private int head;
+	private int size;
+	// numbers between the first and last of a message, also a ring
+	private long[] extras;
+	private int extraHead;
+	private int extraUsed;
+	// template dictionary with a count of the entries using each template
+	private final Map<String, Integer> templateIdOf = new HashMap<>();
+	private final List<String> templates = new ArrayList<>();
+	private int[] templateRefs = new int[64];
+	private int[] freeIds = new int[16];
+	private int freeCount;
+	private long dictionaryBytes;
+	private long added;
+	private long dropped;
+	// the log file this ring follows, or null if entries are only added
+	private File logFile;
+	// offset in logFile up to which every line has been read
+	private long tailed;
+
+	public AuditRing(long budgetBytes) {
+		long columnBytes = budgetBytes - budgetBytes / 4;
+		this.capacity = (int) Math.max(MAX_NUMBERS, Math.min(Integer.MAX_VALUE - 8, columnBytes / ENTRY_BYTES));
+		this.dictionaryBudget = budgetBytes - (long) capacity * ENTRY_BYTES;
+		allocate(Math.min(capacity, 1024));
+	}
+
+	private void allocate(int length) {
+		accounts = new int[length];
+		receivers = new int[length];
+		types = new byte[length];
+		micros = new long[length];
+		amounts = new long[length];
+		balances = new long[length];
+		templateIds = new int[length];
+		extraStarts = new int[length];
+		extraCounts = new byte[length];
+		extras = new long[length];
+	}
+
+	// doubles the columns, up to capacity, moving the oldest entry to slot 0
+	private void grow() {
+		int[] oldAccounts = accounts;
+		int[] oldReceivers = receivers;
+		byte[] oldTypes = types;
+		long[] oldMicros = micros;
+		long[] oldAmounts = amounts;
+		long[] oldBalances = balances;
+		int[] oldTemplateIds = templateIds;
+		int[] oldExtraStarts = extraStarts;
+		byte[] oldExtraCounts = extraCounts;
+		long[] oldExtras = extras;
+		int oldLength = oldAccounts.length;
+		allocate((int) Math.min(capacity, oldLength * 2L));
+		for (int i = 0; i < size; i++) {
+			int from = (head + i) % oldLength;
+			accounts[i] = oldAccounts[from];
+			receivers[i] = oldReceivers[from];
+			types[i] = oldTypes[from];
+			micros[i] = oldMicros[from];
+			amounts[i] = oldAmounts[from];
+			balances[i] = oldBalances[from];
+			templateIds[i] = oldTemplateIds[from];
+			extraStarts[i] = Math.floorMod(oldExtraStarts[from] - extraHead, oldLength);
+			extraCounts[i] = oldExtraCounts[from];
+		}
+		for (int i = 0; i < extraUsed; i++) {
+			extras[i] = oldExtras[(extraHead + i) % oldLength];
+		}
+		head = 0;
+		extraHead = 0;
+	}
+
+	// the shared ring of a log file, loaded from the end of the file the first time
+	public static AuditRing forFile(File log) {
+		return rings.computeIfAbsent(log.getAbsolutePath(), k -> {
+			AuditRing ring = new AuditRing(Long.getLong("bank.auditRingBytes", 16L << 20));
+			ring.logFile = log;
+			ring.tailed = -1;
+			return ring;
+		});
+	}
+
+	/**
+	 * Adds what was appended to the followed log since the last call; the
+	 * first call (and the first after the log got shorter) reads as much of
+	 * the end of the log as is likely to fit.
+	 */
+	private void catchUp() {
+		if (logFile == null || !logFile.exists()) {
+			return;
+		}
+		long length = logFile.length();
+		boolean skipFirst = false;
+		if (tailed < 0 || length < tailed) {
+			while (size > 0) {
+				dropOldest();
+			}
+			tailed = Math.max(0, length - capacity * 128L);
+			// a line cut by the start position is skipped
+			skipFirst = tailed > 0;
+		}
+		if (length <= tailed) {
+			return;
+		}
+		try (FileInputStream in = new FileInputStream(logFile);
+				RecordReader reader = new RecordReader(in)) {
+			// a last line without its line break may still be being written
+			boolean whole;
+			try (RandomAccessFile last = new RandomAccessFile(logFile, "r")) {
+				last.seek(length - 1);
+				whole = last.read() == '\n';
+			}
+			long start = tailed;
+			in.getChannel().position(start);
+			if (skipFirst && reader.next()) {
+				tailed = start + reader.lineOffset();
+			}
+			// each line is added once the next one shows it is complete
+			LogEntry previous = null;
+			while (reader.next()) {
+				long offset = start + reader.lineOffset();
+				if (offset >= length) {
+					break;
+				}
+				if (previous != null) {
+					add(previous);
+				}
+				previous = parse(reader);
+				tailed = offset;
+			}
+			if (whole) {
+				if (previous != null) {
+					add(previous);
+				}
+				tailed = length;
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading log for audit ring: " + e.getMessage());
+		}
+	}
+
+	// the reader's current line as a log entry, or null if it is not one
+	private static LogEntry parse(RecordReader reader) {
+		int last = reader.fields() - 1;
+		if (last < 3) {
+			return null;
+		}
+		try {
+			String message = reader.rest(2);
+			return new LogEntry(reader.intField(0), LogType.valueOf(reader.field(1)),
+					message.substring(0, message.lastIndexOf(',')), CoarseClock.parse(reader.field(last)));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	public synchronized void add(LogEntry entry) {
+		String message = entry.getMessage();
+		long[] numbers = new long[MAX_NUMBERS];
+		StringBuilder template = new StringBuilder(message.length());
+		int count = message.indexOf(NUMBER) < 0 ? split(message, template, numbers) : 0;
+		if (count == 0) {
+			template.setLength(0);
+			template.append(message);
+		}
+		int extraCount = Math.max(0, count - 2);
+		while (accounts.length < capacity && (size == accounts.length || extraUsed + extraCount > extras.length)) {
+			grow();
+		}
+		while (size > 0 && (size == accounts.length || extraUsed + extraCount > extras.length)) {
+			dropOldest();
+		}
+
+		int slot = (head + size) % accounts.length;
+		accounts[slot] = entry.getAccountNum();
+		receivers[slot] = entry.getReceiverNum();
+		types[slot] = (byte) entry.getType().ordinal();
+		micros[slot] = entry.getMicros();
+		amounts[slot] = count > 0 ? numbers[0] : NONE;
+		balances[slot] = count > 1 ? numbers[count - 1] : NONE;
+		extraStarts[slot] = (extraHead + extraUsed) % extras.length;
+		extraCounts[slot] = (byte) extraCount;
+		for (int i = 0; i < extraCount; i++) {
+			extras[(extraStarts[slot] + i) % extras.length] = numbers[i + 1];
+		}
+		extraUsed += extraCount;
+		// the new entry holds the template before any room is made for it
+		templateIds[slot] = templateId(template.toString());
+		size++;
+		added++;
+		while (dictionaryBytes > dictionaryBudget && size > 1) {
+			dropOldest();
+		}
+	}
+
+	/**
+	 * Moves the numbers of message into numbers and the rest into template,
+	 * with NUMBER in their place; returns how many there were. A number is
+	 * digits with an optional fraction, not part of a word or after a point,
+	 * without leading zeros and of at most 17 digits; anything else stays in
+	 * the template.
+	 */
+	private static int split(String message, StringBuilder template, long[] numbers) {
+		int count = 0;
+		int n = message.length();
+		int i = 0;
+		while (i < n) {
+			char c = message.charAt(i);
+			char before = i == 0 ? ' ' : message.charAt(i - 1);
+			if (count < MAX_NUMBERS && isDigit(c) && !isWordChar(before) && before != '.') {
+				int end = i;
+				long digits = 0;
+				int length = 0;
+				int scale = 0;
+				while (end < n && isDigit(message.charAt(end))) {
+					digits = digits * 10 + (message.charAt(end++) - '0');
+					length++;
+				}
+				if (end + 1 < n && message.charAt(end) == '.' && isDigit(message.charAt(end + 1))) {
+					end++;
+					while (end < n && isDigit(message.charAt(end))) {
+						digits = digits * 10 + (message.charAt(end++) - '0');
+						length++;
+						scale++;
+					}
+				}
+				boolean leadingZero = c == '0' && i + 1 < end && message.charAt(i + 1) != '.';
+				if (!leadingZero && length <= 17 && (end == n || !isWordChar(message.charAt(end)))) {
+					numbers[count++] = digits << 5 | scale;
+					template.append(NUMBER);
+				} else {
+					template.append(message, i, end);
+				}
+				i = end;
+			} else {
+				template.append(c);
+				i++;
+			}
+		}
+		return count;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+
+	private int templateId(String template) {
+		Integer id = templateIdOf.get(template);
+		if (id == null) {
+			if (freeCount > 0) {
+				id = freeIds[--freeCount];
+				templates.set(id, template);
+			} else {
+				id = templates.size();
+				templates.add(template);
+				if (id == templateRefs.length) {
+					templateRefs = Arrays.copyOf(templateRefs, id * 2);
+				}
+			}
+			templateIdOf.put(template, id);
+			dictionaryBytes += templateBytes(template);
+		}
+		templateRefs[id]++;
+		return id;
+	}
+
+	// rough heap cost of a template: the String, its bytes and its map entry
+	private static long templateBytes(String template) {
+		return 88 + template.length();
+	}
+
+	private void dropOldest() {
+		int id = templateIds[head];
+		if (--templateRefs[id] == 0) {
+			String template = templates.get(id);
+			templateIdOf.remove(template);
+			templates.set(id, null);
+			dictionaryBytes -= templateBytes(template);
+			if (freeCount == freeIds.length) {
+				freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+			}
+			freeIds[freeCount++] = id;
+		}
+		extraHead = (extraHead + extraCounts[head]) % extras.length;
+		extraUsed -= extraCounts[head];
+		head = (head + 1) % accounts.length;
+		size--;
+		dropped++;
+	}
+
+	/**
+	 * The newest entries logged at or after fromMicros, newest first, at most
+	 * limit of them. accountNum -1 and type null match any; a transfer matches
+	 * both the account it came from and the one it went to.
+	 */
+	public synchronized List<LogEntry> recent(int accountNum, LogType type, long fromMicros, int limit) {
+		catchUp();
+		List<LogEntry> found = new ArrayList<>();
+		if (limit <= 0 || size == 0) {
+			return found;
+		}
+		int wanted = type == null ? -1 : type.ordinal();
+		// newest to oldest; the ring is at most two runs of slots, each scanned straight through
+		int length = accounts.length;
+		int newest = head + size - 1;
+		int[] runStarts = newest < length ? new int[] { newest } : new int[] { newest - length, length - 1 };
+		int[] runEnds = newest < length ? new int[] { head } : new int[] { 0, head };
+		for (int run = 0; run < runStarts.length; run++) {
+			for (int slot = runStarts[run]; slot >= runEnds[run]; slot--) {
+				if ((accountNum < 0 || accounts[slot] == accountNum || receivers[slot] == accountNum) && (wanted < 0 || types[slot] == wanted)
+						&& micros[slot] >= fromMicros) {
+					found.add(entry(slot));
+					if (found.size() == limit) {
+						return found;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Per type, how many entries were logged at or after fromMicros and the
+	 * sum of their amounts (the first number of each message).
+	 */
+	public synchronized Map<String, Object> summary(long fromMicros) {
+		catchUp();
+		long[] counts = new long[TYPES.length];
+		double[] totals = new double[TYPES.length];
+		for (int i = 0, slot = head; i < size; i++, slot = slot + 1 == accounts.length ? 0 : slot + 1) {
+			if (micros[slot] >= fromMicros) {
+				counts[types[slot]]++;
+				if (amounts[slot] != NONE) {
+					totals[types[slot]] += value(amounts[slot]);
+				}
+			}
+		}
+		Map<String, Object> summary = new LinkedHashMap<>();
+		for (LogType t : TYPES) {
+			if (counts[t.ordinal()] > 0) {
+				summary.put(t.name(), Map.of("count", counts[t.ordinal()], "amount", totals[t.ordinal()]));
+			}
+		}
+		return summary;
+	}
+
+	public synchronized int size() {
+		catchUp();
+		return size;
+	}
+
+	// the entry in a slot, with its message put back together
+	private LogEntry entry(int slot) {
+		String template = templates.get(templateIds[slot]);
+		StringBuilder message = new StringBuilder(template.length() + 16);
+		int count = amounts[slot] == NONE ? 0 : balances[slot] == NONE ? 1 : 2 + extraCounts[slot];
+		int k = 0;
+		for (int i = 0; i < template.length(); i++) {
+			char c = template.charAt(i);
+			if (c != NUMBER || k == count) {
+				message.append(c);
+				continue;
+			}
+			long number = k == 0 ? amounts[slot]
+					: k == count - 1 ? balances[slot] : extras[(extraStarts[slot] + k - 1) % extras.length];
+			appendNumber(message, number);
+			k++;
+		}
+		return new LogEntry(accounts[slot], TYPES[types[slot]], message.toString(), micros[slot]);
+	}
+
+	private static void appendNumber(StringBuilder out, long number) {
+		int scale = (int) (number & 31);
+		String digits = Long.toString(number >>> 5);
+		if (scale == 0) {
+			out.append(digits);
+			return;
+		}
+		for (int pad = scale + 1 - digits.length(); pad > 0; pad--) {
+			digits = "0" + digits;
+		}
+		int point = digits.length() - scale;
+		out.append(digits, 0, point).append('.').append(digits, point, digits.length());
+	}
+
+	private static double value(long number) {
+		return (number >>> 5) / POWERS[(int) (number & 31)];
+	}
+
+	// counters for /api/stats
+	public synchronized Map<String, Object> stats() {
+		catchUp();
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("entries", size);
+		stats.put("capacity", capacity);
+		stats.put("templates", templateIdOf.size());
+		stats.put("columnBytes", (long) accounts.length * ENTRY_BYTES);
+		stats.put("dictionaryBytes", dictionaryBytes);
+		stats.put("added", added);
+		stats.put("dropped", dropped);
+		return stats;
+	}
+}
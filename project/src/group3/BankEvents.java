@@ -0,0 +1,139 @@
+package group3;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the banking operations, so a recording
+ * shows where the time of a request goes: the request as a whole
+ * (SocketRequest, ApiRequest), the data files it read or rewrote
+ * (StorageAccess) and its log entries (LogAppend). Record with e.g.
+ *
+ *   java -XX:StartFlightRecording=filename=bank.jfr,settings=profile ...
+ *
+ * and read with `jfr print --categories Bank bank.jfr` or JDK Mission
+ * Control. When no recording is running an event costs a check of a static
+ * flag; callers set the fields only after shouldCommit.
+ */
+public final class BankEvents {
+
+	private BankEvents() {
+	}
+
+	// a StorageAccess begun now, which the caller finishes with storage
+	static StorageAccess beginStorage() {
+		StorageAccess event = new StorageAccess();
+		event.startNanos = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends a StorageAccess from beginStorage, commits it if it is being
+	 * recorded and adds its time to the current RequestTrace; returns that
+	 * time in nanoseconds.
+	 */
+	static long storage(StorageAccess event, File file, String operation, int account, int lines, String outcome) {
+		event.end();
+		long nanos = System.nanoTime() - event.startNanos;
+		RequestTrace.addStorage(nanos);
+		if (event.shouldCommit()) {
+			event.file = file.getName();
+			event.operation = operation;
+			event.account = account;
+			event.lines = lines;
+			// a read takes the whole file and a rewrite replaces it, so either way it is the length
+			event.bytes = file.length();
+			event.outcome = outcome;
+			event.commit();
+		}
+		return nanos;
+	}
+
+	@Name("bank.SocketRequest")
+	@Label("Socket Request")
+	@Category({ "Bank", "Server" })
+	@Description("A request from an ATM or teller, handled by ClientHandler")
+	@StackTrace(false)
+	public static class SocketRequest extends Event {
+		@Label("Type")
+		public String type;
+		@Label("Sender")
+		public String sender;
+		@Label("Account")
+		public int account;
+		@Label("Outcome")
+		@Description("Status of the last response sent: confirmation, denial, or none")
+		public String outcome;
+	}
+
+	@Name("bank.ApiRequest")
+	@Label("API Request")
+	@Category({ "Bank", "REST API" })
+	@Description("A request handled by RestApiServer")
+	@StackTrace(false)
+	public static class ApiRequest extends Event {
+		@Label("Method")
+		public String method;
+		@Label("Route")
+		public String route;
+		@Label("Status")
+		public int status;
+		@Label("Bytes Read")
+		@DataAmount
+		public long bytesRead;
+		@Label("Bytes Written")
+		@DataAmount
+		public long bytesWritten;
+	}
+
+	@Name("bank.StorageAccess")
+	@Label("Storage Access")
+	@Category({ "Bank", "Storage" })
+	@Description("A data file read whole or rewritten")
+	@StackTrace(false)
+	public static class StorageAccess extends Event {
+		@Label("File")
+		public String file;
+		@Label("Operation")
+		@Description("read or rewrite")
+		public String operation;
+		@Label("Account")
+		@Description("The account changed, if only one was")
+		public int account;
+		@Label("Lines")
+		public int lines;
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+		@Label("Outcome")
+		public String outcome;
+		// for RequestTrace; transient fields are not recorded
+		transient long startNanos;
+	}
+
+	@Name("bank.LogAppend")
+	@Label("Log Append")
+	@Category({ "Bank", "Storage" })
+	@Description("Entries appended to the activity log")
+	@StackTrace(false)
+	public static class LogAppend extends Event {
+		@Label("Account")
+		@Description("The account of the entry, if only one was appended")
+		public int account;
+		@Label("Entries")
+		public int entries;
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+		@Label("Outcome")
+		public String outcome;
+	}
+}
@@ -0,0 +1,355 @@
+package group3;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Streams a large CSV or NDJSON file of accounts and profiles into the data
+ * files. Lines are read in batches, each batch is parsed in parallel on a
+ * fork-join pool, and the parsed records are checked against a hash index of
+ * the existing account numbers and usernames before being appended in one
+ * sequential pass.
+ *
+ * CSV lines:
+ *   account,accountNumber,pin,type,balance
+ *   profile,username,password,name,phone,address,email[,creditScore]
+ * NDJSON lines use the same field names as the REST create endpoints plus a
+ * "kind" field, e.g. {"kind":"account","accountNumber":"3001","pin":"1234",...}
+ */
+public class BulkImporter {
+	// lines read from the input before a batch is handed to the pool
+	private static final int BATCH_SIZE = 64 * 1024;
+	// a parse task works on at most this many lines without splitting
+	private static final int PARSE_THRESHOLD = 2048;
+
+	private final File accountFile;
+	private final File proFile;
+	private final File logFile;
+	private final ForkJoinPool pool;
+	// in-memory structures that need to see every imported line
+	private final List<Consumer<String>> accountListeners = new ArrayList<>();
+	private final List<Consumer<String>> profileListeners = new ArrayList<>();
+
+	public BulkImporter(File accounts, File profiles, File log) {
+		this(accounts, profiles, log, ForkJoinPool.commonPool());
+	}
+
+	public BulkImporter(File accounts, File profiles, File log, ForkJoinPool pool) {
+		this.accountFile = accounts;
+		this.proFile = profiles;
+		this.logFile = log;
+		this.pool = pool;
+	}
+
+	// called with each account line after it is written
+	public BulkImporter onAccount(Consumer<String> listener) {
+		accountListeners.add(listener);
+		return this;
+	}
+
+	// called with each profile line after it is written
+	public BulkImporter onProfile(Consumer<String> listener) {
+		profileListeners.add(listener);
+		return this;
+	}
+
+	// command line tool: java group3.BulkImporter <file> [dataDir]
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: BulkImporter <import file> [data dir]");
+			return;
+		}
+		String dataDir = args.length > 1 ? args[1]
+				: (System.getenv("DATA_DIR") != null ? System.getenv("DATA_DIR") : "src/group3");
+		BulkImporter importer = new BulkImporter(new File(dataDir + "/accounts.txt"),
+				new File(dataDir + "/profiles.txt"), new File(dataDir + "/log.txt"));
+		try (Reader in = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+			System.out.println(importer.importFrom(in));
+		}
+	}
+
+	/**
+	 * Imports every record read from the given input. The input is consumed in
+	 * batches so memory stays bounded by BATCH_SIZE lines regardless of the file
+	 * size.
+	 */
+	public Result importFrom(Reader input) throws IOException {
+		// both files stay locked for the whole import so the duplicate check holds
+		try (DataFileLock.Held accountLock = DataFileLock.forFile(accountFile).lockExclusive();
+				DataFileLock.Held profileLock = DataFileLock.forFile(proFile).lockExclusive()) {
+			return importLocked(input);
+		}
+	}
+
+	private Result importLocked(Reader input) throws IOException {
+		long start = System.nanoTime();
+		Result result = new Result();
+
+		// hash index of what is already stored, loaded in one pass per file
+		Set<String> accountIndex = loadKeys(accountFile);
+		Set<String> profileIndex = loadKeys(proFile);
+
+		BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input
+				: new BufferedReader(input, 1 << 16);
+		try (PrintWriter accounts = new PrintWriter(new BufferedWriter(new FileWriter(accountFile, true), 1 << 16));
+				PrintWriter profiles = new PrintWriter(new BufferedWriter(new FileWriter(proFile, true), 1 << 16))) {
+			List<String> batch = new ArrayList<>(BATCH_SIZE);
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				batch.add(line);
+				if (batch.size() == BATCH_SIZE) {
+					writeBatch(parseBatch(batch), accountIndex, profileIndex, accounts, profiles, result);
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				writeBatch(parseBatch(batch), accountIndex, profileIndex, accounts, profiles, result);
+			}
+		}
+
+		result.elapsedNanos = System.nanoTime() - start;
+		LogEntry.appendToLog(logFile, new LogEntry(0, LogType.updateAccount,
+				"Bulk import: " + result.accounts + " accounts, " + result.profiles + " profiles, "
+						+ result.duplicates + " duplicates, " + result.invalid + " invalid"));
+		return result;
+	}
+
+	// parse a batch in parallel; records keep the position of their input line
+	private Record[] parseBatch(List<String> lines) {
+		Record[] out = new Record[lines.size()];
+		pool.invoke(new ParseTask(lines, out, 0, lines.size()));
+		return out;
+	}
+
+	// sequential pass: dedupe against the index and append in input order
+	private void writeBatch(Record[] records, Set<String> accountIndex, Set<String> profileIndex,
+			PrintWriter accounts, PrintWriter profiles, Result result) {
+		for (Record r : records) {
+			if (r == null) {
+				result.invalid++;
+				continue;
+			}
+			if (r.account) {
+				if (!accountIndex.add(r.key)) {
+					result.duplicates++;
+					continue;
+				}
+				accounts.println(r.line);
+				accountListeners.forEach(l -> l.accept(r.line));
+				result.accounts++;
+			} else {
+				if (!profileIndex.add(r.key)) {
+					result.duplicates++;
+					continue;
+				}
+				profiles.println(r.line);
+				profileListeners.forEach(l -> l.accept(r.line));
+				result.profiles++;
+			}
+		}
+	}
+
+	// first field of every line in a data file
+	private static Set<String> loadKeys(File file) throws IOException {
+		Set<String> keys = new HashSet<>();
+		if (!file.exists()) {
+			return keys;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int comma = line.indexOf(',');
+				if (comma > 0) {
+					keys.add(line.substring(0, comma));
+				}
+			}
+		}
+		return keys;
+	}
+
+	// parses one line into a record, or returns null if the line is invalid
+	static Record parseLine(String line) {
+		try {
+			if (line.startsWith("{")) {
+				return parseJson(JsonParser.parseString(line).getAsJsonObject());
+			}
+			String[] f = line.split(",");
+			if (f[0].equals("account") && f.length >= 5) {
+				return account(f[1], f[2], f[3], f[4]);
+			}
+			if (f[0].equals("profile") && f.length >= 7) {
+				return profile(f[1], f[2], f[3], f[4], f[5], f[6], f.length > 7 ? f[7] : "0");
+			}
+		} catch (RuntimeException e) {
+			// malformed number, enum or JSON
+		}
+		return null;
+	}
+
+	private static Record parseJson(JsonObject o) {
+		String kind = o.has("kind") ? o.get("kind").getAsString() : "";
+		if (kind.equals("account")) {
+			String balance = o.has("initialBalance") ? o.get("initialBalance").getAsString()
+					: o.get("balance").getAsString();
+			return account(o.get("accountNumber").getAsString(), o.get("pin").getAsString(),
+					o.get("type").getAsString(), balance);
+		}
+		if (kind.equals("profile")) {
+			return profile(o.get("username").getAsString(), o.get("password").getAsString(),
+					o.get("name").getAsString(), o.get("phone").getAsString(), o.get("address").getAsString(),
+					o.get("email").getAsString(), o.has("creditScore") ? o.get("creditScore").getAsString() : "0");
+		}
+		return null;
+	}
+
+	private static Record account(String num, String pin, String type, String balance) {
+		int accountNum = Integer.parseInt(num.trim());
+		String pinDigits = pin.trim();
+		if (accountNum <= 0 || pinDigits.isEmpty() || !pinDigits.chars().allMatch(c -> c >= '0' && c <= '9')) {
+			return null;
+		}
+		Integer.parseInt(pinDigits);
+		AccountType accountType = AccountType.valueOf(type.trim());
+		double value = Double.parseDouble(balance.trim());
+		// parseDouble also takes NaN, Infinity and negative amounts, none of which is a balance
+		if (!(value >= 0) || Double.isInfinite(value)) {
+			return null;
+		}
+		// same layout as handleCreateAccount: accountNum,pin,type,balance[,initialBalance for LOC]
+		String line = accountNum + "," + pinDigits + "," + accountType + "," + value;
+		if (accountType == AccountType.lineOfCredit) {
+			line += "," + value;
+		}
+		return new Record(true, String.valueOf(accountNum), line);
+	}
+
+	private static Record profile(String user, String pass, String name, String phone, String address,
+			String email, String creditScore) {
+		if (user.isEmpty() || pass.isEmpty() || !plain(user) || !plain(pass) || !plain(name) || !plain(address)
+				|| !plain(email)) {
+			return null;
+		}
+		long phoneNum = Long.parseLong(phone.trim());
+		int score = Integer.parseInt(creditScore.trim());
+		// username,password,name,phone,address,email,creditScore,accounts
+		String line = user + "," + pass + "," + name + "," + phoneNum + "," + address + "," + email + "," + score
+				+ ",[]";
+		return new Record(false, user, line);
+	}
+
+	/**
+	 * True if value can go into a data file line as one field: every loader
+	 * splits lines on commas and the files on line breaks, so a comma, a line
+	 * break or a quote (a CSV-quoted value that was split) would add fields or
+	 * records.
+	 */
+	private static boolean plain(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// splits a range of lines until it is small enough to parse directly
+	private static class ParseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> lines;
+		private final Record[] out;
+		private final int from;
+		private final int to;
+
+		ParseTask(List<String> lines, Record[] out, int from, int to) {
+			this.lines = lines;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARSE_THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					out[i] = parseLine(lines.get(i));
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ParseTask(lines, out, from, mid), new ParseTask(lines, out, mid, to));
+		}
+	}
+
+	// a parsed input line ready to be appended to its data file
+	static class Record {
+		final boolean account;
+		final String key;
+		final String line;
+
+		Record(boolean account, String key, String line) {
+			this.account = account;
+			this.key = key;
+			this.line = line;
+		}
+	}
+
+	// counts and throughput of a finished import
+	public static class Result {
+		int accounts;
+		int profiles;
+		int duplicates;
+		int invalid;
+		long elapsedNanos;
+
+		public int getAccounts() {
+			return accounts;
+		}
+
+		public int getProfiles() {
+			return profiles;
+		}
+
+		public int getDuplicates() {
+			return duplicates;
+		}
+
+		public int getInvalid() {
+			return invalid;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedNanos / 1_000_000;
+		}
+
+		// all input records, including rejected ones
+		public int getRecords() {
+			return accounts + profiles + duplicates + invalid;
+		}
+
+		public double getRecordsPerSecond() {
+			return elapsedNanos == 0 ? 0 : getRecords() / (elapsedNanos / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			return "Imported " + accounts + " accounts and " + profiles + " profiles (" + duplicates
+					+ " duplicates, " + invalid + " invalid) in " + getElapsedMillis() + " ms, "
+					+ String.format("%.0f", getRecordsPerSecond()) + " records/s";
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package group3;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The current time in microseconds since the epoch, as of the last tick. A
+ * daemon thread reads the system clock every bank.clockTickMillis (default
+ * 1 ms) and stores it in a volatile field, so taking the time for a log entry
+ * is one field read instead of a clock call and a LocalDateTime. The value
+ * never goes backwards, even if the system clock does, which keeps the log
+ * in time order for LogIndex.
+ *
+ * Times are shown and stored in files in the form LocalDateTime.toString
+ * gives, in the system time zone; format and parse convert.
+ */
+public final class CoarseClock {
+	private static final ZoneId zone = ZoneId.systemDefault();
+	private static volatile long now = systemMicros();
+
+	static {
+		long tick = Long.getLong("bank.clockTickMillis", 1);
+		ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "CoarseClock");
+			t.setDaemon(true);
+			return t;
+		});
+		ticker.scheduleAtFixedRate(() -> now = Math.max(now, systemMicros()), tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	private CoarseClock() {
+	}
+
+	// microseconds since the epoch, at most one tick old
+	public static long micros() {
+		return now;
+	}
+
+	private static long systemMicros() {
+		return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+	}
+
+	// e.g. 2025-12-01T09:30:00.123 in the system time zone
+	public static String format(long micros) {
+		Instant instant = Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+				Math.floorMod(micros, 1_000_000) * 1_000);
+		return LocalDateTime.ofInstant(instant, zone).toString();
+	}
+
+	// the inverse of format; throws DateTimeParseException for anything else
+	public static long parse(String dateTime) {
+		return ChronoUnit.MICROS.between(Instant.EPOCH, LocalDateTime.parse(dateTime.trim()).atZone(zone).toInstant());
+	}
+}
@@ -0,0 +1,300 @@
+package group3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory login index for one data file whose lines start with
+ * key,secret (employees.txt, profiles.txt and accounts.txt all do). Only a
+ * per-record salt and a salted SHA-256 of the secret are kept in memory,
+ * never the plaintext. The files themselves still hold the plaintext, so a
+ * deliberately slow hash here would protect nothing and only make reloads
+ * slower. All comparisons are constant time.
+ *
+ * Before each check the index asks DataFileLock which records other
+ * processes have changed; a changed record is read from the file again the
+ * next time it is checked. A change that cannot be narrowed down to records
+ * (made without the lock, or more than the change ring holds) rebuilds the
+ * whole index on a background thread, one rebuild at a time. Checks keep
+ * using the current map meanwhile; only a check that it would refuse waits
+ * for the rebuild and is tried again. Writes made through put and remove
+ * while a rebuild runs are applied to the new map before it replaces the
+ * old one.
+ *
+ * There is one index per data file; use forFile.
+ */
+public class CredentialIndex {
+	private static final Map<String, CredentialIndex> indexes = new ConcurrentHashMap<>();
+
+	private final File file;
+	// salts are a random per-index prefix plus a counter: unique without a
+	// SecureRandom call per record
+	private final byte[] saltPrefix = new byte[8];
+	private final AtomicLong saltCounter = new AtomicLong();
+	// replaced whole by a rebuild; changed in place by put and remove
+	private volatile Map<String, Credential> credentials = new ConcurrentHashMap<>();
+	// changes made to the file by other processes, and the hashes of the
+	// keys they touched that have not been re-read yet
+	private final DataFileLock.Cursor changes;
+	private final Set<Integer> stale = ConcurrentHashMap.newKeySet();
+
+	// guards the fields below and the swap of credentials
+	private final Object rebuildLock = new Object();
+	// completes when the running rebuild (and any asked for during it) is done
+	private CompletableFuture<Void> rebuild;
+	private boolean rebuildAgain;
+	// key -> credential (null if removed) written while a load runs
+	private Map<String, Credential> writesDuringLoad;
+
+	private CredentialIndex(File file) {
+		this.file = file;
+		this.changes = DataFileLock.forFile(file).cursor();
+		new SecureRandom().nextBytes(saltPrefix);
+	}
+
+	// the shared index for a data file, loaded on first use
+	public static CredentialIndex forFile(File file) {
+		return indexes.computeIfAbsent(file.getAbsolutePath(), k -> {
+			CredentialIndex index = new CredentialIndex(file);
+			index.load();
+			return index;
+		});
+	}
+
+	/**
+	 * True if the secret is the one stored for key.
+	 */
+	public boolean verify(String key, String secret) {
+		if (key == null || secret == null) {
+			return false;
+		}
+		catchUp(key);
+		if (matches(key, secret)) {
+			return true;
+		}
+		// the key may be new or changed in what a running rebuild is reading
+		CompletableFuture<Void> running;
+		synchronized (rebuildLock) {
+			running = rebuild;
+		}
+		if (running == null) {
+			return false;
+		}
+		running.join();
+		return matches(key, secret);
+	}
+
+	private boolean matches(String key, String secret) {
+		Credential c = credentials.get(key);
+		return c != null && MessageDigest.isEqual(c.hash, hash(c.salt, secret));
+	}
+
+	// apply what other processes changed, re-reading key if it was one of them
+	private void catchUp(String key) {
+		int[] changed = changes.poll();
+		if (changed == null) {
+			rebuildInBackground();
+			return;
+		}
+		for (int hash : changed) {
+			stale.add(hash);
+		}
+		if (!stale.isEmpty() && stale.remove(key.hashCode())) {
+			reload(key, readLine(key));
+		}
+	}
+
+	// starts a rebuild, or has the running one go again once it is done
+	private void rebuildInBackground() {
+		synchronized (rebuildLock) {
+			if (rebuild != null) {
+				rebuildAgain = true;
+				return;
+			}
+			rebuild = new CompletableFuture<>();
+		}
+		Thread t = new Thread(this::runRebuilds, "credential-rebuild-" + file.getName());
+		t.setDaemon(true);
+		t.start();
+	}
+
+	private void runRebuilds() {
+		CompletableFuture<Void> done;
+		while (true) {
+			load();
+			synchronized (rebuildLock) {
+				if (!rebuildAgain) {
+					done = rebuild;
+					rebuild = null;
+					break;
+				}
+				rebuildAgain = false;
+			}
+		}
+		done.complete(null);
+	}
+
+	// true if the key has a credential in the index
+	public boolean contains(String key) {
+		return key != null && credentials.containsKey(key);
+	}
+
+	// call after a record's secret has been written to the file
+	public void put(String key, String secret) {
+		Credential c = credential(secret);
+		synchronized (rebuildLock) {
+			credentials.put(key, c);
+			if (writesDuringLoad != null) {
+				writesDuringLoad.put(key, c);
+			}
+		}
+	}
+
+	// same as put, given the record's whole line from the file
+	public void putLine(String line) {
+		String[] kv = split(line);
+		if (kv != null) {
+			put(kv[0], kv[1]);
+		}
+	}
+
+	// a record re-read from the file; a null line means it is gone
+	public void reload(String key, String line) {
+		if (line == null) {
+			remove(key);
+		} else {
+			putLine(line);
+		}
+	}
+
+	// call after a record has been removed from the file
+	public void remove(String key) {
+		synchronized (rebuildLock) {
+			credentials.remove(key);
+			if (writesDuringLoad != null) {
+				writesDuringLoad.put(key, null);
+			}
+		}
+	}
+
+	public int size() {
+		return credentials.size();
+	}
+
+	/**
+	 * Hashes every record of the file into a new map, spreading the work
+	 * over the common pool, and swaps it in; records gone from the file are
+	 * gone from the new map.
+	 */
+	private void load() {
+		if (!file.exists()) {
+			return;
+		}
+		synchronized (rebuildLock) {
+			writesDuringLoad = new HashMap<>();
+		}
+		try {
+			// everything published so far is in what is read below
+			stale.clear();
+			// only the key and secret of each line are turned into Strings
+			List<String[]> records = new ArrayList<>();
+			try (DataFileLock.Held held = DataFileLock.forFile(file).lockShared();
+					RecordReader reader = new RecordReader(file)) {
+				while (reader.next()) {
+					if (reader.fields() >= 2 && !reader.fieldEquals(0, "")) {
+						records.add(new String[] { reader.field(0), reader.field(1) });
+					}
+				}
+			} catch (IOException e) {
+				System.out.println("Error loading credentials: " + e.getMessage());
+				return;
+			}
+			Map<String, Credential> loaded = new ConcurrentHashMap<>(records.size() * 4 / 3 + 16);
+			records.parallelStream().forEach(kv -> loaded.put(kv[0], credential(kv[1])));
+			synchronized (rebuildLock) {
+				// puts and removes made while the file was being read win
+				for (Map.Entry<String, Credential> write : writesDuringLoad.entrySet()) {
+					if (write.getValue() == null) {
+						loaded.remove(write.getKey());
+					} else {
+						loaded.put(write.getKey(), write.getValue());
+					}
+				}
+				credentials = loaded;
+			}
+		} finally {
+			synchronized (rebuildLock) {
+				writesDuringLoad = null;
+			}
+		}
+	}
+
+	private Credential credential(String secret) {
+		byte[] salt = newSalt();
+		return new Credential(salt, hash(salt, secret));
+	}
+
+	private byte[] newSalt() {
+		return ByteBuffer.allocate(16).put(saltPrefix).putLong(saltCounter.incrementAndGet()).array();
+	}
+
+	// line currently stored in the file for key, or null
+	private String readLine(String key) {
+		try (DataFileLock.Held held = DataFileLock.forFile(file).lockShared();
+				RecordReader reader = new RecordReader(file)) {
+			while (reader.next()) {
+				if (reader.fields() >= 2 && reader.fieldEquals(0, key)) {
+					return reader.line();
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading credentials: " + e.getMessage());
+		}
+		return null;
+	}
+
+	// key is the first field, secret the second
+	private static String[] split(String line) {
+		int first = line.indexOf(',');
+		if (first <= 0) {
+			return null;
+		}
+		int second = line.indexOf(',', first + 1);
+		return new String[] { line.substring(0, first),
+				second < 0 ? line.substring(first + 1) : line.substring(first + 1, second) };
+	}
+
+	private static byte[] hash(byte[] salt, String secret) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			return digest.digest(secret.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	// salt and salted hash of one secret
+	private static final class Credential {
+		final byte[] salt;
+		final byte[] hash;
+
+		Credential(byte[] salt, byte[] hash) {
+			this.salt = salt;
+			this.hash = hash;
+		}
+	}
+}
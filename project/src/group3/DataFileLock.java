@@ -0,0 +1,321 @@
+package group3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read/write lock over one data file that also works between processes, so
+ * Server and RestApiServer can run as separate JVMs over the same files.
+ *
+ * The lock lives in a small side file next to the data file (accounts.txt.lock)
+ * because the data file itself is sometimes replaced by a rename. Lines in the
+ * data files have no fixed size and are rewritten as a whole, so there are no
+ * stable per-record byte ranges to lock; instead the side file is laid out in
+ * fixed regions and only the first 8 bytes are locked with FileChannel.lock.
+ * The rest of the side file is memory mapped and holds:
+ *
+ * - a version counter, bumped every time an exclusive hold is released, so
+ *   checking for changes is a single memory read;
+ * - a ring of the last RING changes: the version, the writing process and a
+ *   hash of the key of each changed record. Cursor uses it to tell a process
+ *   exactly which records the other processes changed since it last looked.
+ *
+ * Inside a process a ReentrantReadWriteLock sits in front of the file lock,
+ * since a JVM cannot hold two overlapping file locks on the same region.
+ * Readers share one shared file lock between them.
+ *
+ * There is one lock per data file; use forFile.
+ */
+public class DataFileLock {
+	// changes kept in the ring
+	private static final int RING = 1024;
+	private static final int LOCK_REGION = 8;
+	private static final int VERSION = 8, COUNT = 16, ENTRIES = 64, ENTRY_SIZE = 16;
+	// pid bit set on entries that changed an unknown set of records
+	private static final int ALL = 0x80000000;
+	private static final int PID = (int) ProcessHandle.current().pid() & ~ALL;
+
+	private static final Map<String, DataFileLock> locks = new ConcurrentHashMap<>();
+
+	private final File dataFile;
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+	// threads of this process inside a shared hold, and the file lock they share
+	private int readers;
+	private FileLock sharedLock;
+	private FileLock exclusiveLock;
+
+	private DataFileLock(File dataFile) {
+		this.dataFile = dataFile;
+		try {
+			channel = FileChannel.open(new File(dataFile.getPath() + ".lock").toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, ENTRIES + (long) RING * ENTRY_SIZE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open lock for " + dataFile, e);
+		}
+	}
+
+	// the shared lock for a data file
+	public static DataFileLock forFile(File dataFile) {
+		return locks.computeIfAbsent(dataFile.getAbsolutePath(), k -> new DataFileLock(dataFile));
+	}
+
+	/**
+	 * Blocks until no other thread or process is writing the file. Use for
+	 * reads that must not see a half-written file.
+	 */
+	public Held lockShared() {
+		rw.readLock().lock();
+		boolean ownFileLock = !rw.isWriteLockedByCurrentThread();
+		if (ownFileLock) {
+			try {
+				synchronized (this) {
+					if (readers++ == 0) {
+						sharedLock = channel.lock(0, LOCK_REGION, true);
+					}
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					readers--;
+				}
+				rw.readLock().unlock();
+				throw new UncheckedIOException("Could not lock " + dataFile, e);
+			}
+		}
+		return new Held(false, ownFileLock);
+	}
+
+	/**
+	 * Blocks until this thread is the only reader or writer of the file in
+	 * any process. Report the records written with Held.touched; a hold that
+	 * reports none is taken to have changed the whole file, unless it says it
+	 * wrote nothing with Held.unchanged.
+	 */
+	public Held lockExclusive() {
+		rw.writeLock().lock();
+		boolean ownFileLock = rw.getWriteHoldCount() == 1;
+		if (ownFileLock) {
+			try {
+				exclusiveLock = channel.lock(0, LOCK_REGION, false);
+			} catch (IOException e) {
+				rw.writeLock().unlock();
+				throw new UncheckedIOException("Could not lock " + dataFile, e);
+			}
+		}
+		return new Held(true, ownFileLock);
+	}
+
+	// number of writes to the file made under this lock by any process
+	public long version() {
+		return header.getLong(VERSION);
+	}
+
+	/**
+	 * A position in the change history of the file, starting now. The cursor
+	 * reports changes made by other processes only.
+	 */
+	public Cursor cursor() {
+		return new Cursor(false);
+	}
+
+	/**
+	 * Like cursor(), but also reports the locked writes of this process.
+	 */
+	public Cursor cursorIncludingOwn() {
+		return new Cursor(true);
+	}
+
+	// called by an exclusive Held on release, while the file lock is still held
+	private void publish(int[] keys, int count) {
+		long version = header.getLong(VERSION) + 1;
+		long n = header.getLong(COUNT);
+		if (count == 0) {
+			writeEntry(n++, version, PID | ALL, 0);
+		}
+		for (int i = 0; i < count; i++) {
+			writeEntry(n++, version, PID, keys[i]);
+		}
+		header.putLong(COUNT, n);
+		header.putLong(VERSION, version);
+	}
+
+	private void writeEntry(long n, long version, int pid, int keyHash) {
+		int offset = ENTRIES + (int) (n % RING) * ENTRY_SIZE;
+		header.putLong(offset, version);
+		header.putInt(offset + 8, pid);
+		header.putInt(offset + 12, keyHash);
+	}
+
+	/**
+	 * Hashes of the keys changed in versions (from, to], or null if the ring
+	 * no longer goes back that far or one of the changes was not narrowed
+	 * down to records.
+	 */
+	private int[] changesBetween(long from, long to, boolean includeOwn) {
+		int[] hashes = new int[8];
+		int found = 0;
+		long n = header.getLong(COUNT);
+		for (long i = n - 1; i >= 0; i--) {
+			if (i < n - RING) {
+				return null;
+			}
+			int offset = ENTRIES + (int) (i % RING) * ENTRY_SIZE;
+			long version = header.getLong(offset);
+			if (version <= from) {
+				break;
+			}
+			int pid = header.getInt(offset + 8);
+			if (version > to || (!includeOwn && (pid & ~ALL) == PID)) {
+				// written after we read the version, or one of ours
+				continue;
+			}
+			if ((pid & ALL) != 0) {
+				return null;
+			}
+			if (found == hashes.length) {
+				hashes = Arrays.copyOf(hashes, found * 2);
+			}
+			hashes[found++] = header.getInt(offset + 12);
+		}
+		return Arrays.copyOf(hashes, found);
+	}
+
+	/**
+	 * A lock held by the calling thread; release with close.
+	 */
+	public final class Held implements AutoCloseable {
+		private final boolean exclusive;
+		private final boolean ownFileLock;
+		private int[] touched = new int[4];
+		private int count;
+		private boolean unchanged;
+		private boolean released;
+
+		private Held(boolean exclusive, boolean ownFileLock) {
+			this.exclusive = exclusive;
+			this.ownFileLock = ownFileLock;
+		}
+
+		// report a record written under this hold by its key (first field)
+		public void touched(String key) {
+			if (count == touched.length) {
+				touched = Arrays.copyOf(touched, count * 2);
+			}
+			touched[count++] = key.hashCode();
+		}
+
+		/**
+		 * Report that nothing was written under this hold (a refused or failed
+		 * check), so no record gets a new version. Records reported with
+		 * touched are still published.
+		 */
+		public void unchanged() {
+			unchanged = true;
+		}
+
+		@Override
+		public void close() {
+			if (released) {
+				return;
+			}
+			released = true;
+			try {
+				if (exclusive && (count > 0 || !unchanged)) {
+					publish(touched, count);
+				}
+				if (exclusive) {
+					if (ownFileLock) {
+						exclusiveLock.release();
+					}
+				} else if (ownFileLock) {
+					synchronized (DataFileLock.this) {
+						if (--readers == 0) {
+							sharedLock.release();
+						}
+					}
+				}
+			} catch (IOException e) {
+				System.out.println("Error releasing lock on " + dataFile + ": " + e.getMessage());
+			} finally {
+				if (exclusive) {
+					rw.writeLock().unlock();
+				} else {
+					rw.readLock().unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lets an in-memory view of the file find out cheaply whether another
+	 * process has changed the file since the view was last brought up to date.
+	 */
+	public final class Cursor {
+		private final boolean includeOwn;
+		private long seenVersion;
+		private long seenLength;
+		private long seenModified;
+
+		private Cursor(boolean includeOwn) {
+			this.includeOwn = includeOwn;
+			seenVersion = version();
+			seenLength = dataFile.length();
+			seenModified = dataFile.lastModified();
+		}
+
+		/**
+		 * Hashes (String.hashCode) of the keys of records other processes
+		 * changed since the last poll; an empty array if there were none. Null
+		 * means the changes cannot be narrowed down (the file was edited
+		 * without the lock, or too much changed) and the whole view has to be
+		 * reloaded. Writes made by this process are only reported by a
+		 * cursorIncludingOwn.
+		 */
+		public int[] poll() {
+			long version = version();
+			long length = dataFile.length();
+			long modified = dataFile.lastModified();
+			if (version == seenVersion && (length != seenLength || modified != seenModified)) {
+				// either an edit made without the lock, or a locked write that
+				// has not been published yet; wait for any writer and look again
+				try (Held held = lockShared()) {
+					version = version();
+					length = dataFile.length();
+					modified = dataFile.lastModified();
+				}
+			}
+			// no lock is waited for past this point
+			synchronized (this) {
+				return advance(version, length, modified);
+			}
+		}
+
+		private int[] advance(long version, long length, long modified) {
+			if (version < seenVersion) {
+				// a concurrent poll already moved past this
+				return new int[0];
+			}
+			int[] changed;
+			if (version == seenVersion) {
+				changed = length == seenLength && modified == seenModified ? new int[0] : null;
+			} else {
+				changed = changesBetween(seenVersion, version, includeOwn);
+			}
+			seenVersion = version;
+			seenLength = length;
+			seenModified = modified;
+			return changed;
+		}
+	}
+}
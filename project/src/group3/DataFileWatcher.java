@@ -0,0 +1,235 @@
+package group3;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Watches the data directory for changes made outside the server (an
+ * operator editing employees.txt or profiles.txt by hand) and pushes only
+ * the records that changed into the in-memory structures.
+ *
+ * For every watched file the watcher keeps a snapshot of record key (first
+ * field) to a fingerprint of the line. When the file changes it is read
+ * once, a new snapshot is built off to the side and diffed against the old
+ * one, listeners are called for added, changed and removed records, and the
+ * new snapshot replaces the old with a single reference swap. Nothing that
+ * reads the snapshot ever waits for a reload.
+ *
+ * Changes the server makes itself also raise events; they show up as no
+ * difference or as records the listeners already have, which is harmless.
+ */
+public class DataFileWatcher implements Runnable {
+	// wait this long after an event so a burst of writes is read only once
+	private static final long SETTLE_MILLIS = 100;
+
+	/**
+	 * Called once per changed record with its key and new line. A null line
+	 * means the record was removed from the file.
+	 */
+	public interface RecordListener {
+		void changed(String key, String line);
+	}
+
+	private final File dir;
+	private final Map<String, Watched> files = new ConcurrentHashMap<>();
+	private volatile WatchService service;
+
+	public DataFileWatcher(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Watches one file of the directory. The file is read once now to take
+	 * the first snapshot; listeners only hear about later changes.
+	 */
+	public DataFileWatcher watch(File file, RecordListener listener) {
+		Watched watched = files.computeIfAbsent(file.getName(), k -> {
+			Watched w = new Watched(file);
+			w.snapshot = read(file);
+			return w;
+		});
+		watched.listeners.add(listener);
+		return this;
+	}
+
+	/**
+	 * Starts watching on a daemon thread.
+	 */
+	public Thread start() throws IOException {
+		service = FileSystems.getDefault().newWatchService();
+		dir.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+		Thread t = new Thread(this, "DataFileWatcher");
+		t.setDaemon(true);
+		t.start();
+		return t;
+	}
+
+	public void close() throws IOException {
+		if (service != null) {
+			service.close();
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				Thread.sleep(SETTLE_MILLIS);
+				Set<String> changed = new HashSet<>();
+				do {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.context() instanceof Path) {
+							changed.add(((Path) event.context()).getFileName().toString());
+						}
+					}
+					key.reset();
+				} while ((key = service.poll()) != null);
+
+				for (String name : changed) {
+					Watched watched = files.get(name);
+					if (watched != null) {
+						reload(watched);
+					}
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// shutting down
+		}
+	}
+
+	/**
+	 * Re-reads a watched file now and applies the difference. The watch
+	 * thread calls this; it can also be called directly after a bulk edit.
+	 */
+	public int reload(File file) {
+		Watched watched = files.get(file.getName());
+		return watched == null ? 0 : reload(watched);
+	}
+
+	// number of records handed to listeners
+	private int reload(Watched watched) {
+		synchronized (watched) {
+			// a file that is being replaced is picked up by its create event
+			if (!watched.file.exists()) {
+				return 0;
+			}
+			Map<String, Long> current = read(watched.file);
+			Map<String, Long> previous = watched.snapshot;
+			List<String[]> changes = new ArrayList<>();
+
+			// records added or changed; their lines are fetched below
+			Set<String> dirty = new HashSet<>();
+			for (Map.Entry<String, Long> e : current.entrySet()) {
+				if (!e.getValue().equals(previous.get(e.getKey()))) {
+					dirty.add(e.getKey());
+				}
+			}
+			for (String key : previous.keySet()) {
+				if (!current.containsKey(key)) {
+					changes.add(new String[] { key, null });
+				}
+			}
+			if (!dirty.isEmpty()) {
+				collectLines(watched.file, dirty, changes);
+			}
+			watched.snapshot = current;
+			publish(watched, changes);
+			return changes.size();
+		}
+	}
+
+	private static void publish(Watched watched, List<String[]> changes) {
+		for (String[] change : changes) {
+			for (RecordListener listener : watched.listeners) {
+				try {
+					listener.changed(change[0], change[1]);
+				} catch (RuntimeException e) {
+					System.out.println("Error reloading " + change[0] + ": " + e.getMessage());
+				}
+			}
+		}
+		if (!changes.isEmpty()) {
+			System.out.println("[RELOAD] " + watched.file.getName() + ": " + changes.size() + " records");
+		}
+	}
+
+	// key -> fingerprint of every line of the file
+	private static Map<String, Long> read(File file) {
+		Map<String, Long> snapshot = new HashMap<>();
+		if (!file.exists()) {
+			return Collections.unmodifiableMap(snapshot);
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String key = key(line);
+				if (key != null) {
+					snapshot.put(key, fingerprint(line));
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading " + file.getName() + ": " + e.getMessage());
+		}
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	// second pass for the lines of the changed keys only, so snapshots never hold whole lines
+	private static void collectLines(File file, Set<String> keys, List<String[]> out) {
+		try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String key = key(line);
+				if (key != null && keys.remove(key)) {
+					out.add(new String[] { key, line });
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading " + file.getName() + ": " + e.getMessage());
+		}
+	}
+
+	private static String key(String line) {
+		int comma = line.indexOf(',');
+		return comma <= 0 ? null : line.substring(0, comma);
+	}
+
+	// 64-bit FNV-1a over the characters of the line
+	private static long fingerprint(String line) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < line.length(); i++) {
+			h ^= line.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	private static final class Watched {
+		final File file;
+		final List<RecordListener> listeners = new CopyOnWriteArrayList<>();
+		volatile Map<String, Long> snapshot;
+
+		Watched(File file) {
+			this.file = file;
+		}
+	}
+}
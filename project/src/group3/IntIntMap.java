@@ -0,0 +1,165 @@
+package group3;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys (account numbers) to slots, i.e. non-negative ints
+ * indexing some other array. Keys and values live in two int arrays probed
+ * linearly, so nothing is boxed and a lookup touches one or two cache lines
+ * instead of an Integer, a map entry and a value object. The arrays are kept
+ * at most half full and doubled when they would be fuller; a removal shifts
+ * the rest of its probe run back instead of leaving a tombstone.
+ *
+ * -1 stands for "no value" in every result. Not thread-safe; callers hold
+ * their own lock.
+ */
+public class IntIntMap {
+	public static final int NO_VALUE = -1;
+	// marks an empty bucket; the key 0 itself is kept on the side
+	private static final int FREE = 0;
+
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private int zeroValue = NO_VALUE;
+
+	// room for expected keys before the first resize
+	public IntIntMap(int expected) {
+		int buckets = Integer.highestOneBit(Math.max(expected, 4) - 1) << 2;
+		keys = new int[buckets];
+		values = new int[buckets];
+		mask = buckets - 1;
+	}
+
+	// the value of key, or NO_VALUE
+	public int get(int key) {
+		if (key == FREE) {
+			return zeroValue;
+		}
+		for (int bucket = hash(key) & mask;; bucket = (bucket + 1) & mask) {
+			int k = keys[bucket];
+			if (k == key) {
+				return values[bucket];
+			}
+			if (k == FREE) {
+				return NO_VALUE;
+			}
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != NO_VALUE;
+	}
+
+	// maps key to a value (not negative); returns the previous value or NO_VALUE
+	public int put(int key, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("negative value: " + value);
+		}
+		if (key == FREE) {
+			int previous = zeroValue;
+			if (previous == NO_VALUE) {
+				size++;
+			}
+			zeroValue = value;
+			return previous;
+		}
+		int bucket = hash(key) & mask;
+		for (int k; (k = keys[bucket]) != FREE; bucket = (bucket + 1) & mask) {
+			if (k == key) {
+				int previous = values[bucket];
+				values[bucket] = value;
+				return previous;
+			}
+		}
+		keys[bucket] = key;
+		values[bucket] = value;
+		if (++size * 2 > keys.length) {
+			grow();
+		}
+		return NO_VALUE;
+	}
+
+	// returns the value key had, or NO_VALUE
+	public int remove(int key) {
+		if (key == FREE) {
+			int previous = zeroValue;
+			if (previous != NO_VALUE) {
+				size--;
+			}
+			zeroValue = NO_VALUE;
+			return previous;
+		}
+		for (int bucket = hash(key) & mask;; bucket = (bucket + 1) & mask) {
+			int k = keys[bucket];
+			if (k == FREE) {
+				return NO_VALUE;
+			}
+			if (k == key) {
+				int previous = values[bucket];
+				shiftBack(bucket);
+				size--;
+				return previous;
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, FREE);
+		zeroValue = NO_VALUE;
+		size = 0;
+	}
+
+	// bytes held by the two arrays
+	public long memoryBytes() {
+		return (long) keys.length * Integer.BYTES * 2;
+	}
+
+	// empties a bucket and moves later entries of its run back, so no probe stops early
+	private void shiftBack(int hole) {
+		for (int next = (hole + 1) & mask;; next = (next + 1) & mask) {
+			int k = keys[next];
+			if (k == FREE) {
+				break;
+			}
+			int home = hash(k) & mask;
+			// the entry may move into the hole if its home is not between the hole and it
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = k;
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+		keys[hole] = FREE;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			int k = oldKeys[i];
+			if (k != FREE) {
+				int bucket = hash(k) & mask;
+				while (keys[bucket] != FREE) {
+					bucket = (bucket + 1) & mask;
+				}
+				keys[bucket] = k;
+				values[bucket] = oldValues[i];
+			}
+		}
+	}
+
+	// spreads sequential account numbers over the buckets
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
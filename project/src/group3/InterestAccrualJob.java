@@ -0,0 +1,303 @@
+package group3;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-of-day batch job. Savings accounts earn one day of interest on their
+ * balance; line of credit accounts are charged one day of interest on the
+ * amount drawn (initialBalance is the credit limit, balance is what is still
+ * available). A charge never takes the available balance below 0; the part of
+ * it a fully drawn line has no room for is not charged. The account set is
+ * partitioned across a fork-join pool, the new accounts file is committed with
+ * a single atomic replace and one LogEntry is written per changed account.
+ *
+ * The last day accrued is kept next to the accounts file (accounts.txt.accrued)
+ * and read and written under the exclusive lock of the accounts file, so a day
+ * is accrued once however many processes run the job, and a run after missed
+ * days accrues each of them, compounding day by day as separate runs would.
+ * The date is written after the accounts file is replaced; a crash between the
+ * two accrues that day again on the next run.
+ *
+ * Annual rates come from the system properties bank.savingsRate and
+ * bank.creditRate (defaults 2% and 18%).
+ */
+public class InterestAccrualJob {
+	// accounts handled by one task before it stops splitting
+	private static final int THRESHOLD = 10_000;
+
+	private final File accountFile;
+	private final File logFile;
+	private final File accruedFile;
+	private final double savingsDailyRate;
+	private final double creditDailyRate;
+	private final ForkJoinPool pool;
+
+	public InterestAccrualJob(File accounts, File log) {
+		this(accounts, log, Double.parseDouble(System.getProperty("bank.savingsRate", "0.02")),
+				Double.parseDouble(System.getProperty("bank.creditRate", "0.18")), ForkJoinPool.commonPool());
+	}
+
+	public InterestAccrualJob(File accounts, File log, double savingsRate, double creditRate, ForkJoinPool pool) {
+		this.accountFile = accounts;
+		this.logFile = log;
+		this.accruedFile = new File(accounts.getPath() + ".accrued");
+		this.savingsDailyRate = savingsRate / 365;
+		this.creditDailyRate = creditRate / 365;
+		this.pool = pool;
+	}
+
+	// run once by hand: java group3.InterestAccrualJob [dataDir]
+	public static void main(String[] args) throws IOException {
+		String dataDir = args.length > 0 ? args[0]
+				: (System.getenv("DATA_DIR") != null ? System.getenv("DATA_DIR") : "src/group3");
+		InterestAccrualJob job = new InterestAccrualJob(new File(dataDir + "/accounts.txt"),
+				new File(dataDir + "/log.txt"));
+		System.out.println(job.run());
+	}
+
+	/**
+	 * Starts a single daemon thread that runs the job every day at midnight.
+	 */
+	public ScheduledExecutorService schedule() {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "InterestAccrual");
+			t.setDaemon(true);
+			return t;
+		});
+		long delay = Duration.between(LocalDateTime.now(), LocalDate.now().plusDays(1).atStartOfDay()).toMillis();
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				System.out.println(run());
+			} catch (Exception e) {
+				System.out.println("Interest accrual failed: " + e.getMessage());
+			}
+		}, delay, TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+		return scheduler;
+	}
+
+	/**
+	 * Accrues every day up to and including yesterday that has not been
+	 * accrued yet; the run at midnight accrues the day that just ended.
+	 */
+	public Result run() throws IOException {
+		return run(LocalDate.now().minusDays(1));
+	}
+
+	/**
+	 * Computes and commits interest and charges for every account for each
+	 * day after the last one accrued, up to and including through. With no
+	 * day accrued yet, only through itself is. Does nothing if through is
+	 * already done.
+	 */
+	public Result run(LocalDate through) throws IOException {
+		// no other process may change balances or accrue a day between the read and the replace
+		try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+			LocalDate last = lastAccrued();
+			int days = last == null ? 1 : (int) Math.min(ChronoUnit.DAYS.between(last, through), Integer.MAX_VALUE);
+			if (days <= 0) {
+				held.unchanged();
+				return new Result(0, 0, 0, 0);
+			}
+			Result result = runLocked(days);
+			markAccrued(through);
+			return result;
+		}
+	}
+
+	// the last day accrued, or null if the job never ran on this file
+	private LocalDate lastAccrued() throws IOException {
+		if (!accruedFile.exists()) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(Files.readString(accruedFile.toPath()).trim());
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	private void markAccrued(LocalDate day) throws IOException {
+		File temp = new File(accruedFile.getPath() + ".tmp");
+		Files.writeString(temp.toPath(), day.toString());
+		Files.move(temp.toPath(), accruedFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Result runLocked(int days) throws IOException {
+		long start = System.nanoTime();
+		List<String> lines = Files.readAllLines(accountFile.toPath());
+		String[] updated = new String[lines.size()];
+		LogEntry[] entries = new LogEntry[lines.size()];
+		long micros = CoarseClock.micros();
+
+		pool.invoke(new AccrualTask(lines, updated, entries, micros, days, 0, lines.size()));
+
+		// one commit: write the full new file next to the old one and swap it in
+		File temp = new File(accountFile.getPath() + ".tmp");
+		List<LogEntry> log = new ArrayList<>();
+		try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temp), 1 << 16))) {
+			for (int i = 0; i < updated.length; i++) {
+				writer.println(updated[i]);
+				if (entries[i] != null) {
+					log.add(entries[i]);
+				}
+			}
+		}
+		Files.move(temp.toPath(), accountFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		// every balance may have changed
+		AccountCache.forFile(accountFile).clear();
+		LogEntry.appendAllToLog(logFile, log);
+
+		return new Result(days, lines.size(), log.size(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Applies the given number of days to a single account line. Returns the
+	 * entry to log, or null when the account is unchanged; out[i] always
+	 * receives the line to write back.
+	 */
+	LogEntry accrue(String line, String[] out, int i, long micros, int days) {
+		out[i] = line;
+		String[] info = line.split(",");
+		if (info.length < 4) {
+			return null;
+		}
+		try {
+			AccountType type = AccountType.valueOf(info[2]);
+			double balance = Double.parseDouble(info[3]);
+			String over = days == 1 ? "" : " for " + days + " days";
+			if (type == AccountType.saving && balance > 0) {
+				// each day earns on the one before, as daily runs would
+				double newBalance = balance;
+				for (int d = 0; d < days; d++) {
+					newBalance = round(newBalance + round(newBalance * savingsDailyRate));
+				}
+				double interest = round(newBalance - balance);
+				if (interest <= 0) {
+					return null;
+				}
+				info[3] = String.valueOf(newBalance);
+				out[i] = String.join(",", info);
+				return new LogEntry(Integer.parseInt(info[0]), LogType.interest,
+						"Interest credited " + interest + over + ", new balance " + info[3], micros);
+			}
+			if (type == AccountType.lineOfCredit && info.length > 4) {
+				double limit = Double.parseDouble(info[4]);
+				double owed = limit - balance;
+				double newBalance = balance;
+				for (int d = 0; d < days; d++) {
+					// never below 0: a fully drawn line is not charged past its limit
+					newBalance = Math.max(0, round(newBalance - round((limit - newBalance) * creditDailyRate)));
+				}
+				double charge = round(balance - newBalance);
+				if (charge <= 0) {
+					return null;
+				}
+				info[3] = String.valueOf(newBalance);
+				out[i] = String.join(",", info);
+				return new LogEntry(Integer.parseInt(info[0]), LogType.fee, "Line of credit charge " + charge
+						+ over + " on " + round(owed) + " owed, new balance " + info[3], micros);
+			}
+		} catch (IllegalArgumentException e) {
+			// bad number or type: leave the line as it is
+		}
+		return null;
+	}
+
+	private static double round(double amount) {
+		return Math.round(amount * 100) / 100.0;
+	}
+
+	// partitions the account lines across the pool
+	private class AccrualTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> lines;
+		private final String[] updated;
+		private final LogEntry[] entries;
+		private final long micros;
+		private final int days;
+		private final int from;
+		private final int to;
+
+		AccrualTask(List<String> lines, String[] updated, LogEntry[] entries, long micros, int days, int from,
+				int to) {
+			this.lines = lines;
+			this.updated = updated;
+			this.entries = entries;
+			this.micros = micros;
+			this.days = days;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					entries[i] = accrue(lines.get(i), updated, i, micros, days);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new AccrualTask(lines, updated, entries, micros, days, from, mid),
+					new AccrualTask(lines, updated, entries, micros, days, mid, to));
+		}
+	}
+
+	// summary of one run
+	public static class Result {
+		private final int days;
+		private final int accounts;
+		private final int changed;
+		private final long elapsedNanos;
+
+		Result(int days, int accounts, int changed, long elapsedNanos) {
+			this.days = days;
+			this.accounts = accounts;
+			this.changed = changed;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		// days accrued by this run; 0 if they had all been accrued already
+		public int getDays() {
+			return days;
+		}
+
+		public int getAccounts() {
+			return accounts;
+		}
+
+		public int getChanged() {
+			return changed;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedNanos / 1_000_000;
+		}
+
+		@Override
+		public String toString() {
+			if (days == 0) {
+				return "Interest accrual: already done";
+			}
+			return "Interest accrual: " + days + (days == 1 ? " day, " : " days, ") + changed + " of " + accounts + " accounts updated in " + getElapsedMillis()
+					+ " ms";
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package group3;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in microseconds in buckets the way HdrHistogram does:
+ * exact below 64, then 32 buckets per power of two, so any value read back
+ * is within 1/32 (about 3%) of what was recorded, from 1 microsecond up to
+ * about 19 hours. The buckets are one fixed array of counters, so recording
+ * is an index computation and an atomic increment, with no lock and no
+ * allocation, and reading percentiles never stops the threads recording.
+ *
+ * A percentile is read from the counts as they are at that moment; counts
+ * recorded while it is read may or may not be in it.
+ */
+public final class LatencyHistogram {
+	// values at or above this (2^36 us, about 19 hours) are counted as it
+	static final long MAX_MICROS = (1L << 36) - 1;
+	private static final int SUB_BUCKETS = 64;
+	private static final int HALF = SUB_BUCKETS / 2;
+
+	private final AtomicLongArray counts = new AtomicLongArray(index(MAX_MICROS) + 1);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumMicros = new LongAdder();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public void record(long micros) {
+		long value = Math.min(Math.max(micros, 0), MAX_MICROS);
+		counts.incrementAndGet(index(value));
+		count.increment();
+		sumMicros.add(value);
+		if (value > maxMicros.get()) {
+			maxMicros.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	// below 64 a value is its own bucket; above, the top six bits of it pick one
+	static int index(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - 5;
+		return shift * HALF + (int) (micros >>> shift);
+	}
+
+	// the largest value that is counted in a bucket
+	static long highestInBucket(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / HALF - 1;
+		long sub = index - shift * HALF;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * The value at or below which the given fraction (0.5 for the median,
+	 * 0.999 for p999) of the recorded values lie, as the largest value of
+	 * its bucket; 0 if nothing was recorded.
+	 */
+	public long percentile(double fraction) {
+		long[] snapshot = new long[counts.length()];
+		long total = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				// the bucket's top can be above anything actually recorded
+				return Math.min(highestInBucket(i), getMaxMicros());
+			}
+		}
+		return getMaxMicros();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSumMicros() {
+		return sumMicros.sum();
+	}
+
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+}
@@ -1,5 +1,6 @@
 package group3;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -10,29 +11,125 @@ public class LogEntry {
 	private final int accountNum;
 	private final LogType type;
 	private final String message;
-	private final String dateTime;
+	// microseconds since the epoch; rendered as a date only when written out
+	private final long micros;
 
-	public LogEntry(int accountNum, LogType type, String message, String dateTime) {
+	// an entry for now, as the coarse clock has it
+	public LogEntry(int accountNum, LogType type, String message) {
+		this(accountNum, type, message, CoarseClock.micros());
+	}
+
+	public LogEntry(int accountNum, LogType type, String message, long micros) {
 		this.accountNum = accountNum;
 		this.type = type;
 		this.message = message;
-		this.dateTime = dateTime;
+		this.micros = micros;
+	}
+
+	public int getAccountNum() {
+		return accountNum;
+	}
+
+	public LogType getType() {
+		return type;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public long getMicros() {
+		return micros;
+	}
+
+	// a transfer is one entry under the paying account; this is the account paid
+	// into, or 0 if the entry is not a transfer
+	public int getReceiverNum() {
+		return type == LogType.transfer ? receiverOf(message) : 0;
+	}
+
+	// the receiver in a transfer message as AccountTransfer writes it,
+	// "<via> transferred <amount> from <from> to <to>, new balances ..."; 0 if there is none
+	static int receiverOf(String message) {
+		int end = message.indexOf(',');
+		if (end < 0) {
+			end = message.length();
+		}
+		int to = message.lastIndexOf(" to ", end);
+		if (to < 0) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(message, to + 4, end, 10);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	public String getDateTime() {
+		return CoarseClock.format(micros);
 	}
 
 	// format used by Server: accountNum,type,message,date
 	@Override
 	public String toString() {
-		return accountNum + "," + type + "," + message + "," + dateTime;
+		return accountNum + "," + type + "," + message + "," + getDateTime();
 	}
 
 	// append a single log entry to the given log file
 	public static void appendToLog(File logFile, LogEntry entry) {
+		BankEvents.LogAppend event = new BankEvents.LogAppend();
+		event.begin();
+		long start = System.nanoTime();
+		String line = entry.toString();
+		String outcome = "ok";
 		try (PrintWriter writer = new PrintWriter(new FileWriter(logFile, true))) {
-			writer.println(entry.toString());
+			writer.println(line);
 			// also echo logs to the server console for easy monitoring
-			System.out.println("[LOG] " + entry.toString());
+			System.out.println("[LOG] " + line);
 		} catch (IOException e) {
 			System.out.println("Error writing log entry: " + e.getMessage());
+			outcome = "failed";
+		}
+		event.end();
+		RequestTrace.addLog(System.nanoTime() - start);
+		if (event.shouldCommit()) {
+			event.account = entry.getAccountNum();
+			event.entries = 1;
+			event.bytes = line.length() + System.lineSeparator().length();
+			event.outcome = outcome;
+			event.commit();
+		}
+	}
+
+	// append many entries with a single open of the log file; batch jobs use this
+	// instead of appendToLog so a large run is not dominated by console echo
+	public static void appendAllToLog(File logFile, Iterable<LogEntry> entries) {
+		int count = 0;
+		long bytes = 0;
+		BankEvents.LogAppend event = new BankEvents.LogAppend();
+		event.begin();
+		long start = System.nanoTime();
+		String outcome = "ok";
+		try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(logFile, true), 1 << 16))) {
+			for (LogEntry entry : entries) {
+				String line = entry.toString();
+				writer.println(line);
+				count++;
+				bytes += line.length() + System.lineSeparator().length();
+			}
+			System.out.println("[LOG] appended " + count + " entries");
+		} catch (IOException e) {
+			System.out.println("Error writing log entries: " + e.getMessage());
+			outcome = "failed";
+		}
+		event.end();
+		RequestTrace.addLog(System.nanoTime() - start);
+		if (event.shouldCommit()) {
+			event.entries = count;
+			event.bytes = bytes;
+			event.outcome = outcome;
+			event.commit();
 		}
 	}
 }
@@ -0,0 +1,169 @@
+package group3;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-range queries over the log. The log is only appended to, so it is cut
+ * into segments of bank.logSegmentBytes (default 256 KB) and the index keeps
+ * the offset and time of the first entry of each.
+ *
+ * The log is only roughly in time order. AccountWriteCoalescer and
+ * InterestAccrualJob stamp their entries before rewriting accounts.txt,
+ * while other threads keep appending entries with later times. Two server
+ * processes also append with their own clocks. An entry may therefore come
+ * after entries up to bank.logSlackMillis (default 30 s) newer than itself.
+ * A query binary-searches the segments for the one that starts that much
+ * before its range. It reads forward from there until an entry that much
+ * past its end, so a late entry inside the range is still found. The cost
+ * is the entries in range plus the slack on either side and at most one
+ * segment, however long the log has grown. Matching lines come back in log
+ * order.
+ *
+ * Each query first indexes what was appended since the last one; a log that
+ * got shorter (was replaced) is indexed again from the start. Lines whose
+ * last field is not a date are skipped. There is one index per log file;
+ * use forFile.
+ */
+public class LogIndex {
+	private static final Map<String, LogIndex> indexes = new ConcurrentHashMap<>();
+
+	private final File logFile;
+	private final int segmentBytes;
+	// how far an entry's time may be behind entries logged before it
+	private final long slackMicros;
+	// offset and time of the first entry of each segment
+	private long[] offsets = new long[64];
+	private long[] times = new long[64];
+	private int segments;
+	// start of the last line indexed; indexing resumes there
+	private long indexed;
+
+	public LogIndex(File log, int segmentBytes) {
+		this(log, segmentBytes, Long.getLong("bank.logSlackMillis", 30_000) * 1000);
+	}
+
+	public LogIndex(File log, int segmentBytes, long slackMicros) {
+		this.logFile = log;
+		this.segmentBytes = segmentBytes;
+		this.slackMicros = slackMicros;
+	}
+
+	// the shared index of a log file, with the configured segment size
+	public static LogIndex forFile(File log) {
+		return indexes.computeIfAbsent(log.getAbsolutePath(),
+				k -> new LogIndex(log, Integer.getInteger("bank.logSegmentBytes", 256 * 1024)));
+	}
+
+	/**
+	 * Lines of the entries logged at or after fromMicros and before toMicros,
+	 * in log order, at most limit of them.
+	 */
+	public synchronized List<String> between(long fromMicros, long toMicros, int limit) throws IOException {
+		extend();
+		List<String> lines = new ArrayList<>();
+		if (segments == 0 || fromMicros >= toMicros) {
+			return lines;
+		}
+		// the last segment starting at or before the slack before fromMicros; earlier
+		// ones hold nothing in the range
+		long scanFrom = fromMicros - slackMicros > fromMicros ? Long.MIN_VALUE : fromMicros - slackMicros;
+		long scanTo = toMicros + slackMicros < toMicros ? Long.MAX_VALUE : toMicros + slackMicros;
+		int lo = 0;
+		int hi = segments - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (times[mid] <= scanFrom) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		try (FileInputStream in = new FileInputStream(logFile);
+				RecordReader reader = new RecordReader(in)) {
+			in.getChannel().position(offsets[lo]);
+			while (lines.size() < limit && reader.next()) {
+				long time = timeOf(reader);
+				if (time == Long.MIN_VALUE) {
+					continue;
+				}
+				if (time >= scanTo) {
+					break;
+				}
+				if (time >= fromMicros && time < toMicros) {
+					lines.add(reader.line());
+				}
+			}
+		}
+		return lines;
+	}
+
+	// indexes the lines appended since the last call
+	private void extend() throws IOException {
+		long length = logFile.length();
+		if (length < indexed) {
+			segments = 0;
+			indexed = 0;
+		}
+		if (length <= indexed) {
+			return;
+		}
+		try (FileInputStream in = new FileInputStream(logFile);
+				RecordReader reader = new RecordReader(in)) {
+			long start = indexed;
+			in.getChannel().position(start);
+			long next = segments == 0 ? 0 : offsets[segments - 1] + segmentBytes;
+			while (reader.next()) {
+				long offset = start + reader.lineOffset();
+				if (offset >= next) {
+					long time = timeOf(reader);
+					if (time != Long.MIN_VALUE) {
+						add(offset, time);
+						next = offset + segmentBytes;
+					}
+				}
+				// the last line may still be being written, so it is read again next time
+				indexed = offset;
+			}
+		}
+	}
+
+	private void add(long offset, long time) {
+		if (segments == offsets.length) {
+			offsets = Arrays.copyOf(offsets, segments * 2);
+			times = Arrays.copyOf(times, segments * 2);
+		}
+		offsets[segments] = offset;
+		times[segments] = time;
+		segments++;
+	}
+
+	// the time of the reader's current entry, or Long.MIN_VALUE if it has none
+	private static long timeOf(RecordReader reader) {
+		if (reader.fields() < 4) {
+			return Long.MIN_VALUE;
+		}
+		try {
+			return CoarseClock.parse(reader.field(reader.fields() - 1));
+		} catch (DateTimeParseException e) {
+			return Long.MIN_VALUE;
+		}
+	}
+
+	// counters for /api/stats
+	public synchronized Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("segments", segments);
+		stats.put("segmentBytes", segmentBytes);
+		stats.put("indexedBytes", indexed);
+		return stats;
+	}
+}
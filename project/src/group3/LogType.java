@@ -6,5 +6,8 @@ public enum LogType {
 	withdrawal,
 	deposit,
 	updateAccount,
-	updateProfile
+	updateProfile,
+	interest,
+	fee,
+	transfer
 }
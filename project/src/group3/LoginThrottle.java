@@ -0,0 +1,159 @@
+package group3;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers failed logins so that repeated guessing is turned away before any
+ * credential check or file read. The counts live in memory and are per
+ * process: the socket server and the REST server run in separate JVMs and
+ * each has its own shared throttle, so an attacker who spreads guesses over
+ * both gets each budget once.
+ *
+ * Failures are counted twice: per credential and client address pair (an
+ * account number or username as seen from one address) and per address. Once
+ * a count passes its free failures the key is locked for the base backoff,
+ * doubled with every further failure up to the maximum; a success clears the
+ * pair but not the address. Because the credential is never locked on its
+ * own, guessing somebody's PIN from elsewhere does not lock them out, and an
+ * address gets more free failures than a pair so that several customers
+ * behind one address are not starved by one of them mistyping.
+ *
+ * Many customers can share one address (a NAT or proxy), so one of them
+ * guessing must not lock out the rest. An address lock is capped at its own,
+ * shorter maximum (bank.loginMaxAddressBackoffMillis, default one minute),
+ * and a credential that has logged in successfully from an address is not
+ * held back by that address's lock at all, only by its own pair count.
+ *
+ * A count is forgotten once its key has seen no failure for the maximum
+ * backoff. Each map is bounded (least recently used first), so a flood of
+ * distinct keys costs a fixed amount of memory.
+ */
+public class LoginThrottle {
+	private static final LoginThrottle shared = new LoginThrottle(
+			Integer.getInteger("bank.loginThrottleSize", 100_000),
+			Integer.getInteger("bank.loginFreeFailures", 3),
+			Integer.getInteger("bank.loginFreeFailuresPerAddress", 20),
+			Long.getLong("bank.loginBackoffMillis", 1_000),
+			Long.getLong("bank.loginMaxBackoffMillis", 15 * 60 * 1_000),
+			Long.getLong("bank.loginMaxAddressBackoffMillis", 60 * 1_000));
+
+	private final int freeFailures;
+	private final int freeFailuresPerAddress;
+	private final long backoffMillis;
+	private final long maxBackoffMillis;
+	private final long maxAddressBackoffMillis;
+	private final Map<String, Failures> pairs;
+	private final Map<String, Failures> addresses;
+	// credential and address pairs that have logged in successfully
+	private final Map<String, Boolean> trusted;
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder lockouts = new LongAdder();
+
+	public LoginThrottle(int capacity, int freeFailures, int freeFailuresPerAddress, long backoffMillis,
+			long maxBackoffMillis) {
+		this(capacity, freeFailures, freeFailuresPerAddress, backoffMillis, maxBackoffMillis, maxBackoffMillis);
+	}
+
+	public LoginThrottle(int capacity, int freeFailures, int freeFailuresPerAddress, long backoffMillis,
+			long maxBackoffMillis, long maxAddressBackoffMillis) {
+		this.freeFailures = freeFailures;
+		this.freeFailuresPerAddress = freeFailuresPerAddress;
+		this.backoffMillis = backoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+		this.maxAddressBackoffMillis = maxAddressBackoffMillis;
+		this.pairs = bounded(capacity);
+		this.addresses = bounded(capacity);
+		this.trusted = bounded(capacity);
+	}
+
+	// the throttle of this process, with the configured limits
+	public static LoginThrottle shared() {
+		return shared;
+	}
+
+	private static <V> Map<String, V> bounded(int capacity) {
+		return new LinkedHashMap<String, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Milliseconds until credential may be tried again from address; 0 if it
+	 * may be tried now. credential should name what is being logged into, e.g.
+	 * "atm:1001" or "customer:user1".
+	 */
+	public synchronized long retryAfter(String credential, String address) {
+		long now = System.currentTimeMillis();
+		String pair = pair(credential, address);
+		long wait = remaining(pairs.get(pair), now);
+		// someone else guessing from a shared address does not hold back a known login
+		if (!trusted.containsKey(pair)) {
+			wait = Math.max(wait, remaining(addresses.get(address), now));
+		}
+		if (wait > 0) {
+			rejected.increment();
+		}
+		return wait;
+	}
+
+	// call after a login with credential from address was refused
+	public synchronized void failed(String credential, String address) {
+		long now = System.currentTimeMillis();
+		fail(pairs, pair(credential, address), freeFailures, maxBackoffMillis, now);
+		fail(addresses, address, freeFailuresPerAddress, maxAddressBackoffMillis, now);
+	}
+
+	// call after a login with credential from address was accepted
+	public synchronized void succeeded(String credential, String address) {
+		pairs.remove(pair(credential, address));
+		trusted.put(pair(credential, address), Boolean.TRUE);
+	}
+
+	private void fail(Map<String, Failures> failures, String key, int free, long maxMillis, long now) {
+		Failures f = failures.get(key);
+		if (f == null || now - f.last >= maxBackoffMillis) {
+			f = new Failures();
+			failures.put(key, f);
+		}
+		f.count++;
+		f.last = now;
+		if (f.count > free) {
+			// 1x, 2x, 4x ... the base backoff; the shift is capped so it cannot overflow
+			int doublings = Math.min(f.count - free - 1, 30);
+			f.lockedUntil = now + Math.min(backoffMillis << doublings, maxMillis);
+			lockouts.increment();
+		}
+	}
+
+	private static long remaining(Failures f, long now) {
+		return f == null ? 0 : Math.max(0, f.lockedUntil - now);
+	}
+
+	private static String pair(String credential, String address) {
+		return credential + "@" + address;
+	}
+
+	// counters for /api/stats
+	public synchronized Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("trackedPairs", pairs.size());
+		stats.put("trackedAddresses", addresses.size());
+		stats.put("trustedPairs", trusted.size());
+		// logins turned away without a credential check
+		stats.put("rejected", rejected.sum());
+		stats.put("lockouts", lockouts.sum());
+		return stats;
+	}
+
+	private static final class Failures {
+		int count;
+		long last;
+		long lockedUntil;
+	}
+}
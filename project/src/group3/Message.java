@@ -1,5 +1,6 @@
 package group3;
 import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Message implements Serializable {
 	private static int count = 0;
@@ -9,6 +10,8 @@ public class Message implements Serializable {
     private final String text;
     private final String number; // this is a String variable so null can pass, the server will use parseInt
     private final Application sender;
+    // ties a request and its reply together in the server's traces
+    private final long traceId;
 
     // messages with no parameters
     public Message() {
@@ -18,15 +21,27 @@ public class Message implements Serializable {
         this.text = "undefined";
         this.number = "";
         this.sender = Application.undefined;
+        this.traceId = newTraceId();
     }
 
+    // a message that starts a new trace, as a request from the ATM or Teller does
     public Message(MessageStatus status, MessageType type, Application app, String num, String text) {
+    	this(status, type, app, num, text, newTraceId());
+    }
+
+    // a message in an existing trace, as a reply to a request is
+    public Message(MessageStatus status, MessageType type, Application app, String num, String text, long traceId) {
     	this.type = type;
     	this.status = status;
     	this.text = text;
     	this.id = ++count;
     	this.number = num;
     	this.sender = app;
+    	this.traceId = traceId;
+    }
+
+    private static long newTraceId() {
+    	return ThreadLocalRandom.current().nextLong();
     }
 
     // getters
@@ -57,6 +72,10 @@ public class Message implements Serializable {
     	return sender;
 
     }
+
+    public long getTraceId() {
+    	return traceId;
+    }
 }
 
 
@@ -1,4 +1,4 @@
 package group3;
 
 public enum MessageType 
-{ employeeLogin, customerLogin, logout, withdrawal, deposit, balance, updateAccount, updateProfile, undefined}
+{ employeeLogin, customerLogin, logout, withdrawal, deposit, balance, updateAccount, updateProfile, transfer, undefined}
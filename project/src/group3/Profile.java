@@ -30,76 +30,66 @@ public class Profile implements Serializable {
 		this.creditScore = 0;
 	}
 
-	// load accounts from file into the array
+	// load accounts into the array; each is one lookup in the account cache
 	public void loadAccounts(int[] accountNumbers) {
-		try (java.util.Scanner scanner = new java.util.Scanner(accountFile)) {
-			while (scanner.hasNextLine()) {
-				String line = scanner.nextLine();
-				String[] data = line.split(",");
-				if (data.length >= 4) {
-					int accNum = Integer.parseInt(data[0]);
-					// check if this account belongs to this profile
-					for (int num : accountNumbers) {
-						if (accNum == num) {
-							int pin = Integer.parseInt(data[1]);
-							AccountType type = AccountType.valueOf(data[2]);
-							double balance = Double.parseDouble(data[3]);
-							accounts.add(new Account(accNum, pin, type, balance));
-							break;
-						}
-					}
-				}
+		AccountCache cache = AccountCache.forFile(accountFile);
+		for (int num : accountNumbers) {
+			AccountCache.Record record = cache.get(String.valueOf(num));
+			if (record == null) {
+				continue;
+			}
+			try {
+				accounts.add(new Account(num, Integer.parseInt(record.getPin()), AccountType.valueOf(record.getType()),
+						record.getBalance()));
+			} catch (Exception e) {
+				System.out.println("Error loading accounts: " + e.getMessage());
 			}
-		} catch (Exception e) {
-			System.out.println("Error loading accounts: " + e.getMessage());
 		}
 	}
 
 	// add a new account to the profile
 	public void addAccount(AccountType type, double value) {
-		// generate new account number
-		int newAccountNum = generateAccountNumber();
 		// generate random 4-digit PIN
 		int newPin = 1000 + (int)(Math.random() * 9000);
 
-		// create new account
-		Account newAccount = new Account(newAccountNum, newPin, type, value);
+		// draw a number and write the account under one lock
+		int newAccountNum = saveNewAccount(newPin, type, value);
+		if (newAccountNum < 0) {
+			return;
+		}
 
 		// add to array
-		accounts.add(newAccount);
-
-		// write to file
-		saveAccountToFile(newAccount);
+		accounts.add(new Account(newAccountNum, newPin, type, value));
+		AccountFilter.forFile(accountFile).add(newAccountNum);
+		CredentialIndex.forFile(accountFile).put(String.valueOf(newAccountNum), String.valueOf(newPin));
 
 		System.out.println("Account created: " + newAccountNum + " PIN: " + newPin);
 	}
 
-	// generate unique account number
-	private int generateAccountNumber() {
-		int maxNum = 1000;
-		try (java.util.Scanner scanner = new java.util.Scanner(accountFile)) {
-			while (scanner.hasNextLine()) {
-				String line = scanner.nextLine();
-				String[] data = line.split(",");
-				if (data.length >= 1) {
-					int num = Integer.parseInt(data[0]);
-					if (num >= maxNum) {
-						maxNum = num + 1;
-					}
-				}
+	/**
+	 * Appends a new account with a freshly drawn number and returns the
+	 * number, or -1 if it could not be written. A drawn number that is
+	 * already on file (typed in or imported while another server held its
+	 * block) is skipped.
+	 */
+	private int saveNewAccount(int pin, AccountType type, double value) {
+		AccountNumberAllocator allocator = AccountNumberAllocator.forFile(accountFile);
+		AccountFilter filter = AccountFilter.forFile(accountFile);
+		try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+			int num = allocator.next();
+			while (filter.exists(String.valueOf(num))) {
+				num = allocator.next();
 			}
-		} catch (Exception e) {
-			// file might not exist, start with 1001
-		}
-		return maxNum;
-	}
-
-	// save a single account to file
-	private void saveAccountToFile(Account acc) {
-		try (PrintWriter writer = new PrintWriter(new FileWriter(accountFile, true))) {
-			writer.println(acc.getNum() + "," + acc.getPin() + "," + acc.getType() + "," + acc.getBalance());
+			String line = num + "," + pin + "," + type + "," + value;
+			try (PrintWriter writer = new PrintWriter(new FileWriter(accountFile, true))) {
+				writer.println(line);
+			}
+			held.touched(String.valueOf(num));
+			AccountCache.forFile(accountFile).put(line);
+			return num;
 		} catch (Exception e) {
 			System.out.println("Error saving account: " + e.getMessage());
+			return -1;
 		}
 	}
 
@@ -108,29 +98,35 @@ public class Profile implements Serializable {
 		int removedNum = account.getNum();
 		accounts.remove(account);
 		rewriteAccountsFile(removedNum);
+		AccountFilter.forFile(accountFile).remove(removedNum);
 	}
 
 	// rewrite accounts file excluding the removed account
 	private void rewriteAccountsFile(int removedAccountNum) {
-		ArrayList<String> linesToKeep = new ArrayList<>();
-		try (java.util.Scanner scanner = new java.util.Scanner(accountFile)) {
-			while (scanner.hasNextLine()) {
-				String line = scanner.nextLine();
-				String[] data = line.split(",");
-				if (data.length >= 1 && Integer.parseInt(data[0]) != removedAccountNum) {
-					linesToKeep.add(line);
+		// read and rewrite under one lock so no other process writes in between
+		try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+			held.touched(String.valueOf(removedAccountNum));
+			ArrayList<String> linesToKeep = new ArrayList<>();
+			try (java.util.Scanner scanner = new java.util.Scanner(accountFile)) {
+				while (scanner.hasNextLine()) {
+					String line = scanner.nextLine();
+					String[] data = line.split(",");
+					if (data.length >= 1 && Integer.parseInt(data[0]) != removedAccountNum) {
+						linesToKeep.add(line);
+					}
 				}
+			} catch (Exception e) {
+				System.out.println("Error reading accounts: " + e.getMessage());
 			}
-		} catch (Exception e) {
-			System.out.println("Error reading accounts: " + e.getMessage());
-		}
 
-		try (PrintWriter writer = new PrintWriter(accountFile)) {
-			for (String line : linesToKeep) {
-				writer.println(line);
+			try (PrintWriter writer = new PrintWriter(accountFile)) {
+				for (String line : linesToKeep) {
+					writer.println(line);
+				}
+			} catch (Exception e) {
+				System.out.println("Error rewriting accounts: " + e.getMessage());
 			}
-		} catch (Exception e) {
-			System.out.println("Error rewriting accounts: " + e.getMessage());
+			AccountCache.forFile(accountFile).invalidate(String.valueOf(removedAccountNum));
 		}
 	}
 
@@ -209,38 +205,43 @@ public class Profile implements Serializable {
 
 	// save profile changes to file
 	public void saveToFile() {
-		ArrayList<String> allLines = new ArrayList<>();
-		boolean found = false;
+		// read and rewrite under one lock so no other process writes in between
+		try (DataFileLock.Held held = DataFileLock.forFile(profileFile).lockExclusive()) {
+			held.touched(username);
+			ArrayList<String> allLines = new ArrayList<>();
+			boolean found = false;
 		
-		// read all profiles from file
-		try (java.util.Scanner scanner = new java.util.Scanner(profileFile)) {
-			while (scanner.hasNextLine()) {
-				String line = scanner.nextLine();
-				String[] data = line.split(",");
-				// check if this line is for the current user (by matching username at index 0)
-				if (data.length >= 1 && data[0].equals(this.username)) {
-					// replace with updated profile data
-					// format: username,password,name,phone,address,email,creditScore,accounts
-					String accountList = "[]"; // keeping accounts format simple for now
-					String updatedLine = username + "," + password + "," + name + "," + phone + "," + address + "," + email + "," + creditScore + "," + accountList;
-					allLines.add(updatedLine);
-					found = true;
-				} else {
-					allLines.add(line);
+			// read all profiles from file
+			try (java.util.Scanner scanner = new java.util.Scanner(profileFile)) {
+				while (scanner.hasNextLine()) {
+					String line = scanner.nextLine();
+					String[] data = line.split(",");
+					// check if this line is for the current user (by matching username at index 0)
+					if (data.length >= 1 && data[0].equals(this.username)) {
+						// replace with updated profile data
+						// format: username,password,name,phone,address,email,creditScore,accounts
+						String accountList = "[]"; // keeping accounts format simple for now
+						String updatedLine = username + "," + password + "," + name + "," + phone + "," + address + "," + email + "," + creditScore + "," + accountList;
+						allLines.add(updatedLine);
+						found = true;
+					} else {
+						allLines.add(line);
+					}
 				}
+			} catch (Exception e) {
+				System.out.println("Error reading profiles: " + e.getMessage());
 			}
-		} catch (Exception e) {
-			System.out.println("Error reading profiles: " + e.getMessage());
-		}
 		
-		// write all lines back to file
-		try (PrintWriter writer = new PrintWriter(profileFile)) {
-			for (String line : allLines) {
-				writer.println(line);
+			// write all lines back to file
+			try (PrintWriter writer = new PrintWriter(profileFile)) {
+				for (String line : allLines) {
+					writer.println(line);
+				}
+				CredentialIndex.forFile(profileFile).put(username, password);
+				System.out.println("Profile saved successfully");
+			} catch (Exception e) {
+				System.out.println("Error saving profile: " + e.getMessage());
 			}
-			System.out.println("Profile saved successfully");
-		} catch (Exception e) {
-			System.out.println("Error saving profile: " + e.getMessage());
 		}
 	}
 }
\ No newline at end of file
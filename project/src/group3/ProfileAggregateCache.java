@@ -0,0 +1,247 @@
+package group3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything a customer dashboard shows, cached per username: the profile
+ * fields and the records of its linked accounts. A login or account listing
+ * that hits the cache costs one map lookup plus a version check, instead of a
+ * scan of profiles.txt and one of accounts.txt.
+ *
+ * Each aggregate remembers the versions (RecordVersions) of its profile and
+ * of every linked account at the time it was built. A lookup compares them
+ * with the current ones and rebuilds the aggregate if any differ, so linking
+ * an account, updating the profile or any balance change, in this process or
+ * another, is picked up without the write paths having to know about this
+ * cache. Passwords are not kept; CredentialIndex checks those.
+ *
+ * Bounded to bank.profileCacheSize aggregates (default 10,000), least
+ * recently used first. There is one cache per profiles file; use forFile.
+ */
+public class ProfileAggregateCache {
+	private static final Map<String, ProfileAggregateCache> caches = new ConcurrentHashMap<>();
+
+	private final File profileFile;
+	private final File accountFile;
+	private final int capacity;
+	private final RecordVersions profileVersions;
+	private final RecordVersions accountVersions;
+	private final Map<String, Aggregate> aggregates;
+	private long hits;
+	private long misses;
+	private long stale;
+	// concurrent lookups of the same missing aggregate at the same versions share one build
+	private final SingleFlight<String, Aggregate> builds = new SingleFlight<>();
+
+	public ProfileAggregateCache(File profiles, File accounts, int capacity) {
+		this.profileFile = profiles;
+		this.accountFile = accounts;
+		this.capacity = capacity;
+		this.profileVersions = RecordVersions.forFile(profiles);
+		this.accountVersions = RecordVersions.forFile(accounts);
+		this.aggregates = new LinkedHashMap<String, Aggregate>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Aggregate> eldest) {
+				return size() > ProfileAggregateCache.this.capacity;
+			}
+		};
+	}
+
+	// the shared cache for a profiles file and the accounts file it links to
+	public static ProfileAggregateCache forFile(File profiles, File accounts) {
+		return caches.computeIfAbsent(profiles.getAbsolutePath(), k -> new ProfileAggregateCache(profiles, accounts,
+				Integer.getInteger("bank.profileCacheSize", 10_000)));
+	}
+
+	/**
+	 * The profile and linked accounts of username, current as of this call;
+	 * null if there is no such profile.
+	 */
+	public Aggregate get(String username) {
+		Aggregate cached;
+		synchronized (this) {
+			cached = aggregates.get(username);
+		}
+		if (cached != null && cached.versions.equals(versionsOf(username, cached.accountNumbers))) {
+			synchronized (this) {
+				hits++;
+			}
+			return cached;
+		}
+		synchronized (this) {
+			if (cached == null) {
+				misses++;
+			} else {
+				stale++;
+			}
+		}
+		// a build only serves callers that saw the same versions, so one started
+		// before a write this caller has already seen is never shared with it
+		int[] known = cached == null ? new int[0] : cached.accountNumbers;
+		Aggregate built = builds.load(username + versionsOf(username, known), () -> build(username));
+		if (built != null && !built.versions.equals(versionsOf(username, built.accountNumbers))) {
+			// the key could not name accounts this caller did not know were linked,
+			// and one of them changed while the shared build ran
+			built = build(username);
+		}
+		synchronized (this) {
+			if (built == null) {
+				aggregates.remove(username);
+			} else {
+				aggregates.put(username, built);
+			}
+		}
+		return built;
+	}
+
+	// versions are taken before the data is read, so an aggregate is never older than them
+	private Aggregate build(String username) {
+		String[] fields;
+		int[] linked;
+		String versions;
+		while (true) {
+			long profileVersion = profileVersions.version(username);
+			String line = readProfileLine(username);
+			if (line == null) {
+				return null;
+			}
+			fields = line.split(",", 8);
+			linked = AccountOwnerIndex.parseAccounts(fields.length > 7 ? fields[7] : "[]");
+			versions = versionsOf(username, linked);
+			if (profileVersions.version(username) == profileVersion) {
+				break;
+			}
+			// the profile was written while it was being read
+		}
+		AccountCache accounts = AccountCache.forFile(accountFile);
+		List<AccountCache.Record> records = new ArrayList<>(linked.length);
+		for (int num : linked) {
+			AccountCache.Record record = accounts.get(String.valueOf(num));
+			if (record != null) {
+				records.add(record);
+			}
+		}
+		return new Aggregate(fields, linked, Collections.unmodifiableList(records), versions);
+	}
+
+	private String versionsOf(String username, int[] linked) {
+		Object[] parts = new Object[2 + linked.length * 2];
+		parts[0] = profileVersions;
+		parts[1] = username;
+		for (int i = 0; i < linked.length; i++) {
+			parts[2 + i * 2] = accountVersions;
+			parts[3 + i * 2] = String.valueOf(linked[i]);
+		}
+		return RecordVersions.etag(parts);
+	}
+
+	private String readProfileLine(String username) {
+		try (DataFileLock.Held held = DataFileLock.forFile(profileFile).lockShared();
+				RecordReader reader = new RecordReader(profileFile)) {
+			while (reader.next()) {
+				if (reader.fields() > 1 && reader.fieldEquals(0, username)) {
+					return reader.line();
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading profiles: " + e.getMessage());
+		}
+		return null;
+	}
+
+	// counters for /api/stats
+	public synchronized Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("size", aggregates.size());
+		stats.put("capacity", capacity);
+		stats.put("hits", hits);
+		stats.put("misses", misses);
+		// found in the cache but rebuilt because the profile or an account changed
+		stats.put("rebuilds", stale);
+		long lookups = hits + misses + stale;
+		stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+		return stats;
+	}
+
+	/**
+	 * A profile with its linked accounts. Immutable; the versions string is
+	 * also the ETag of the customer's account list.
+	 */
+	public static final class Aggregate {
+		private final String username;
+		private final String name;
+		private final long phone;
+		private final String address;
+		private final String email;
+		private final int creditScore;
+		private final int[] accountNumbers;
+		private final List<AccountCache.Record> accounts;
+		private final String versions;
+
+		private Aggregate(String[] fields, int[] accountNumbers, List<AccountCache.Record> accounts,
+				String versions) {
+			this.username = fields[0];
+			this.name = fields.length > 2 ? fields[2] : "";
+			this.phone = fields.length > 3 ? parseLong(fields[3]) : 0;
+			this.address = fields.length > 4 ? fields[4] : "";
+			this.email = fields.length > 5 ? fields[5] : "";
+			this.creditScore = fields.length > 6 ? (int) parseLong(fields[6]) : 0;
+			this.accountNumbers = accountNumbers;
+			this.accounts = accounts;
+			this.versions = versions;
+		}
+
+		private static long parseLong(String field) {
+			try {
+				return Long.parseLong(field.trim());
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+
+		/**
+		 * A Profile object for this aggregate with its accounts loaded. The
+		 * password is not cached, so the caller passes the one it verified.
+		 */
+		public Profile toProfile(String password) {
+			Profile profile = new Profile(name, username, password, phone, address, email);
+			profile.setCreditScore(creditScore);
+			ArrayList<Account> loaded = new ArrayList<>();
+			for (AccountCache.Record record : accounts) {
+				try {
+					loaded.add(new Account(record.getNumber(), Integer.parseInt(record.getPin()),
+							AccountType.valueOf(record.getType()), record.getBalance()));
+				} catch (IllegalArgumentException e) {
+					// not a usable account line, so it is silently left out of
+					// the Profile; only the REST listing (getAccounts) shows it
+				}
+			}
+			profile.setAccounts(loaded);
+			return profile;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public List<AccountCache.Record> getAccounts() {
+			return accounts;
+		}
+
+		public String getVersions() {
+			return versions;
+		}
+	}
+}
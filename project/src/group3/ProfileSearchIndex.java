@@ -0,0 +1,548 @@
+package group3;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search index over profile fields (username, name, email, phone,
+ * address) used by employees to find customers by partial input.
+ *
+ * Every field is split into lower-case tokens which go into a radix (prefix)
+ * trie; the trie answers exact and prefix matches. Tokens are also broken into
+ * trigrams for an n-gram index, which finds infix matches ("4567" inside a
+ * phone number) and near misses (one typo) when the trie finds too little.
+ *
+ * Postings are packed as docId * 8 + field so each match knows which field it
+ * hit. An update gives the profile a new doc id and marks the old one dead, so
+ * no posting list ever has to be rewritten; dead postings are skipped at query
+ * time. Once dead docs make up more than bank.searchCompactRatio of all docs
+ * (default 0.5, and at least 64 of them) the index is rebuilt from the live
+ * ones, so profiles updated over and over do not keep growing it. A rebuild
+ * costs one pass over the live docs and only happens after as many updates
+ * again, so updates stay cheap on average.
+ */
+public class ProfileSearchIndex {
+	// field order inside a posting, with the weight of a match in that field
+	private static final int USERNAME = 0, NAME = 1, EMAIL = 2, PHONE = 3, ADDRESS = 4;
+	private static final int[] FIELD_WEIGHT = { 5, 4, 3, 3, 1 };
+	// match quality multipliers
+	private static final int EXACT = 3, PREFIX = 2;
+	// stop walking the trie once a term has this many candidates
+	private static final int MAX_CANDIDATES = 500;
+	// trigrams this common carry no signal and are skipped
+	private static final int MAX_NGRAM_POSTINGS = 20_000;
+	// fewer dead docs than this are never worth a rebuild
+	private static final int MIN_DEAD_TO_COMPACT = 64;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Node root = new Node("");
+	private final Map<Integer, IntList> ngrams = new HashMap<>();
+	private final Map<String, Integer> byUsername = new HashMap<>();
+	private final List<Doc> docs = new ArrayList<>();
+	private final double compactRatio = Double.parseDouble(System.getProperty("bank.searchCompactRatio", "0.5"));
+	private int dead;
+	private long compactions;
+
+	// build an index from a profiles file
+	public static ProfileSearchIndex load(File profiles) {
+		ProfileSearchIndex index = new ProfileSearchIndex();
+		if (!profiles.exists()) {
+			return index;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(profiles), 1 << 16)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				index.put(line);
+			}
+		} catch (IOException e) {
+			System.out.println("Error loading profile index: " + e.getMessage());
+		}
+		return index;
+	}
+
+	/**
+	 * Adds or replaces a profile given its line from profiles.txt:
+	 * username,password,name,phone,address,email,creditScore,accounts
+	 */
+	public void put(String profileLine) {
+		String[] fields = profileLine.split(",", 8);
+		if (fields.length < 2 || fields[0].isEmpty()) {
+			return;
+		}
+		Doc doc = new Doc(fields);
+		lock.writeLock().lock();
+		try {
+			Integer old = byUsername.get(doc.username);
+			add(doc);
+			if (old != null) {
+				kill(old);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(String username) {
+		lock.writeLock().lock();
+		try {
+			Integer old = byUsername.remove(username);
+			if (old != null) {
+				kill(old);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// stored fields of one profile by exact username, or null
+	public Map<String, Object> get(String username) {
+		lock.readLock().lock();
+		try {
+			Integer id = byUsername.get(username);
+			if (id == null) {
+				return null;
+			}
+			Map<String, Object> map = docs.get(id).toMap(0);
+			map.remove("score");
+			return map;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// number of live profiles
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return byUsername.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns up to limit profiles matching every whitespace separated term of
+	 * the query, best match first.
+	 */
+	public List<Map<String, Object>> search(String query, int limit) {
+		String[] terms = query.toLowerCase().trim().split("\\s+");
+		List<Map<String, Object>> results = new ArrayList<>();
+		if (terms.length == 0 || terms[0].isEmpty()) {
+			return results;
+		}
+
+		// the longest term is usually the most selective, so it drives candidate
+		// generation and the other terms are checked against each candidate
+		String driver = terms[0];
+		for (String term : terms) {
+			if (term.length() > driver.length()) {
+				driver = term;
+			}
+		}
+
+		lock.readLock().lock();
+		try {
+			Map<Integer, Integer> scores = new HashMap<>();
+			collectPrefix(driver, scores);
+			if (scores.size() < limit) {
+				collectNgrams(driver, scores);
+			}
+
+			List<int[]> ranked = new ArrayList<>();
+			for (Map.Entry<Integer, Integer> e : scores.entrySet()) {
+				Doc doc = docs.get(e.getKey());
+				int score = e.getValue();
+				// every term has to match (AND); scores add up
+				for (String term : terms) {
+					if (term == driver) {
+						continue;
+					}
+					int s = doc.score(term);
+					if (s == 0) {
+						score = 0;
+						break;
+					}
+					score += s;
+				}
+				if (score > 0) {
+					ranked.add(new int[] { e.getKey(), score });
+				}
+			}
+
+			// ties keep file order
+			ranked.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(a[0], b[0]));
+			for (int i = 0; i < ranked.size() && i < limit; i++) {
+				results.add(docs.get(ranked.get(i)[0]).toMap(ranked.get(i)[1]));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// counters for /api/stats
+	public Map<String, Object> stats() {
+		lock.readLock().lock();
+		try {
+			Map<String, Object> stats = new HashMap<>();
+			stats.put("profiles", byUsername.size());
+			stats.put("deadDocs", dead);
+			stats.put("compactions", compactions);
+			return stats;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// ---- indexing ----
+
+	// gives doc the next id and indexes its fields; caller holds the write lock
+	private void add(Doc doc) {
+		int id = docs.size();
+		docs.add(doc);
+		byUsername.put(doc.username, id);
+		index(id, USERNAME, doc.username);
+		index(id, NAME, doc.name);
+		index(id, EMAIL, doc.email);
+		index(id, PHONE, doc.phone);
+		index(id, ADDRESS, doc.address);
+	}
+
+	// marks a doc dead and compacts once too many are; caller holds the write lock
+	private void kill(int id) {
+		docs.get(id).alive = false;
+		dead++;
+		if (dead >= MIN_DEAD_TO_COMPACT && dead > docs.size() * compactRatio) {
+			compact();
+		}
+	}
+
+	// rebuilds the trie, trigrams and doc ids from the live docs, in their order
+	private void compact() {
+		List<Doc> live = new ArrayList<>(docs.size() - dead);
+		for (Doc doc : docs) {
+			if (doc.alive) {
+				live.add(doc);
+			}
+		}
+		root.children = Node.NONE;
+		root.postings = new IntList();
+		ngrams.clear();
+		docs.clear();
+		byUsername.clear();
+		for (Doc doc : live) {
+			add(doc);
+		}
+		dead = 0;
+		compactions++;
+	}
+
+	private void index(int id, int field, String value) {
+		if (value.isEmpty()) {
+			return;
+		}
+		Set<Integer> grams = new HashSet<>();
+		for (String token : tokens(field, value)) {
+			root.insert(token, id * 8 + field);
+			for (int i = 0; i + 3 <= token.length(); i++) {
+				grams.add(trigram(token, i));
+			}
+		}
+		for (Integer gram : grams) {
+			ngrams.computeIfAbsent(gram, k -> new IntList()).add(id * 8 + field);
+		}
+	}
+
+	// the whole value plus its words, e.g. jane@mail.com -> jane@mail.com, jane, mail, com
+	private static Set<String> tokens(int field, String value) {
+		Set<String> tokens = new HashSet<>();
+		String lower = value.toLowerCase();
+		if (field == PHONE) {
+			StringBuilder digits = new StringBuilder(lower.length());
+			for (int i = 0; i < lower.length(); i++) {
+				if (Character.isDigit(lower.charAt(i))) {
+					digits.append(lower.charAt(i));
+				}
+			}
+			tokens.add(digits.toString());
+			return tokens;
+		}
+		tokens.add(lower);
+		int start = -1;
+		for (int i = 0; i <= lower.length(); i++) {
+			boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+			if (word && start < 0) {
+				start = i;
+			} else if (!word && start >= 0) {
+				tokens.add(lower.substring(start, i));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	// three chars packed ten bits each; exact for the characters that show up in
+	// profiles, and a rare collision only adds a candidate that scores low
+	private static int trigram(String s, int i) {
+		return (s.charAt(i) & 0x3ff) << 20 | (s.charAt(i + 1) & 0x3ff) << 10 | (s.charAt(i + 2) & 0x3ff);
+	}
+
+	// ---- querying ----
+
+	// exact token matches score higher than tokens that only start with the term
+	private void collectPrefix(String term, Map<Integer, Integer> scores) {
+		Node node = root;
+		int i = 0;
+		boolean exact = true;
+		while (i < term.length()) {
+			Node child = node.child(term.charAt(i));
+			if (child == null) {
+				return;
+			}
+			int common = child.commonPrefix(term, i);
+			if (i + common == term.length()) {
+				exact = common == child.label.length();
+				node = child;
+				break;
+			}
+			if (common < child.label.length()) {
+				return;
+			}
+			i += common;
+			node = child;
+		}
+
+		// breadth first so shorter (closer) tokens are found first
+		List<Node> level = new ArrayList<>();
+		level.add(node);
+		boolean first = true;
+		while (!level.isEmpty()) {
+			List<Node> next = new ArrayList<>();
+			for (Node n : level) {
+				int quality = first && exact ? EXACT : PREFIX;
+				for (int p = 0; p < n.postings.size; p++) {
+					if (scores.size() >= MAX_CANDIDATES) {
+						return;
+					}
+					score(n.postings.values[p], quality * 10, scores);
+				}
+				next.addAll(Arrays.asList(n.children));
+			}
+			level = next;
+			first = false;
+		}
+	}
+
+	// infix and typo tolerant matching: a field matches when it shares at least
+	// half of the term's trigrams
+	private void collectNgrams(String term, Map<Integer, Integer> scores) {
+		if (term.length() < 3) {
+			return;
+		}
+		Set<Integer> grams = new HashSet<>();
+		for (int i = 0; i + 3 <= term.length(); i++) {
+			grams.add(trigram(term, i));
+		}
+		Map<Integer, Integer> overlap = new HashMap<>();
+		for (Integer gram : grams) {
+			IntList list = ngrams.get(gram);
+			if (list == null || list.size > MAX_NGRAM_POSTINGS) {
+				continue;
+			}
+			for (int p = 0; p < list.size; p++) {
+				overlap.merge(list.values[p], 1, Integer::sum);
+			}
+		}
+		int needed = (grams.size() + 1) / 2;
+		for (Map.Entry<Integer, Integer> e : overlap.entrySet()) {
+			if (e.getValue() >= needed) {
+				// at most PREFIX quality, scaled by how many trigrams matched
+				score(e.getKey(), PREFIX * 10 * e.getValue() / grams.size(), scores);
+			}
+		}
+	}
+
+	// a doc keeps the best score any of its fields got for the term
+	private void score(int posting, int quality, Map<Integer, Integer> scores) {
+		int id = posting >>> 3;
+		if (!docs.get(id).alive) {
+			return;
+		}
+		int score = quality * FIELD_WEIGHT[posting & 7];
+		scores.merge(id, score, Math::max);
+	}
+
+	// ---- storage ----
+
+	// one radix trie node; label is the edge leading into it
+	private static final class Node {
+		private static final Node[] NONE = new Node[0];
+
+		String label;
+		Node[] children = NONE; // sorted by first character of the label
+		IntList postings = new IntList();
+
+		Node(String label) {
+			this.label = label;
+		}
+
+		Node child(char c) {
+			int lo = 0, hi = children.length - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				char m = children[mid].label.charAt(0);
+				if (m < c) {
+					lo = mid + 1;
+				} else if (m > c) {
+					hi = mid - 1;
+				} else {
+					return children[mid];
+				}
+			}
+			return null;
+		}
+
+		// length of the shared prefix of this label and s starting at offset
+		int commonPrefix(String s, int offset) {
+			int n = Math.min(label.length(), s.length() - offset);
+			int i = 0;
+			while (i < n && label.charAt(i) == s.charAt(offset + i)) {
+				i++;
+			}
+			return i;
+		}
+
+		void addChild(Node child) {
+			char c = child.label.charAt(0);
+			int pos = 0;
+			while (pos < children.length && children[pos].label.charAt(0) < c) {
+				pos++;
+			}
+			Node[] grown = new Node[children.length + 1];
+			System.arraycopy(children, 0, grown, 0, pos);
+			grown[pos] = child;
+			System.arraycopy(children, pos, grown, pos + 1, children.length - pos);
+			children = grown;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] == old) {
+					children[i] = replacement;
+					return;
+				}
+			}
+		}
+
+		void insert(String token, int posting) {
+			Node node = this;
+			int i = 0;
+			while (i < token.length()) {
+				Node child = node.child(token.charAt(i));
+				if (child == null) {
+					Node leaf = new Node(token.substring(i));
+					leaf.postings.add(posting);
+					node.addChild(leaf);
+					return;
+				}
+				int common = child.commonPrefix(token, i);
+				if (common < child.label.length()) {
+					// split the edge at the point the token leaves it
+					Node mid = new Node(child.label.substring(0, common));
+					child.label = child.label.substring(common);
+					mid.children = new Node[] { child };
+					node.replaceChild(child, mid);
+					child = mid;
+				}
+				i += common;
+				node = child;
+			}
+			node.postings.add(posting);
+		}
+	}
+
+	// growable int array so postings are not boxed
+	private static final class IntList {
+		int[] values = new int[2];
+		int size;
+
+		void add(int v) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = v;
+		}
+	}
+
+	// stored fields of one profile, returned with search results
+	private static final class Doc {
+		final String username;
+		final String name;
+		final String phone;
+		final String address;
+		final String email;
+		final String creditScore;
+		final String linkedAccounts;
+		volatile boolean alive = true;
+
+		Doc(String[] f) {
+			username = f[0];
+			name = f.length > 2 ? f[2] : "";
+			phone = f.length > 3 ? f[3] : "";
+			address = f.length > 4 ? f[4] : "";
+			email = f.length > 5 ? f[5] : "";
+			creditScore = f.length > 6 ? f[6] : "0";
+			linkedAccounts = f.length > 7 ? f[7] : "[]";
+		}
+
+		// score of a term checked directly against the stored fields, using the
+		// same weights as the index; 0 when no field matches
+		int score(String term) {
+			String[] values = { username, name, email, phone, address };
+			int best = 0;
+			for (int field = 0; field < values.length; field++) {
+				best = Math.max(best, quality(values[field].toLowerCase(), term) * 10 * FIELD_WEIGHT[field]);
+			}
+			return best;
+		}
+
+		// EXACT if term is a whole word of value, PREFIX if a word starts with it,
+		// 1 if it only appears inside a word
+		private static int quality(String value, String term) {
+			int best = 0;
+			int at = value.indexOf(term);
+			while (at >= 0) {
+				boolean starts = at == 0 || !Character.isLetterOrDigit(value.charAt(at - 1));
+				int end = at + term.length();
+				boolean ends = end == value.length() || !Character.isLetterOrDigit(value.charAt(end));
+				best = Math.max(best, starts ? (ends ? EXACT : PREFIX) : 1);
+				at = value.indexOf(term, at + 1);
+			}
+			return best;
+		}
+
+		// same keys as handleSearchProfile plus the match score
+		Map<String, Object> toMap(int score) {
+			Map<String, Object> map = new HashMap<>();
+			map.put("username", username);
+			map.put("name", name);
+			map.put("phone", phone);
+			map.put("address", address);
+			map.put("email", email);
+			map.put("creditScore", creditScore);
+			map.put("linkedAccounts", linkedAccounts);
+			map.put("score", score);
+			return map;
+		}
+	}
+}
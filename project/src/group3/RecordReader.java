@@ -0,0 +1,320 @@
+package group3;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the comma-separated lines of a data file one record at a time
+ * without creating a String per line or per field. The file is read in
+ * chunks into one reused byte buffer; next() finds the end of the next line
+ * and the commas in it, and the fields are then read straight from the
+ * buffer: intField, longField and decimalField parse numbers from the bytes,
+ * fieldEquals and fieldStartsWith compare without decoding. Only field and
+ * line create Strings, for the records a caller actually keeps.
+ *
+ * The data files are UTF-8 (or ASCII, which is the same); "\r\n" line ends
+ * are accepted. Every comma separates fields, so a caller whose last field
+ * may itself hold commas (the accounts list of a profile, the message of a
+ * log entry) uses rest or counts fields from the end. Not thread-safe, and
+ * callers hold the DataFileLock of the file themselves.
+ */
+public final class RecordReader implements Closeable {
+	private static final int CHUNK = 1 << 16;
+	// 10^0 ... 10^22, all exact as doubles
+	private static final double[] POWERS = new double[23];
+	static {
+		POWERS[0] = 1;
+		for (int i = 1; i < POWERS.length; i++) {
+			POWERS[i] = POWERS[i - 1] * 10;
+		}
+	}
+
+	private final InputStream in;
+	private byte[] buf = new byte[CHUNK];
+	// bytes read into buf so far, and where the next line starts
+	private int limit;
+	private int pos;
+	private boolean eof;
+	// offset in the stream of buf[0]
+	private long base;
+	// the current line is buf[lineStart, lineEnd); field i is buf[starts[i], ends[i])
+	private int lineStart;
+	private int lineEnd;
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private int fields;
+
+	public RecordReader(File file) throws IOException {
+		this(new FileInputStream(file));
+	}
+
+	public RecordReader(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Moves to the next line; false at the end of the file. A last line
+	 * without a line break still counts, an empty file has no lines.
+	 */
+	public boolean next() throws IOException {
+		int scan = pos;
+		while (true) {
+			int newline = indexOf((byte) '\n', scan, limit);
+			if (newline >= 0) {
+				setLine(pos, newline);
+				pos = newline + 1;
+				return true;
+			}
+			if (eof) {
+				if (pos < limit) {
+					setLine(pos, limit);
+					pos = limit;
+					return true;
+				}
+				return false;
+			}
+			scan = fill();
+		}
+	}
+
+	// reads more of the file, keeping the unfinished line; returns where to resume searching
+	private int fill() throws IOException {
+		int pending = limit - pos;
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, pending);
+			base += pos;
+			pos = 0;
+			limit = pending;
+		}
+		if (limit == buf.length) {
+			byte[] bigger = new byte[buf.length * 2];
+			System.arraycopy(buf, 0, bigger, 0, limit);
+			buf = bigger;
+		}
+		int n = in.read(buf, limit, buf.length - limit);
+		if (n < 0) {
+			eof = true;
+		} else {
+			limit += n;
+		}
+		return pending;
+	}
+
+	private int indexOf(byte b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buf[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void setLine(int start, int end) {
+		if (end > start && buf[end - 1] == '\r') {
+			end--;
+		}
+		lineStart = start;
+		lineEnd = end;
+		fields = 0;
+		int fieldStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || buf[i] == ',') {
+				if (fields == starts.length) {
+					starts = Arrays.copyOf(starts, fields * 2);
+					ends = Arrays.copyOf(ends, fields * 2);
+				}
+				starts[fields] = fieldStart;
+				ends[fields] = i;
+				fields++;
+				fieldStart = i + 1;
+			}
+		}
+	}
+
+	// number of comma-separated fields in the line; an empty line has one, empty, field
+	public int fields() {
+		return fields;
+	}
+
+	public boolean isBlank() {
+		for (int i = lineStart; i < lineEnd; i++) {
+			if (buf[i] != ' ' && buf[i] != '\t') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// where the current line starts, in bytes from the start of the stream
+	public long lineOffset() {
+		return base + lineStart;
+	}
+
+	// the whole line, without its line break
+	public String line() {
+		return new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+	}
+
+	public String field(int i) {
+		check(i);
+		return new String(buf, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+	}
+
+	// field i and everything after it, commas included
+	public String rest(int i) {
+		check(i);
+		return new String(buf, starts[i], lineEnd - starts[i], StandardCharsets.UTF_8);
+	}
+
+	public boolean fieldEquals(int i, String s) {
+		check(i);
+		return matches(starts[i], ends[i], s, true);
+	}
+
+	public boolean fieldStartsWith(int i, String prefix) {
+		check(i);
+		return matches(starts[i], ends[i], prefix, false);
+	}
+
+	private boolean matches(int start, int end, String s, boolean whole) {
+		int length = end - start;
+		if (length < s.length() || (whole && length != s.length())) {
+			// UTF-8 never takes fewer bytes than chars, so an ASCII mismatch in length is final
+			if (isAscii(s)) {
+				return false;
+			}
+		}
+		for (int j = 0; j < s.length(); j++) {
+			char c = s.charAt(j);
+			if (c >= 0x80) {
+				// not plain ASCII; compare the decoded text instead
+				String text = new String(buf, start, length, StandardCharsets.UTF_8);
+				return whole ? text.equals(s) : text.startsWith(s);
+			}
+			if (j >= length || buf[start + j] != c) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isAscii(String s) {
+		for (int j = 0; j < s.length(); j++) {
+			if (s.charAt(j) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int intField(int i) {
+		long value = longField(i);
+		if (value != (int) value) {
+			throw new NumberFormatException("not an int: " + field(i));
+		}
+		return (int) value;
+	}
+
+	// surrounding spaces are ignored, anything else but an optional sign and digits is not
+	public long longField(int i) {
+		check(i);
+		int p = skipSpaces(starts[i], ends[i]);
+		int end = trimSpaces(p, ends[i]);
+		boolean negative = p < end && buf[p] == '-';
+		if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+			p++;
+		}
+		if (p == end || end - p > 19) {
+			throw new NumberFormatException("not a number: " + field(i));
+		}
+		long value = 0;
+		for (; p < end; p++) {
+			int digit = buf[p] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("not a number: " + field(i));
+			}
+			// accumulate negatively so Long.MIN_VALUE fits
+			if (value < (Long.MIN_VALUE + digit) / 10) {
+				throw new NumberFormatException("out of range: " + field(i));
+			}
+			value = value * 10 - digit;
+		}
+		if (!negative && value == Long.MIN_VALUE) {
+			throw new NumberFormatException("out of range: " + field(i));
+		}
+		return negative ? value : -value;
+	}
+
+	/**
+	 * A decimal such as "-12.50" parsed straight from the bytes, with the
+	 * same result as Double.parseDouble. Anything the fast path does not
+	 * cover exactly (exponents, more than 15 significant digits) is handed to
+	 * Double.parseDouble.
+	 */
+	public double decimalField(int i) {
+		check(i);
+		int p = skipSpaces(starts[i], ends[i]);
+		int end = trimSpaces(p, ends[i]);
+		boolean negative = p < end && buf[p] == '-';
+		if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+			p++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		int start = p;
+		for (; p < end; p++) {
+			byte b = buf[p];
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				if (mantissa != 0) {
+					digits++;
+				}
+				if (scale >= 0) {
+					scale++;
+				}
+			} else if (b == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				break;
+			}
+		}
+		// an exact mantissa divided by an exact power of ten rounds correctly
+		if (p == end && p > start && !(scale == 0 && p - start == 1) && digits <= 15
+				&& Math.max(scale, 0) < POWERS.length) {
+			double value = scale > 0 ? mantissa / POWERS[scale] : mantissa;
+			return negative ? -value : value;
+		}
+		return Double.parseDouble(field(i));
+	}
+
+	private int skipSpaces(int from, int to) {
+		while (from < to && buf[from] == ' ') {
+			from++;
+		}
+		return from;
+	}
+
+	private int trimSpaces(int from, int to) {
+		while (to > from && buf[to - 1] == ' ') {
+			to--;
+		}
+		return to;
+	}
+
+	private void check(int i) {
+		if (i < 0 || i >= fields) {
+			throw new IndexOutOfBoundsException("field " + i + " of " + fields);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
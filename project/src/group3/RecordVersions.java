@@ -0,0 +1,97 @@
+package group3;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version numbers for the records of one data file, used as HTTP ETags.
+ *
+ * A record's version changes whenever the record is written, by this process
+ * or another one: the versions follow the change ring of DataFileLock, so no
+ * write site has to report anything and checking a version never reads the
+ * data file. When changes cannot be narrowed down to records (an edit made
+ * without the lock, a whole-file rewrite) every record of the file gets a new
+ * version at once.
+ *
+ * Versions are kept per key hash, so two keys with the same hash share a
+ * version. That can only cause an extra cache miss, never a stale hit.
+ *
+ * There is one instance per data file; use forFile.
+ */
+public class RecordVersions {
+	// one clock for all files, so versions only ever move forward
+	private static final AtomicLong clock = new AtomicLong();
+	// ETags from an earlier run of the server must never match
+	private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+	private static final Map<String, RecordVersions> instances = new ConcurrentHashMap<>();
+
+	private final DataFileLock.Cursor changes;
+	private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+	// version of every record not written since the last whole-file change
+	private volatile long floor;
+
+	private RecordVersions(File dataFile) {
+		this.changes = DataFileLock.forFile(dataFile).cursorIncludingOwn();
+		this.floor = clock.incrementAndGet();
+	}
+
+	// the versions for a data file, tracked from the first call on
+	public static RecordVersions forFile(File dataFile) {
+		return instances.computeIfAbsent(dataFile.getAbsolutePath(), k -> new RecordVersions(dataFile));
+	}
+
+	// current version of the record with this key (first field of its line)
+	public long version(String key) {
+		catchUp();
+		Long v = versions.get(key.hashCode());
+		return v == null ? floor : Math.max(v, floor);
+	}
+
+	/**
+	 * A strong ETag over the given records, which may come from several
+	 * files: pass the RecordVersions and key of each in turn.
+	 */
+	public static String etag(Object... versionsAndKeys) {
+		StringBuilder tag = new StringBuilder("\"").append(EPOCH);
+		for (int i = 0; i + 1 < versionsAndKeys.length; i += 2) {
+			long v = ((RecordVersions) versionsAndKeys[i]).version((String) versionsAndKeys[i + 1]);
+			tag.append('.').append(Long.toString(v, 36));
+		}
+		return tag.append('"').toString();
+	}
+
+	/**
+	 * True if an If-None-Match or If-Match header value names the tag. Lists
+	 * of tags and "*" are understood; weak tags compare equal to strong ones.
+	 */
+	public static boolean matches(String header, String etag) {
+		if (header == null) {
+			return false;
+		}
+		for (String candidate : header.split(",")) {
+			String c = candidate.trim();
+			if (c.startsWith("W/")) {
+				c = c.substring(2);
+			}
+			if (c.equals("*") || c.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void catchUp() {
+		int[] changed = changes.poll();
+		if (changed == null) {
+			floor = clock.incrementAndGet();
+			versions.clear();
+			return;
+		}
+		for (int hash : changed) {
+			versions.put(hash, clock.incrementAndGet());
+		}
+	}
+}
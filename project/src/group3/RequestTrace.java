@@ -0,0 +1,152 @@
+package group3;
+
+/**
+ * Where the time of one ATM or teller request went on the server. The
+ * request's trace id comes from its Message, so the client can find it by
+ * the id of the reply; the client's round trip minus the handler time here
+ * is the network.
+ *
+ * ClientHandler begins a trace when a request arrives and ends it when the
+ * reply is sent. In between it is the current trace of the handling thread,
+ * and the storage and log code add the time they take to it with
+ * addStorage and addLog; work done for it on another thread (a coalesced
+ * write) is added by the thread that waited for it. Finished traces go to
+ * TraceSink.
+ */
+public final class RequestTrace {
+	private static final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+
+	private final long traceId;
+	private final String type;
+	private final String sender;
+	private final int account;
+	// microseconds since the epoch when the request arrived
+	private final long startMicros;
+	private final long startNanos;
+	private final long queueNanos;
+	private long storageNanos;
+	private long logNanos;
+	private long handlerNanos;
+	private String outcome;
+
+	private RequestTrace(long traceId, String type, String sender, int account, long startMicros, long queueNanos) {
+		this.traceId = traceId;
+		this.type = type;
+		this.sender = sender;
+		this.account = account;
+		this.startMicros = startMicros;
+		this.startNanos = System.nanoTime();
+		this.queueNanos = queueNanos;
+	}
+
+	/**
+	 * Starts the trace of a request on this thread. queueNanos is how long
+	 * it waited before a handler picked it up.
+	 */
+	public static RequestTrace begin(Message request, int account, long queueNanos) {
+		RequestTrace trace = new RequestTrace(request.getTraceId(), String.valueOf(request.getType()),
+				String.valueOf(request.getSender()), account, CoarseClock.micros(), queueNanos);
+		current.set(trace);
+		return trace;
+	}
+
+	// finishes the trace and hands it to the sink
+	public void end(String outcome) {
+		handlerNanos = System.nanoTime() - startNanos;
+		this.outcome = outcome;
+		current.remove();
+		TraceSink.shared().add(this);
+	}
+
+	// adds time spent reading or writing data files to the current trace, if any
+	public static void addStorage(long nanos) {
+		RequestTrace trace = current.get();
+		if (trace != null) {
+			trace.storageNanos += nanos;
+		}
+	}
+
+	// adds time spent appending to the log to the current trace, if any
+	public static void addLog(long nanos) {
+		RequestTrace trace = current.get();
+		if (trace != null) {
+			trace.logNanos += nanos;
+		}
+	}
+
+	public long getTraceId() {
+		return traceId;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public String getSender() {
+		return sender;
+	}
+
+	public int getAccount() {
+		return account;
+	}
+
+	public long getStartMicros() {
+		return startMicros;
+	}
+
+	public long getQueueNanos() {
+		return queueNanos;
+	}
+
+	public long getHandlerNanos() {
+		return handlerNanos;
+	}
+
+	public long getStorageNanos() {
+		return storageNanos;
+	}
+
+	public long getLogNanos() {
+		return logNanos;
+	}
+
+	// queue wait and handling together: the server's share of the round trip
+	public long getTotalNanos() {
+		return queueNanos + handlerNanos;
+	}
+
+	public String getOutcome() {
+		return outcome;
+	}
+
+	// the trace id as the 16 hex digits the trace file and logs show
+	public static String hex(long traceId) {
+		return String.format("%016x", traceId);
+	}
+
+	/**
+	 * A trace as toString wrote it; throws IllegalArgumentException (or
+	 * DateTimeParseException) for a line that is not one.
+	 */
+	public static RequestTrace parse(String line) {
+		String[] f = line.split(",");
+		if (f.length != 10) {
+			throw new IllegalArgumentException("not a trace: " + line);
+		}
+		RequestTrace trace = new RequestTrace(Long.parseUnsignedLong(f[0], 16), f[2], f[3], Integer.parseInt(f[4]),
+				CoarseClock.parse(f[1]), Long.parseLong(f[6]) * 1000);
+		trace.outcome = f[5];
+		trace.handlerNanos = Long.parseLong(f[7]) * 1000;
+		trace.storageNanos = Long.parseLong(f[8]) * 1000;
+		trace.logNanos = Long.parseLong(f[9]) * 1000;
+		return trace;
+	}
+
+	// traceId,start,type,sender,account,outcome,queueMicros,handlerMicros,storageMicros,logMicros
+	@Override
+	public String toString() {
+		return hex(traceId) + "," + CoarseClock.format(startMicros) + "," + type + "," + sender + "," + account + ","
+				+ outcome + "," + queueNanos / 1000 + "," + handlerNanos / 1000 + "," + storageNanos / 1000 + ","
+				+ logNanos / 1000;
+	}
+}
@@ -6,8 +6,11 @@ import com.google.gson.JsonParser;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +37,24 @@ public class RestApiServer {
 	private static Gson gson = new Gson();
 	// Store active sessions (in production, use proper session management)
 	private static Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+	// search index over profile fields for employee lookups
+	private static ProfileSearchIndex profileIndex = ProfileSearchIndex.load(proFile);
+	// account number -> owning username, replaces scanning profiles.txt
+	private static AccountOwnerIndex ownerIndex = AccountOwnerIndex.load(proFile);
+	// per-record versions behind the ETag headers
+	private static RecordVersions accountVersions = RecordVersions.forFile(accountFile);
+	private static RecordVersions profileVersions = RecordVersions.forFile(proFile);
+	private static AccountTransfer transfers = new AccountTransfer(accountFile, logFile);
+	private static AccountCache accountCache = AccountCache.forFile(accountFile);
+	private static LoginThrottle loginThrottle = LoginThrottle.shared();
+	private static ProfileAggregateCache profileAggregates = ProfileAggregateCache.forFile(proFile, accountFile);
+	private static AccountWriteCoalescer coalescer = AccountWriteCoalescer.forFile(accountFile, logFile);
+	// concurrent identical reads share one load; keys include the ETag so a
+	// read never shares a load older than a write it could have seen
+	private static SingleFlight<String, Double> balanceReads = new SingleFlight<>();
+	private static SingleFlight<String, Object[]> accountReads = new SingleFlight<>();
+	// request counts and latencies per route, for /api/metrics
+	private static ApiMetrics metrics = ApiMetrics.shared();
 	
 	public static void main(String[] args) throws IOException {
 		// Use PORT env var (for Railway/Render) or default to 8080
@@ -57,6 +78,45 @@ public class RestApiServer {
 		System.out.println("REST API Server running on port " + port);
 		System.out.println("CORS enabled for web frontend");
 		System.out.println("Data directory: " + dataDir);
+		
+		// End-of-day interest and line of credit charges
+		new InterestAccrualJob(accountFile, logFile).schedule();
+		
+		// Pick up hand edits to employees.txt and profiles.txt
+		new DataFileWatcher(new File(dataDir))
+				.watch(employeeFile, CredentialIndex.forFile(employeeFile)::reload)
+				.watch(proFile, (username, line) -> {
+					if (line == null) {
+						profileIndex.remove(username);
+						ownerIndex.removeProfile(username);
+					} else {
+						profileIndex.put(line);
+						ownerIndex.putProfile(line);
+					}
+				})
+				.watch(proFile, CredentialIndex.forFile(proFile)::reload)
+				.start();
+	}
+	
+	/**
+	 * A profile line with the given fields replaced; null (or an empty
+	 * password) keeps the field as it was. Profile format:
+	 * username,password,name,phone,address,email,creditScore,accounts, where
+	 * the linked accounts list ([1001,1002]) holds commas of its own and is
+	 * kept whole.
+	 */
+	public static String updatedProfileLine(String line, String password, String name, String phone,
+			String address, String email, String creditScore) {
+		String[] fields = line.split(",", 8);
+		String updatedPassword = (password != null && !password.isEmpty()) ? password : fields[1];
+		String updatedName = (name != null) ? name : (fields.length > 2 ? fields[2] : "");
+		String updatedPhone = (phone != null) ? phone : (fields.length > 3 ? fields[3] : "");
+		String updatedAddress = (address != null) ? address : (fields.length > 4 ? fields[4] : "");
+		String updatedEmail = (email != null) ? email : (fields.length > 5 ? fields[5] : "");
+		String updatedCreditScore = (creditScore != null) ? creditScore : (fields.length > 6 ? fields[6] : "0");
+		String linkedAccounts = fields.length > 7 ? fields[7] : "[]";
+		return fields[0] + "," + updatedPassword + "," + updatedName + "," + updatedPhone + "," + updatedAddress
+				+ "," + updatedEmail + "," + updatedCreditScore + "," + linkedAccounts;
 	}
 	
 	// CORS wrapper to allow web frontend to call API
@@ -71,7 +131,8 @@ public class RestApiServer {
 		public void handle(HttpExchange exchange) throws IOException {
 			exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
 			exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-			exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
+			exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization, If-Match, If-None-Match");
+			exchange.getResponseHeaders().add("Access-Control-Expose-Headers", "ETag, Retry-After");
 			
 			if ("OPTIONS".equals(exchange.getRequestMethod())) {
 				exchange.sendResponseHeaders(200, -1);
@@ -88,7 +149,37 @@ public class RestApiServer {
 		public void handle(HttpExchange exchange) throws IOException {
 			String path = exchange.getRequestURI().getPath();
 			String method = exchange.getRequestMethod();
-			
+			BankEvents.ApiRequest event = new BankEvents.ApiRequest();
+			event.begin();
+			long start = System.nanoTime();
+			boolean routed = false;
+			try {
+				routed = route(exchange, path, method);
+			} finally {
+				metrics.record(method, routed ? path : null, exchange.getResponseCode(), System.nanoTime() - start);
+				event.end();
+				if (event.shouldCommit()) {
+					event.method = method;
+					event.route = path;
+					event.status = exchange.getResponseCode();
+					event.bytesRead = contentLength(exchange.getRequestHeaders().getFirst("Content-Length"));
+					event.bytesWritten = contentLength(exchange.getResponseHeaders().getFirst("Content-Length"));
+					event.commit();
+				}
+			}
+		}
+		
+		// a Content-Length header as a number, 0 if absent
+		private static long contentLength(String header) {
+			try {
+				return header != null ? Long.parseLong(header) : 0;
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+		
+		// false if the path and method match no route
+		private boolean route(HttpExchange exchange, String path, String method) throws IOException {
 			try {
 				if (path.equals("/api/auth/employee-login") && method.equals("POST")) {
 					handleEmployeeLogin(exchange);
@@ -104,6 +195,8 @@ public class RestApiServer {
 					handleDeposit(exchange);
 				} else if (path.equals("/api/accounts/withdraw") && method.equals("POST")) {
 					handleWithdraw(exchange);
+				} else if (path.equals("/api/accounts/transfer") && method.equals("POST")) {
+					handleTransfer(exchange);
 				} else if (path.equals("/api/accounts/balance") && method.equals("GET")) {
 					handleGetBalance(exchange);
 				} else if (path.equals("/api/accounts/update-pin") && method.equals("POST")) {
@@ -114,6 +207,10 @@ public class RestApiServer {
 					handleCreateAccount(exchange);
 				} else if (path.equals("/api/logs") && method.equals("GET")) {
 					handleGetLogs(exchange);
+				} else if (path.equals("/api/logs/recent") && method.equals("GET")) {
+					handleRecentLogs(exchange);
+				} else if (path.equals("/api/logs/summary") && method.equals("GET")) {
+					handleLogSummary(exchange);
 				} else if (path.equals("/api/accounts/search") && method.equals("GET")) {
 					handleSearchAccount(exchange);
 				} else if (path.equals("/api/accounts/link") && method.equals("POST")) {
@@ -122,38 +219,42 @@ public class RestApiServer {
 					handleSearchProfile(exchange);
 				} else if (path.equals("/api/profiles/update") && method.equals("POST")) {
 					handleUpdateProfile(exchange);
+				} else if (path.equals("/api/import") && method.equals("POST")) {
+					handleBulkImport(exchange);
+				} else if (path.equals("/api/stats") && method.equals("GET")) {
+					handleStats(exchange);
+				} else if (path.equals("/api/metrics") && method.equals("GET")) {
+					handleMetrics(exchange);
 				} else {
 					sendJsonResponse(exchange, 404, Map.of("error", "Not found"));
+					return false;
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
 				sendJsonResponse(exchange, 500, Map.of("error", e.getMessage()));
 			}
+			return true;
 		}
 		
 		private void handleEmployeeLogin(HttpExchange exchange) throws IOException {
 			JsonObject body = readJsonBody(exchange);
 			String username = body.get("username").getAsString();
 			String password = body.get("password").getAsString();
-			
-			String[] lines = parse(employeeFile);
-			boolean valid = false;
-			for (String line : lines) {
-				String[] creds = line.split(",", 2);
-				if (creds.length >= 2 && username.equals(creds[0]) && password.equals(creds[1])) {
-					valid = true;
-					break;
-				}
+			String credential = "employee:" + username;
+			String address = clientAddress(exchange);
+			if (throttled(exchange, credential, address)) {
+				return;
 			}
 			
-			if (valid) {
+			if (CredentialIndex.forFile(employeeFile).verify(username, password)) {
+				loginThrottle.succeeded(credential, address);
 				String sessionId = generateSessionId();
 				sessions.put(sessionId, new SessionData("employee", username));
 				LogEntry.appendToLog(logFile, new LogEntry(0, LogType.login,
-						"Employee login via REST API: " + username,
-						java.time.LocalDateTime.now().toString()));
+						"Employee login via REST API: " + username));
 				sendJsonResponse(exchange, 200, Map.of("success", true, "sessionId", sessionId, "role", "employee"));
 			} else {
+				loginThrottle.failed(credential, address);
 				sendJsonResponse(exchange, 401, Map.of("success", false, "error", "Invalid credentials"));
 			}
 		}
@@ -162,29 +263,28 @@ public class RestApiServer {
 			JsonObject body = readJsonBody(exchange);
 			String username = body.get("username").getAsString();
 			String password = body.get("password").getAsString();
+			String credential = "customer:" + username;
+			String address = clientAddress(exchange);
+			if (throttled(exchange, credential, address)) {
+				return;
+			}
 			
-			String[] lines = parse(proFile);
 			Profile profile = null;
-			for (String line : lines) {
-				String[] fields = line.split(",");
-				if (fields.length >= 2 && username.equals(fields[0]) && password.equals(fields[1])) {
-					String name = fields.length > 2 ? fields[2] : "";
-					long phone = fields.length > 3 ? Long.parseLong(fields[3]) : 0;
-					String address = fields.length > 4 ? fields[4] : "";
-					String email = fields.length > 5 ? fields[5] : "";
-					profile = new Profile(name, username, password, phone, address, email);
-					// Load accounts for this profile
-					profile.loadAccounts(extractAccountNumbers(line));
-					break;
+			// Password is checked against the credential index; the profile and its
+			// accounts then come from the aggregate cache
+			if (CredentialIndex.forFile(proFile).verify(username, password)) {
+				ProfileAggregateCache.Aggregate aggregate = profileAggregates.get(username);
+				if (aggregate != null) {
+					profile = aggregate.toProfile(password);
 				}
 			}
 			
 			if (profile != null) {
+				loginThrottle.succeeded(credential, address);
 				String sessionId = generateSessionId();
 				sessions.put(sessionId, new SessionData("customer", username, profile));
 				LogEntry.appendToLog(logFile, new LogEntry(0, LogType.login,
-						"Customer login via REST API: " + username,
-						java.time.LocalDateTime.now().toString()));
+						"Customer login via REST API: " + username));
 				Map<String, Object> response = new HashMap<>();
 				response.put("success", true);
 				response.put("sessionId", sessionId);
@@ -192,6 +292,7 @@ public class RestApiServer {
 				response.put("profile", profileToMap(profile));
 				sendJsonResponse(exchange, 200, response);
 			} else {
+				loginThrottle.failed(credential, address);
 				sendJsonResponse(exchange, 401, Map.of("success", false, "error", "Invalid credentials"));
 			}
 		}
@@ -200,30 +301,36 @@ public class RestApiServer {
 			JsonObject body = readJsonBody(exchange);
 			String accountNumber = body.get("accountNumber").getAsString();
 			String pin = body.get("pin").getAsString();
+			String credential = "atm:" + accountNumber;
+			String address = clientAddress(exchange);
+			// Repeated failures are turned away before any lookup
+			if (throttled(exchange, credential, address)) {
+				return;
+			}
 			
-			String[] lines = parse(accountFile);
-			Map<String, Object> accountData = null;
-			for (String line : lines) {
-				String[] data = line.split(",");
-				if (data.length >= 4 && data[0].equals(accountNumber) && data[1].equals(pin)) {
-					accountData = new HashMap<>();
-					accountData.put("accountNumber", Integer.parseInt(data[0]));
-					accountData.put("pin", data[1]);
-					accountData.put("type", data[2]);
-					accountData.put("balance", Double.parseDouble(data[3]));
-					break;
-				}
+			// Unknown account numbers are rejected without reading the accounts file
+			AccountFilter filter = AccountFilter.forFile(accountFile);
+			if (!filter.mightContain(accountNumber)) {
+				loginThrottle.failed(credential, address);
+				sendJsonResponse(exchange, 401, Map.of("success", false, "error", "Invalid account number or PIN"));
+				return;
 			}
 			
+			// PIN is checked against the credential index; the record is only looked up on success
+			CredentialIndex pins = CredentialIndex.forFile(accountFile);
+			AccountCache.Record account = pins.verify(accountNumber, pin) ? accountCache.get(accountNumber) : null;
+			Map<String, Object> accountData = account == null ? null : accountToMap(account);
+			filter.confirm(pins.contains(accountNumber));
+			
 			if (accountData != null) {
+				loginThrottle.succeeded(credential, address);
 				String sessionId = generateSessionId();
 				// Store ATM session with account number
 				SessionData atmSession = new SessionData("atm", accountNumber);
 				atmSession.atmAccountNumber = accountNumber;
 				sessions.put(sessionId, atmSession);
 				LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNumber), LogType.login,
-						"ATM login via REST API",
-						java.time.LocalDateTime.now().toString()));
+						"ATM login via REST API"));
 				Map<String, Object> response = new HashMap<>();
 				response.put("success", true);
 				response.put("sessionId", sessionId);
@@ -231,6 +338,7 @@ public class RestApiServer {
 				response.put("account", accountData);
 				sendJsonResponse(exchange, 200, response);
 			} else {
+				loginThrottle.failed(credential, address);
 				sendJsonResponse(exchange, 401, Map.of("success", false, "error", "Invalid account number or PIN"));
 			}
 		}
@@ -240,8 +348,7 @@ public class RestApiServer {
 			if (sessionId != null && sessions.containsKey(sessionId)) {
 				sessions.remove(sessionId);
 				LogEntry.appendToLog(logFile, new LogEntry(0, LogType.logout,
-						"Logout via REST API",
-						java.time.LocalDateTime.now().toString()));
+						"Logout via REST API"));
 				sendJsonResponse(exchange, 200, Map.of("success", true));
 			} else {
 				sendJsonResponse(exchange, 401, Map.of("success", false, "error", "Not logged in"));
@@ -258,72 +365,30 @@ public class RestApiServer {
 			
 			// For customers, return only their linked accounts
 			if ("customer".equals(session.role)) {
-				// Get customer's linked accounts from profile
-				String[] profileLines = parse(proFile);
-				java.util.Set<String> linkedAccounts = new java.util.HashSet<>();
-				
-				for (String line : profileLines) {
-					String[] fields = line.split(",");
-					if (fields.length >= 2 && fields[0].equals(session.username)) {
-						// Parse accounts array [acc1,acc2,...]
-						String accountsField = fields.length > 7 ? fields[7] : "[]";
-						if (!accountsField.equals("[]") && accountsField.length() > 2) {
-							String[] accNums = accountsField.substring(1, accountsField.length() - 1).split(",");
-							for (String acc : accNums) {
-								linkedAccounts.add(acc.trim());
-							}
-						}
-						break;
-					}
-				}
-				
-				// Load only the linked accounts
-				String[] accountLines = parse(accountFile);
-				java.util.List<Map<String, Object>> accountList = new java.util.ArrayList<>();
-				
-				for (String line : accountLines) {
-					String[] data = line.split(",");
-					if (data.length >= 4 && linkedAccounts.contains(data[0])) {
-						try {
-							Map<String, Object> accountMap = new HashMap<>();
-							accountMap.put("accountNumber", Integer.parseInt(data[0]));
-							accountMap.put("pin", data[1]);
-							accountMap.put("type", data[2]);
-							accountMap.put("balance", Double.parseDouble(data[3]));
-							accountList.add(accountMap);
-						} catch (Exception e) {
-							// Skip invalid lines
-						}
-					}
+				// One lookup in the aggregate cache; its versions cover the profile
+				// (which accounts are linked) and each account, and serve as the tag
+				ProfileAggregateCache.Aggregate aggregate = profileAggregates.get(session.username);
+				String etag = aggregate != null ? aggregate.getVersions()
+						: RecordVersions.etag(profileVersions, session.username);
+				if (notModified(exchange, etag)) {
+					return;
 				}
 				
-				sendJsonResponse(exchange, 200, Map.of("accounts", accountList.toArray()));
+				Object[] accounts = aggregate == null ? new Object[0]
+						: aggregate.getAccounts().stream().map(this::accountToMap).toArray();
+				sendJsonResponse(exchange, 200, Map.of("accounts", accounts));
 				return;
 			}
 			
 			// For ATM sessions, return only the logged-in account
 			if ("atm".equals(session.role) && session.atmAccountNumber != null) {
-				String[] accountLines = parse(accountFile);
-				java.util.List<Map<String, Object>> accountList = new java.util.ArrayList<>();
-				
-				for (String line : accountLines) {
-					String[] data = line.split(",");
-					if (data.length >= 4 && data[0].equals(session.atmAccountNumber)) {
-						try {
-							Map<String, Object> accountMap = new HashMap<>();
-							accountMap.put("accountNumber", Integer.parseInt(data[0]));
-							accountMap.put("pin", data[1]);
-							accountMap.put("type", data[2]);
-							accountMap.put("balance", Double.parseDouble(data[3]));
-							accountList.add(accountMap);
-						} catch (Exception e) {
-							// Skip invalid lines
-						}
-						break;
-					}
+				String etag = RecordVersions.etag(accountVersions, session.atmAccountNumber);
+				if (notModified(exchange, etag)) {
+					return;
 				}
-				
-				sendJsonResponse(exchange, 200, Map.of("accounts", accountList.toArray()));
+				Object[] accounts = accountReads.load("account:" + session.atmAccountNumber + etag,
+						() -> loadAccount(session.atmAccountNumber));
+				sendJsonResponse(exchange, 200, Map.of("accounts", accounts));
 				return;
 			}
 			
@@ -331,16 +396,20 @@ public class RestApiServer {
 			sendJsonResponse(exchange, 200, Map.of("accounts", new Object[0]));
 		}
 		
+		// the account map of one account, in an array of one (or none)
+		private Object[] loadAccount(String accountNum) {
+			AccountCache.Record account = accountCache.get(accountNum);
+			return account == null ? new Object[0] : new Object[] { accountToMap(account) };
+		}
+		
 		private void handleDeposit(HttpExchange exchange) throws IOException {
 			JsonObject body = readJsonBody(exchange);
 			String accountNum = body.get("accountNumber").getAsString();
 			double amount = body.get("amount").getAsDouble();
 			
-			boolean success = fileDeposit(accountNum, amount);
+			// batched with other deposits and withdrawals into one write and log append
+			boolean success = coalescer.deposit(accountNum, amount, "REST API deposit: " + amount).isDone();
 			if (success) {
-				LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.deposit,
-						"REST API deposit: " + amount,
-						java.time.LocalDateTime.now().toString()));
 				sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Deposit successful"));
 			} else {
 				sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Deposit failed"));
@@ -352,41 +421,94 @@ public class RestApiServer {
 			String accountNum = body.get("accountNumber").getAsString();
 			double amount = body.get("amount").getAsDouble();
 			
-			boolean success = fileWithdrawal(accountNum, amount);
+			boolean success = coalescer.withdraw(accountNum, amount, "REST API withdrawal: " + amount).isDone();
 			if (success) {
-				LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.withdrawal,
-						"REST API withdrawal: " + amount,
-						java.time.LocalDateTime.now().toString()));
 				sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Withdrawal successful"));
 			} else {
 				sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Withdrawal failed"));
 			}
 		}
 		
+		private void handleTransfer(HttpExchange exchange) throws IOException {
+			String sessionId = getSessionId(exchange);
+			SessionData session = sessions.get(sessionId);
+			if (session == null) {
+				sendJsonResponse(exchange, 401, Map.of("error", "Not authenticated"));
+				return;
+			}
+			
+			JsonObject body = readJsonBody(exchange);
+			String from = body.get("fromAccount").getAsString();
+			String to = body.get("toAccount").getAsString();
+			double amount = body.get("amount").getAsDouble();
+			
+			// customers move money out of their own accounts, an ATM out of its account
+			boolean allowed = "employee".equals(session.role)
+					|| ("customer".equals(session.role) && session.username.equals(ownerIndex.ownerOf(Integer.parseInt(from))))
+					|| ("atm".equals(session.role) && from.equals(session.atmAccountNumber));
+			if (!allowed) {
+				sendJsonResponse(exchange, 403, Map.of("success", false, "error", "Not allowed to transfer from this account"));
+				return;
+			}
+			
+			AccountTransfer.Result result = transfers.transfer(from, to, amount, "REST API");
+			switch (result.getStatus()) {
+			case done:
+				sendJsonResponse(exchange, 200, Map.of("success", true, "fromBalance", result.getFromBalance(),
+						"toBalance", result.getToBalance()));
+				break;
+			case noSuchAccount:
+				sendJsonResponse(exchange, 404, Map.of("success", false, "error", "Account not found"));
+				break;
+			case failed:
+				sendJsonResponse(exchange, 500, Map.of("success", false, "error", "Transfer failed"));
+				break;
+			default:
+				sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Transfer failed: " + result.getStatus()));
+				break;
+			}
+		}
+		
 		private void handleGetBalance(HttpExchange exchange) throws IOException {
 			String accountNum = exchange.getRequestURI().getQuery().split("=")[1];
-			String[] lines = parse(accountFile);
-			for (String line : lines) {
-				String[] data = line.split(",");
-				if (data.length >= 4 && accountNum.equals(data[0])) {
-					double balance = Double.parseDouble(data[3]);
-					sendJsonResponse(exchange, 200, Map.of("balance", balance));
-					return;
-				}
+			String etag = RecordVersions.etag(accountVersions, accountNum);
+			if (notModified(exchange, etag)) {
+				return;
+			}
+			Double balance = balanceReads.load(accountNum + etag, () -> loadBalance(accountNum));
+			if (balance != null) {
+				sendJsonResponse(exchange, 200, Map.of("balance", balance));
+				return;
 			}
 			sendJsonResponse(exchange, 404, Map.of("error", "Account not found"));
 		}
 		
+		// balance on file, or null if there is no such account
+		private Double loadBalance(String accountNum) {
+			AccountCache.Record account = accountCache.get(accountNum);
+			return account == null ? null : account.getBalance();
+		}
+		
 		private void handleUpdatePin(HttpExchange exchange) throws IOException {
 			JsonObject body = readJsonBody(exchange);
 			String accountNum = body.get("accountNumber").getAsString();
 			String newPin = body.get("pin").getAsString();
 			
-			boolean success = writePin(accountNum, newPin);
+			// the If-Match check and the write happen under one lock
+			boolean success;
+			try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+				if (preconditionFailed(exchange, RecordVersions.etag(accountVersions, accountNum))) {
+					held.unchanged();
+					return;
+				}
+				// writePin reports the record it writes
+				success = writePin(accountNum, newPin);
+				held.unchanged();
+			}
 			if (success) {
+				CredentialIndex.forFile(accountFile).put(accountNum, newPin);
 				LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.updateAccount,
-						"REST API PIN update",
-						java.time.LocalDateTime.now().toString()));
+						"REST API PIN update"));
 				sendJsonResponse(exchange, 200, Map.of("success", true));
 			} else {
 				sendJsonResponse(exchange, 400, Map.of("success", false, "error", "PIN update failed"));
@@ -403,8 +525,13 @@ public class RestApiServer {
 			String email = body.get("email").getAsString();
 			
 			String profileLine = username + "," + password + "," + name + "," + phone + "," + address + "," + email + ",0,[]";
-			try (PrintWriter writer = new PrintWriter(new FileWriter(proFile, true))) {
+			try (DataFileLock.Held held = DataFileLock.forFile(proFile).lockExclusive();
+					PrintWriter writer = new PrintWriter(new FileWriter(proFile, true))) {
 				writer.println(profileLine);
+				held.touched(username);
+				profileIndex.put(profileLine);
+				ownerIndex.putProfile(profileLine);
+				CredentialIndex.forFile(proFile).put(username, password);
 				sendJsonResponse(exchange, 200, Map.of("success", true));
 			} catch (Exception e) {
 				sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
@@ -421,43 +548,215 @@ public class RestApiServer {
 			}
 			
 			JsonObject body = readJsonBody(exchange);
-			String accountNum = body.get("accountNumber").getAsString();
 			String pin = body.get("pin").getAsString();
 			String type = body.get("type").getAsString();
 			double balance = body.get("initialBalance").getAsDouble();
 			
-			// Check if account already exists
-			String[] lines = parse(accountFile);
-			for (String line : lines) {
-				String[] data = line.split(",");
-				if (data.length >= 1 && accountNum.equals(data[0])) {
-					sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Account number already exists"));
-					return;
+			// Use the given account number, or allocate the next free one
+			AccountNumberAllocator allocator = AccountNumberAllocator.forFile(accountFile);
+			String requested = null;
+			if (body.has("accountNumber") && !body.get("accountNumber").getAsString().isBlank()) {
+				requested = body.get("accountNumber").getAsString().trim();
+				allocator.observe(Integer.parseInt(requested));
+			}
+			
+			// Check and append under one lock so two servers cannot both create the number
+			AccountFilter filter = AccountFilter.forFile(accountFile);
+			String accountNum;
+			String accountLine;
+			boolean exists;
+			try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+				if (requested != null) {
+					accountNum = requested;
+					exists = filter.exists(accountNum);
+				} else {
+					// a drawn number is skipped if it was typed in or imported while
+					// another server held its block
+					accountNum = String.valueOf(allocator.next());
+					while (filter.exists(accountNum)) {
+						accountNum = String.valueOf(allocator.next());
+					}
+					exists = false;
+				}
+				// Create account line: accountNum,pin,type,balance[,initialBalance for LOC]
+				accountLine = accountNum + "," + pin + "," + type + "," + balance;
+				if ("lineOfCredit".equals(type)) {
+					accountLine += "," + balance; // initialBalance for LOC
 				}
+				if (exists) {
+					// a refused number changes no record's version
+					held.unchanged();
+				} else {
+					try (PrintWriter writer = new PrintWriter(new FileWriter(accountFile, true))) {
+						writer.println(accountLine);
+					}
+					held.touched(accountNum);
+					accountCache.put(accountLine);
+				}
+			} catch (Exception e) {
+				sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
+				return;
+			}
+			if (exists) {
+				sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Account number already exists"));
+				return;
 			}
 			
-			// Create account line: accountNum,pin,type,balance[,initialBalance for LOC]
-			String accountLine = accountNum + "," + pin + "," + type + "," + balance;
-			if ("lineOfCredit".equals(type)) {
-				accountLine += "," + balance; // initialBalance for LOC
+			filter.add(Integer.parseInt(accountNum));
+			CredentialIndex.forFile(accountFile).put(accountNum, pin);
+			LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.updateAccount,
+					"REST API created account: " + type + " with balance " + balance));
+			sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Account created successfully",
+					"accountNumber", Integer.parseInt(accountNum)));
+		}
+		
+		private void handleBulkImport(HttpExchange exchange) throws IOException {
+			// Employee-only endpoint that streams a CSV/NDJSON file of accounts and profiles
+			String sessionId = getSessionId(exchange);
+			SessionData session = sessions.get(sessionId);
+			if (session == null || !"employee".equals(session.role)) {
+				sendJsonResponse(exchange, 403, Map.of("success", false, "error", "Only employees can import data"));
+				return;
 			}
 			
-			try (PrintWriter writer = new PrintWriter(new FileWriter(accountFile, true))) {
-				writer.println(accountLine);
-				LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.updateAccount,
-						"REST API created account: " + type + " with balance " + balance,
-						java.time.LocalDateTime.now().toString()));
-				sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Account created successfully"));
-			} catch (Exception e) {
-				sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
+			BulkImporter importer = new BulkImporter(accountFile, proFile, logFile)
+					.onProfile(profileIndex::put)
+					.onProfile(ownerIndex::putProfile)
+					.onProfile(CredentialIndex.forFile(proFile)::putLine)
+					.onAccount(line -> {
+						int num = Integer.parseInt(line.substring(0, line.indexOf(',')));
+						AccountNumberAllocator.forFile(accountFile).observe(num);
+						AccountFilter.forFile(accountFile).add(num);
+						CredentialIndex.forFile(accountFile).putLine(line);
+					});
+			BulkImporter.Result result;
+			try (Reader in = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+				result = importer.importFrom(in);
+			}
+			
+			Map<String, Object> response = new HashMap<>();
+			response.put("success", true);
+			response.put("accounts", result.getAccounts());
+			response.put("profiles", result.getProfiles());
+			response.put("duplicates", result.getDuplicates());
+			response.put("invalid", result.getInvalid());
+			response.put("elapsedMillis", result.getElapsedMillis());
+			response.put("recordsPerSecond", result.getRecordsPerSecond());
+			sendJsonResponse(exchange, 200, response);
+		}
+		
+		private void handleStats(HttpExchange exchange) throws IOException {
+			// Employee-only endpoint with internal counters of the in-memory structures
+			String sessionId = getSessionId(exchange);
+			SessionData session = sessions.get(sessionId);
+			if (session == null || !"employee".equals(session.role)) {
+				sendJsonResponse(exchange, 403, Map.of("error", "Only employees can view stats"));
+				return;
+			}
+			
+			Map<String, Object> stats = new HashMap<>();
+			stats.put("accountFilter", AccountFilter.forFile(accountFile).stats());
+			stats.put("writeCoalescer", coalescer.stats());
+			stats.put("accountCache", accountCache.stats());
+			stats.put("profileCache", profileAggregates.stats());
+			stats.put("profileSearch", profileIndex.stats());
+			stats.put("loginThrottle", loginThrottle.stats());
+			stats.put("logIndex", LogIndex.forFile(logFile).stats());
+			stats.put("auditRing", AuditRing.forFile(logFile).stats());
+			stats.put("balanceReads", balanceReads.stats());
+			stats.put("accountReads", accountReads.stats());
+			sendJsonResponse(exchange, 200, stats);
+		}
+		
+		private void handleMetrics(HttpExchange exchange) throws IOException {
+			// Request counts and latencies per route; Prometheus text unless JSON is asked for
+			String format = queryParam(exchange, "format");
+			String accept = exchange.getRequestHeaders().getFirst("Accept");
+			if ("json".equals(format) || format == null && accept != null && accept.startsWith("application/json")) {
+				sendJsonResponse(exchange, 200, metrics.json());
+				return;
 			}
+			byte[] body = metrics.prometheus().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			OutputStream os = exchange.getResponseBody();
+			os.write(body);
+			os.close();
 		}
 		
 		private void handleGetLogs(HttpExchange exchange) throws IOException {
-			String[] lines = parse(logFile);
+			String from = queryParam(exchange, "from");
+			String to = queryParam(exchange, "to");
+			if (from == null && to == null) {
+				String[] lines = parse(logFile);
+				sendJsonResponse(exchange, 200, Map.of("logs", lines));
+				return;
+			}
+			// a time range is looked up in the log index instead of reading the whole log
+			long fromMicros;
+			long toMicros;
+			try {
+				fromMicros = from == null ? Long.MIN_VALUE : CoarseClock.parse(from);
+				toMicros = to == null ? Long.MAX_VALUE : CoarseClock.parse(to);
+			} catch (java.time.format.DateTimeParseException e) {
+				sendJsonResponse(exchange, 400, Map.of("error", "from and to must look like 2025-12-01T09:30"));
+				return;
+			}
+			String limitParam = queryParam(exchange, "limit");
+			int limit = limitParam != null ? Integer.parseInt(limitParam) : 1000;
+			List<String> lines = LogIndex.forFile(logFile).between(fromMicros, toMicros, limit);
 			sendJsonResponse(exchange, 200, Map.of("logs", lines));
 		}
 		
+		private void handleRecentLogs(HttpExchange exchange) throws IOException {
+			// Employee-only dashboard query over the recent entries kept in memory
+			String sessionId = getSessionId(exchange);
+			SessionData session = sessions.get(sessionId);
+			if (session == null || !"employee".equals(session.role)) {
+				sendJsonResponse(exchange, 403, Map.of("error", "Only employees can view recent logs"));
+				return;
+			}
+			
+			String account = queryParam(exchange, "account");
+			String type = queryParam(exchange, "type");
+			String since = queryParam(exchange, "since");
+			String limitParam = queryParam(exchange, "limit");
+			List<String> lines = new ArrayList<>();
+			try {
+				for (LogEntry entry : AuditRing.forFile(logFile).recent(
+						account != null ? Integer.parseInt(account) : -1,
+						type != null ? LogType.valueOf(type) : null,
+						since != null ? CoarseClock.parse(since) : Long.MIN_VALUE,
+						limitParam != null ? Integer.parseInt(limitParam) : 100)) {
+					lines.add(entry.toString());
+				}
+			} catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+				sendJsonResponse(exchange, 400, Map.of("error", "Invalid account, type, since or limit"));
+				return;
+			}
+			sendJsonResponse(exchange, 200, Map.of("logs", lines));
+		}
+		
+		private void handleLogSummary(HttpExchange exchange) throws IOException {
+			// Employee-only counts and amounts per log type of the recent entries
+			String sessionId = getSessionId(exchange);
+			SessionData session = sessions.get(sessionId);
+			if (session == null || !"employee".equals(session.role)) {
+				sendJsonResponse(exchange, 403, Map.of("error", "Only employees can view recent logs"));
+				return;
+			}
+			
+			String since = queryParam(exchange, "since");
+			long sinceMicros;
+			try {
+				sinceMicros = since != null ? CoarseClock.parse(since) : Long.MIN_VALUE;
+			} catch (java.time.format.DateTimeParseException e) {
+				sendJsonResponse(exchange, 400, Map.of("error", "since must look like 2025-12-01T09:30"));
+				return;
+			}
+			sendJsonResponse(exchange, 200, Map.of("summary", AuditRing.forFile(logFile).summary(sinceMicros)));
+		}
+		
 		private void handleSearchAccount(HttpExchange exchange) throws IOException {
 			// Employee-only endpoint to search for an account by number
 			String sessionId = getSessionId(exchange);
@@ -474,50 +773,31 @@ public class RestApiServer {
 			}
 			String accountNum = query.split("accountNumber=")[1].split("&")[0];
 			
-			// Search for the account
-			String[] accountLines = parse(accountFile);
-			Map<String, Object> accountData = null;
-			for (String line : accountLines) {
-				String[] data = line.split(",");
-				if (data.length >= 4 && data[0].equals(accountNum)) {
-					accountData = new HashMap<>();
-					accountData.put("accountNumber", Integer.parseInt(data[0]));
-					accountData.put("pin", data[1]);
-					accountData.put("type", data[2]);
-					accountData.put("balance", Double.parseDouble(data[3]));
-					break;
-				}
+			// The tag covers the account and the profile it is linked to, if any
+			String owner = ownerIndex.ownerOf(Integer.parseInt(accountNum));
+			String etag = owner != null
+					? RecordVersions.etag(accountVersions, accountNum, profileVersions, owner)
+					: RecordVersions.etag(accountVersions, accountNum);
+			if (notModified(exchange, etag)) {
+				return;
 			}
 			
-			if (accountData == null) {
+			// Search for the account
+			AccountCache.Record account = accountCache.get(accountNum);
+			if (account == null) {
 				sendJsonResponse(exchange, 404, Map.of("found", false, "error", "Account not found"));
 				return;
 			}
 			
-			// Find associated profile (if any)
-			String[] profileLines = parse(proFile);
+			// Find associated profile (if any) through the reverse index
 			Map<String, Object> profileData = null;
-			for (String line : profileLines) {
-				String[] fields = line.split(",");
-				if (fields.length >= 8) {
-					// Check if this profile has this account linked
-					String accountsField = fields.length > 7 ? fields[7] : "[]";
-					if (accountsField.contains(accountNum)) {
-						profileData = new HashMap<>();
-						profileData.put("username", fields[0]);
-						profileData.put("name", fields.length > 2 ? fields[2] : "");
-						profileData.put("phone", fields.length > 3 ? fields[3] : "");
-						profileData.put("address", fields.length > 4 ? fields[4] : "");
-						profileData.put("email", fields.length > 5 ? fields[5] : "");
-						profileData.put("creditScore", fields.length > 6 ? fields[6] : "0");
-						break;
-					}
-				}
+			if (owner != null) {
+				profileData = profileIndex.get(owner);
 			}
 			
 			Map<String, Object> response = new HashMap<>();
 			response.put("found", true);
-			response.put("account", accountData);
+			response.put("account", accountToMap(account));
 			response.put("profile", profileData);
 			sendJsonResponse(exchange, 200, response);
 		}
@@ -532,11 +812,23 @@ public class RestApiServer {
 			}
 			
 			String query = exchange.getRequestURI().getQuery();
+			// free text search over name, username, email, phone and address
+			String q = queryParam(exchange, "q");
+			if (q != null) {
+				String limitParam = queryParam(exchange, "limit");
+				int limit = limitParam != null ? Integer.parseInt(limitParam) : 20;
+				List<Map<String, Object>> results = profileIndex.search(q, limit);
+				sendJsonResponse(exchange, 200, Map.of("found", !results.isEmpty(), "results", results));
+				return;
+			}
 			if (query == null || !query.contains("username=")) {
-				sendJsonResponse(exchange, 400, Map.of("error", "Missing username parameter"));
+				sendJsonResponse(exchange, 400, Map.of("error", "Missing username or q parameter"));
 				return;
 			}
 			String username = query.split("username=")[1].split("&")[0];
+			if (notModified(exchange, RecordVersions.etag(profileVersions, username))) {
+				return;
+			}
 			
 			String[] profileLines = parse(proFile);
 			for (String line : profileLines) {
@@ -577,46 +869,49 @@ public class RestApiServer {
 			String newPassword = body.has("password") && !body.get("password").isJsonNull() 
 				? body.get("password").getAsString() : null;
 			
-			String[] profileLines = parse(proFile);
-			boolean found = false;
+			// read, change and write back under one lock so no other process writes in between
+			try (DataFileLock.Held held = DataFileLock.forFile(proFile).lockExclusive()) {
+				if (preconditionFailed(exchange, RecordVersions.etag(profileVersions, username))) {
+					held.unchanged();
+					return;
+				}
+				String[] profileLines = parse(proFile);
+				boolean found = false;
+				String updatedLine = null;
 			
-			for (int i = 0; i < profileLines.length; i++) {
-				String[] fields = profileLines[i].split(",");
-				if (fields.length >= 2 && fields[0].equals(username)) {
-					found = true;
-					
-					// Update fields - profile format: username,password,name,phone,address,email,creditScore,accounts
-					String updatedPassword = (newPassword != null && !newPassword.isEmpty()) ? newPassword : fields[1];
-					String updatedName = (name != null) ? name : (fields.length > 2 ? fields[2] : "");
-					String updatedPhone = (phone != null) ? phone : (fields.length > 3 ? fields[3] : "");
-					String updatedAddress = (address != null) ? address : (fields.length > 4 ? fields[4] : "");
-					String updatedEmail = (email != null) ? email : (fields.length > 5 ? fields[5] : "");
-					String updatedCreditScore = (creditScore != null) ? creditScore : (fields.length > 6 ? fields[6] : "0");
-					String linkedAccounts = fields.length > 7 ? fields[7] : "[]";
-					
-					profileLines[i] = username + "," + updatedPassword + "," + updatedName + "," + 
-						updatedPhone + "," + updatedAddress + "," + updatedEmail + "," + 
-						updatedCreditScore + "," + linkedAccounts;
-					break;
+				for (int i = 0; i < profileLines.length; i++) {
+					if (profileLines[i].startsWith(username + ",")) {
+						found = true;
+						profileLines[i] = updatedProfileLine(profileLines[i], newPassword, name, phone, address, email,
+								creditScore);
+						updatedLine = profileLines[i];
+						break;
+					}
 				}
-			}
 			
-			if (!found) {
-				sendJsonResponse(exchange, 404, Map.of("success", false, "error", "Profile not found"));
-				return;
-			}
+				if (!found) {
+					held.unchanged();
+					sendJsonResponse(exchange, 404, Map.of("success", false, "error", "Profile not found"));
+					return;
+				}
 			
-			// Write updated profiles back
-			try (PrintWriter writer = new PrintWriter(proFile)) {
-				for (String line : profileLines) {
-					writer.println(line);
+				// Write updated profiles back; a write that fails part way is published as a whole-file change
+				try (PrintWriter writer = new PrintWriter(proFile)) {
+					for (String line : profileLines) {
+						writer.println(line);
+					}
+					held.touched(username);
+					profileIndex.put(updatedLine);
+					ownerIndex.putProfile(updatedLine);
+					if (newPassword != null && !newPassword.isEmpty()) {
+						CredentialIndex.forFile(proFile).put(username, newPassword);
+					}
+					LogEntry.appendToLog(logFile, new LogEntry(0, LogType.updateAccount,
+							"REST API updated profile: " + username));
+					sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Profile updated successfully"));
+				} catch (Exception e) {
+					sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
 				}
-				LogEntry.appendToLog(logFile, new LogEntry(0, LogType.updateAccount,
-						"REST API updated profile: " + username,
-						java.time.LocalDateTime.now().toString()));
-				sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Profile updated successfully"));
-			} catch (Exception e) {
-				sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
 			}
 		}
 		
@@ -633,15 +928,19 @@ public class RestApiServer {
 			String accountNum = body.get("accountNumber").getAsString();
 			String username = body.get("username").getAsString();
 			
-			// Verify account exists
-			String[] accountLines = parse(accountFile);
+			// Verify account exists; a filter miss means it definitely does not
+			AccountFilter filter = AccountFilter.forFile(accountFile);
 			boolean accountExists = false;
-			for (String line : accountLines) {
-				String[] data = line.split(",");
-				if (data.length >= 1 && data[0].equals(accountNum)) {
-					accountExists = true;
-					break;
+			if (filter.mightContain(accountNum)) {
+				String[] accountLines = parse(accountFile);
+				for (String line : accountLines) {
+					String[] data = line.split(",");
+					if (data.length >= 1 && data[0].equals(accountNum)) {
+						accountExists = true;
+						break;
+					}
 				}
+				filter.confirm(accountExists);
 			}
 			
 			if (!accountExists) {
@@ -649,60 +948,76 @@ public class RestApiServer {
 				return;
 			}
 			
-			// Update profile to include this account
-			String[] profileLines = parse(proFile);
-			boolean profileFound = false;
-			for (int i = 0; i < profileLines.length; i++) {
-				String[] fields = profileLines[i].split(",");
-				if (fields.length >= 2 && fields[0].equals(username)) {
-					profileFound = true;
-					// Parse existing accounts array
-					String accountsField = fields.length > 7 ? fields[7] : "[]";
-					if (accountsField.contains(accountNum)) {
-						sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Account already linked to this profile"));
-						return;
-					}
+			// read, change and write back under one lock so no other process writes in between
+			try (DataFileLock.Held held = DataFileLock.forFile(proFile).lockExclusive()) {
+				if (preconditionFailed(exchange, RecordVersions.etag(profileVersions, username))) {
+					held.unchanged();
+					return;
+				}
+				// Update profile to include this account
+				String[] profileLines = parse(proFile);
+				boolean profileFound = false;
+				for (int i = 0; i < profileLines.length; i++) {
+					String[] fields = profileLines[i].split(",");
+					if (fields.length >= 2 && fields[0].equals(username)) {
+						profileFound = true;
+						// Parse existing accounts array
+						String accountsField = fields.length > 7 ? profileLines[i].split(",", 8)[7] : "[]";
+						if (username.equals(ownerIndex.ownerOf(Integer.parseInt(accountNum)))) {
+							held.unchanged();
+							sendJsonResponse(exchange, 400, Map.of("success", false, "error", "Account already linked to this profile"));
+							return;
+						}
 					
-					// Add account to the list
-					if (accountsField.equals("[]")) {
-						accountsField = "[" + accountNum + "]";
-					} else {
-						accountsField = accountsField.substring(0, accountsField.length() - 1) + "," + accountNum + "]";
-					}
+						// Add account to the list
+						if (accountsField.equals("[]")) {
+							accountsField = "[" + accountNum + "]";
+						} else {
+							accountsField = accountsField.substring(0, accountsField.length() - 1) + "," + accountNum + "]";
+						}
 					
-					// Rebuild the profile line
-					StringBuilder newLine = new StringBuilder();
-					for (int j = 0; j < 7 && j < fields.length; j++) {
-						if (j > 0) newLine.append(",");
-						newLine.append(fields[j]);
-					}
-					// Ensure we have 7 fields
-					for (int j = fields.length; j < 7; j++) {
-						newLine.append(",");
-						if (j == 6) newLine.append("0"); // creditScore
+						// Rebuild the profile line
+						StringBuilder newLine = new StringBuilder();
+						for (int j = 0; j < 7 && j < fields.length; j++) {
+							if (j > 0) newLine.append(",");
+							newLine.append(fields[j]);
+						}
+						// Ensure we have 7 fields
+						for (int j = fields.length; j < 7; j++) {
+							newLine.append(",");
+							if (j == 6) newLine.append("0"); // creditScore
+						}
+						newLine.append(",").append(accountsField);
+						profileLines[i] = newLine.toString();
+						break;
 					}
-					newLine.append(",").append(accountsField);
-					profileLines[i] = newLine.toString();
-					break;
 				}
-			}
 			
-			if (!profileFound) {
-				sendJsonResponse(exchange, 404, Map.of("success", false, "error", "Profile not found"));
-				return;
-			}
+				if (!profileFound) {
+					held.unchanged();
+					sendJsonResponse(exchange, 404, Map.of("success", false, "error", "Profile not found"));
+					return;
+				}
 			
-			// Write updated profiles back
-			try (PrintWriter writer = new PrintWriter(proFile)) {
-				for (String line : profileLines) {
-					writer.println(line);
+				// Write updated profiles back
+				try (PrintWriter writer = new PrintWriter(proFile)) {
+					for (String line : profileLines) {
+						writer.println(line);
+					}
+					held.touched(username);
+					for (String line : profileLines) {
+						if (line.startsWith(username + ",")) {
+							profileIndex.put(line);
+							ownerIndex.putProfile(line);
+							break;
+						}
+					}
+					LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.updateAccount,
+							"REST API linked account to profile: " + username));
+					sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Account linked successfully"));
+				} catch (Exception e) {
+					sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
 				}
-				LogEntry.appendToLog(logFile, new LogEntry(Integer.parseInt(accountNum), LogType.updateAccount,
-						"REST API linked account to profile: " + username,
-						java.time.LocalDateTime.now().toString()));
-				sendJsonResponse(exchange, 200, Map.of("success", true, "message", "Account linked successfully"));
-			} catch (Exception e) {
-				sendJsonResponse(exchange, 500, Map.of("success", false, "error", e.getMessage()));
 			}
 		}
 		
@@ -723,6 +1038,56 @@ public class RestApiServer {
 			os.close();
 		}
 		
+		/**
+		 * Sets the ETag header and, if the client's If-None-Match already names
+		 * it, answers 304 with no body. Call before reading any data file.
+		 */
+		private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+			exchange.getResponseHeaders().set("ETag", etag);
+			if (RecordVersions.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return true;
+			}
+			return false;
+		}
+		
+		// the client's IP address, which the login throttle counts failures by
+		private static String clientAddress(HttpExchange exchange) {
+			return exchange.getRemoteAddress().getAddress().getHostAddress();
+		}
+		
+		/**
+		 * Answers 429 with a Retry-After (in seconds) if logins with this
+		 * credential, or any login from this address, failed too often lately.
+		 * Call before checking the credential.
+		 */
+		private boolean throttled(HttpExchange exchange, String credential, String address) throws IOException {
+			long wait = loginThrottle.retryAfter(credential, address);
+			if (wait == 0) {
+				return false;
+			}
+			long seconds = (wait + 999) / 1000;
+			exchange.getResponseHeaders().set("Retry-After", String.valueOf(seconds));
+			sendJsonResponse(exchange, 429, Map.of("success", false, "error", "Too many failed logins",
+					"retryAfterSeconds", seconds));
+			return true;
+		}
+		
+		/**
+		 * Answers 412 if the client sent an If-Match for a version that is no
+		 * longer current. Call while holding the exclusive lock for the write.
+		 */
+		private boolean preconditionFailed(HttpExchange exchange, String etag) throws IOException {
+			String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+			if (ifMatch == null || RecordVersions.matches(ifMatch, etag)) {
+				return false;
+			}
+			exchange.getResponseHeaders().set("ETag", etag);
+			sendJsonResponse(exchange, 412, Map.of("success", false, "error", "Record was changed since it was read"));
+			return true;
+		}
+		
 		private String getSessionId(HttpExchange exchange) {
 			String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
 			if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -731,98 +1096,67 @@ public class RestApiServer {
 			return null;
 		}
 		
+		// URL-decoded value of a query string parameter, or null if absent
+		private String queryParam(HttpExchange exchange, String name) {
+			String query = exchange.getRequestURI().getRawQuery();
+			if (query == null) {
+				return null;
+			}
+			for (String pair : query.split("&")) {
+				int eq = pair.indexOf('=');
+				if (eq > 0 && pair.substring(0, eq).equals(name)) {
+					return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+				}
+			}
+			return null;
+		}
+		
 		private String generateSessionId() {
 			return java.util.UUID.randomUUID().toString();
 		}
 		
 		private String[] parse(File file) {
-			try {
-				Scanner scan = new Scanner(file);
-				String data = "";
-				while (scan.hasNextLine()) {
-					data += scan.nextLine() + "\n";
-				}
-				scan.close();
-				if (data.equals("")) {
-					return new String[0];
+			// wait for any writer so we never read a half-written file
+			BankEvents.StorageAccess event = BankEvents.beginStorage();
+			try (DataFileLock.Held held = DataFileLock.forFile(file).lockShared();
+					RecordReader reader = new RecordReader(file)) {
+				List<String> lines = new ArrayList<>();
+				while (reader.next()) {
+					lines.add(reader.line());
 				}
-				return data.split("\n");
+				BankEvents.storage(event, file, "read", 0, lines.size(), "ok");
+				return lines.toArray(new String[0]);
 			} catch (Exception e) {
+				BankEvents.storage(event, file, "read", 0, 0, "failed");
 				return new String[0];
 			}
 		}
 		
-		private boolean fileDeposit(String accountNum, double amount) {
-			String[] lines = parse(accountFile);
-			for (int i = 0; i < lines.length; i++) {
-				String[] info = lines[i].split(",");
-				if (info.length >= 4 && info[0].equals(accountNum)) {
-					double balance = Double.parseDouble(info[3]);
-					balance += amount;
-					info[3] = String.valueOf(balance);
-					lines[i] = String.join(",", info);
-					try (PrintWriter write = new PrintWriter(accountFile)) {
-						for (String line : lines) {
-							write.println(line);
-						}
-					} catch (Exception e) {
-						return false;
-					}
-					return true;
-				}
-			}
-			return false;
-		}
-		
-		private boolean fileWithdrawal(String accountNum, double amount) {
-			String[] lines = parse(accountFile);
-			for (int i = 0; i < lines.length; i++) {
-				String[] info = lines[i].split(",");
-				if (info.length >= 4 && info[0].equals(accountNum)) {
-					double balance = Double.parseDouble(info[3]);
-					if (balance < amount) {
-						return false;
-					}
-					balance -= amount;
-					info[3] = String.valueOf(balance);
-					lines[i] = String.join(",", info);
-					try (PrintWriter write = new PrintWriter(accountFile)) {
-						for (String line : lines) {
-							write.println(line);
-						}
-					} catch (Exception e) {
-						return false;
-					}
-					return true;
-				}
-			}
-			return false;
-		}
-		
 		private boolean writePin(String accountNum, String newPin) {
-			String[] lines = parse(accountFile);
-			for (int i = 0; i < lines.length; i++) {
-				String[] info = lines[i].split(",");
-				if (info.length >= 2 && info[0].equals(accountNum)) {
-					info[1] = newPin;
-					lines[i] = String.join(",", info);
-					try (PrintWriter write = new PrintWriter(accountFile)) {
-						for (String line : lines) {
-							write.println(line);
+			// read, change and write back under one lock so no other process writes in between
+			try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+				String[] lines = parse(accountFile);
+				for (int i = 0; i < lines.length; i++) {
+					String[] info = lines[i].split(",");
+					if (info.length >= 2 && info[0].equals(accountNum)) {
+						info[1] = newPin;
+						lines[i] = String.join(",", info);
+						// a write that fails part way is published as a whole-file change
+						try (PrintWriter write = new PrintWriter(accountFile)) {
+							for (String line : lines) {
+								write.println(line);
+							}
+						} catch (Exception e) {
+							return false;
 						}
-					} catch (Exception e) {
-						return false;
+						held.touched(accountNum);
+						accountCache.put(lines[i]);
+						return true;
 					}
-					return true;
 				}
+				held.unchanged();
+				return false;
 			}
-			return false;
-		}
-		
-		private int[] extractAccountNumbers(String profileLine) {
-			// Parse accounts from profile line (format: username,password,name,...,accounts)
-			// For now, return empty - accounts are loaded separately
-			return new int[0];
 		}
 		
 		private Map<String, Object> profileToMap(Profile p) {
@@ -843,6 +1177,15 @@ public class RestApiServer {
 			map.put("type", a.getType().toString());
 			return map;
 		}
+		
+		private Map<String, Object> accountToMap(AccountCache.Record account) {
+			Map<String, Object> map = new HashMap<>();
+			map.put("accountNumber", account.getNumber());
+			map.put("pin", account.getPin());
+			map.put("type", account.getType());
+			map.put("balance", account.getBalance());
+			return map;
+		}
 	}
 	
 	static class SessionData {
@@ -3,7 +3,8 @@ package group3;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
 
 import javax.swing.JOptionPane;
@@ -24,6 +25,12 @@ public class Server {
 			// confirmation message
 			System.out.println("Server is running ");
 
+			// pick up hand edits to employees.txt and profiles.txt
+			new DataFileWatcher(proFile.getParentFile())
+					.watch(employeeFile, CredentialIndex.forFile(employeeFile)::reload)
+					.watch(proFile, CredentialIndex.forFile(proFile)::reload)
+					.start();
+
 			var pool = Executors.newFixedThreadPool(20);
 
 			// listening loop
@@ -47,6 +54,8 @@ class ClientHandler implements Runnable {
 	private static File employeeFile;
 	private static File proFile;
 	private static File accountFile;
+	private static AccountTransfer transfers;
+	private static AccountWriteCoalescer coalescer;
 
 	// Stream references for sending responses
 	private ObjectInputStream inputStream;
@@ -56,6 +65,12 @@ class ClientHandler implements Runnable {
 	private boolean atmLoggedIn = false;
 	private String currentAccountNum = null;
 	private double currentBalance = 0.0;
+	// status of the last response sent, for the request's flight recorder event and trace
+	private MessageStatus lastStatus;
+	// the trace of the request being handled; replies carry its id
+	private long traceId;
+	// when the connection was accepted; until a pool thread picks it up it waits in the queue
+	private final long acceptedNanos = System.nanoTime();
 
 	// constructor takes the socket connection
 	public ClientHandler(Socket s, File employees, File log, File profiles, File accounts) {
@@ -64,6 +79,8 @@ class ClientHandler implements Runnable {
 		employeeFile = employees;
 		proFile = profiles;
 		accountFile = accounts;
+		transfers = new AccountTransfer(accounts, log);
+		coalescer = AccountWriteCoalescer.forFile(accounts, log);
 	}
 
 	@Override
@@ -79,6 +96,8 @@ class ClientHandler implements Runnable {
 			this.outputStream = out;
 
 			Message msg = null;
+			// the pool's queue wait is charged to the first request of the connection
+			long queueNanos = System.nanoTime() - acceptedNanos;
 			// In headless / server environments, avoid GUI popups – just log to console
 			System.out.println("New client connection established: " + socket.getRemoteSocketAddress());
 
@@ -96,19 +115,40 @@ class ClientHandler implements Runnable {
 
 				// check if it is from the ATM or Teller
 				Application sender = msg.getSender();
-				// if the ATM sent the message call ATM()
-				if (sender == Application.ATM) {
-					System.out.println("ATM Message: " + msg.getType());
-					ATM(msg);
-				}
-				// if the Teller sent the message call Teller()
-				else if (sender == Application.teller) {
-					Teller(msg);
-				}
-				// if the sender isn't AtM or Teller
-				else {
+				// if the sender isn't ATM or Teller
+				if (sender != Application.ATM && sender != Application.teller) {
 					continue;
 				}
+				BankEvents.SocketRequest event = new BankEvents.SocketRequest();
+				event.begin();
+				lastStatus = null;
+				traceId = msg.getTraceId();
+				int account = parseAccountNumSafe(msg.getNum() != null ? msg.getNum() : currentAccountNum);
+				RequestTrace trace = RequestTrace.begin(msg, account, queueNanos);
+				queueNanos = 0;
+				String outcome = "error";
+				try {
+					// if the ATM sent the message call ATM()
+					if (sender == Application.ATM) {
+						System.out.println("ATM Message: " + msg.getType());
+						ATM(msg);
+					}
+					// if the Teller sent the message call Teller()
+					else {
+						Teller(msg);
+					}
+					outcome = lastStatus != null ? lastStatus.name() : "none";
+				} finally {
+					trace.end(outcome);
+					event.end();
+					if (event.shouldCommit()) {
+						event.type = String.valueOf(msg.getType());
+						event.sender = String.valueOf(sender);
+						event.account = account;
+						event.outcome = outcome;
+						event.commit();
+					}
+				}
 			}
 		} catch (java.io.EOFException e) {
 			// Client disconnected 
@@ -121,61 +161,76 @@ class ClientHandler implements Runnable {
 	}
 
 	private String[] parse(File file) {
-		try {
-			// scanner reads file
-			Scanner scan = new Scanner(file);
-			String data = "";
-
-			// read file into the String
-			while (scan.hasNextLine()) {
-				data += scan.nextLine() + "\n";
-			}
-			// done with scanner
-			scan.close();
-
-			// if file is empty return null
-			if (data.equals("")) {
-				return new String[0];
+		// wait for any writer so we never read a half-written file
+		BankEvents.StorageAccess event = BankEvents.beginStorage();
+		try (DataFileLock.Held held = DataFileLock.forFile(file).lockShared();
+				RecordReader reader = new RecordReader(file)) {
+			// collect the lines in one pass over the file
+			List<String> lines = new ArrayList<>();
+			while (reader.next()) {
+				lines.add(reader.line());
 			}
-
-			// split on newline, return arrau
-			return data.split("\n");
+			BankEvents.storage(event, file, "read", 0, lines.size(), "ok");
+			return lines.toArray(new String[0]);
 
 		} catch (Exception e) {
+			BankEvents.storage(event, file, "read", 0, 0, "failed");
 			JOptionPane.showMessageDialog(null, e);
 			return null;
 		}
 
 	}
 
+	// the IP address of the connected client, which the login throttle counts failures by
+	private String clientAddress() {
+		return socket.getInetAddress().getHostAddress();
+	}
+
 	// handles ATM related messages
 	private void ATM(Message msg) throws Exception {
 		switch (msg.getType()) {
 		case customerLogin:
 			// Parse credentials
 			String[] creds = msg.getText().split(",");
-			java.util.Scanner scanner = new java.util.Scanner(accountFile);
-			while (scanner.hasNextLine()) {
-				String[] data = scanner.nextLine().split(",");
-				if (data.length >= 4 && data[0].equals(msg.getNum()) && data[1].equals(creds[1])) {
+			String atmCredential = "atm:" + msg.getNum();
+			// repeated failures are turned away before any lookup
+			long wait = LoginThrottle.shared().retryAfter(atmCredential, clientAddress());
+			if (wait > 0) {
+				sendResponse(MessageStatus.denial, "Too many failed logins, retry in " + (wait + 999) / 1000 + "s");
+				break;
+			}
+			// unknown account numbers are denied without reading the accounts file
+			AccountFilter filter = AccountFilter.forFile(accountFile);
+			if (!filter.mightContain(msg.getNum())) {
+				LoginThrottle.shared().failed(atmCredential, clientAddress());
+				sendResponse(MessageStatus.denial, "Invalid credentials");
+				LogEntry.appendToLog(logFile,
+						new LogEntry(parseAccountNumSafe(msg.getNum()), LogType.login, "ATM login failed"));
+				break;
+			}
+			CredentialIndex pins = CredentialIndex.forFile(accountFile);
+			if (creds.length >= 2 && pins.verify(msg.getNum(), creds[1])) {
+				// PIN checked against the index; the balance comes from the account cache
+				AccountCache.Record account = AccountCache.forFile(accountFile).get(msg.getNum());
+				if (account != null) {
+					LoginThrottle.shared().succeeded(atmCredential, clientAddress());
 					atmLoggedIn = true;
 					currentAccountNum = msg.getNum();
-					currentBalance = Double.parseDouble(data[3]);
+					currentBalance = account.getBalance();
 					sendResponse(MessageStatus.confirmation, "Login successful");
 					// log successful ATM login
 					LogEntry.appendToLog(logFile,
 							new LogEntry(Integer.parseInt(currentAccountNum), LogType.login,
-									"ATM login successful", java.time.LocalDateTime.now().toString()));
-					scanner.close();
+									"ATM login successful"));
 					return;
 				}
 			}
-			scanner.close();
+			filter.confirm(pins.contains(msg.getNum()));
+			LoginThrottle.shared().failed(atmCredential, clientAddress());
 			sendResponse(MessageStatus.denial, "Invalid credentials");
 			// log failed ATM login
 			LogEntry.appendToLog(logFile,
-					new LogEntry(parseAccountNumSafe(msg.getNum()), LogType.login, "ATM login failed",
-							java.time.LocalDateTime.now().toString()));
+					new LogEntry(parseAccountNumSafe(msg.getNum()), LogType.login, "ATM login failed"));
 			break;
 
 		case withdrawal:
@@ -188,20 +243,19 @@ class ClientHandler implements Runnable {
 				sendResponse(MessageStatus.denial, "Invalid amount");
 				break;
 			}
-			if (withdrawAmt <= currentBalance) {
-				double newBalance = currentBalance - withdrawAmt;
-				if (atmUpdateBalance(currentAccountNum, newBalance)) {
-					currentBalance = newBalance;
+			{
+				// the change is applied to the balance on file, not the one seen at login
+				AccountWriteCoalescer.Update update = coalescer.withdraw(currentAccountNum, withdrawAmt,
+						"ATM withdrew " + withdrawAmt);
+				if (update.isDone()) {
+					currentBalance = update.getBalance();
 					sendResponse(MessageStatus.confirmation, "Withdrawn. Balance: $" + currentBalance);
-					LogEntry.appendToLog(logFile,
-							new LogEntry(Integer.parseInt(currentAccountNum), LogType.withdrawal,
-									"ATM withdrew " + withdrawAmt + ", new balance " + currentBalance,
-									java.time.LocalDateTime.now().toString()));
+				} else if (update.getStatus() == AccountTransfer.Status.insufficientFunds) {
+					currentBalance = update.getBalance();
+					sendResponse(MessageStatus.denial, "Insufficient funds");
 				} else {
 					sendResponse(MessageStatus.denial, "Server error");
 				}
-			} else {
-				sendResponse(MessageStatus.denial, "Insufficient funds");
 			}
 			break;
 
@@ -216,27 +270,44 @@ class ClientHandler implements Runnable {
 				break;
 			}
 			{
-				double newBalance = currentBalance + depositAmt;
-				if (atmUpdateBalance(currentAccountNum, newBalance)) {
-					currentBalance = newBalance;
+				AccountWriteCoalescer.Update update = coalescer.deposit(currentAccountNum, depositAmt,
+						"ATM deposited " + depositAmt);
+				if (update.isDone()) {
+					currentBalance = update.getBalance();
 					sendResponse(MessageStatus.confirmation, "Deposited. Balance: $" + currentBalance);
-					LogEntry.appendToLog(logFile,
-							new LogEntry(Integer.parseInt(currentAccountNum), LogType.deposit,
-									"ATM deposited " + depositAmt + ", new balance " + currentBalance,
-									java.time.LocalDateTime.now().toString()));
 				} else {
 					sendResponse(MessageStatus.denial, "Server error");
 				}
 			}
 			break;
 
+		case transfer:
+			if (!atmLoggedIn || currentAccountNum == null) {
+				sendResponse(MessageStatus.denial, "Not logged in");
+				break;
+			}
+			{
+				// text is "toAccount,amount"; money always leaves the logged in account
+				String[] target = msg.getText().split(",");
+				AccountTransfer.Result result = target.length == 2
+						? transfers.transfer(currentAccountNum, target[0].trim(), parseAmount(target[1]), "ATM")
+						: null;
+				if (result != null && result.isDone()) {
+					currentBalance = result.getFromBalance();
+					sendResponse(MessageStatus.confirmation, "Transferred. Balance: $" + currentBalance);
+				} else {
+					sendResponse(MessageStatus.denial, result == null ? "Invalid amount" : "Transfer failed: " + result.getStatus());
+				}
+			}
+			break;
+
 		case logout:
 			atmLoggedIn = false;
 			currentAccountNum = null;
 			currentBalance = 0;
 			sendResponse(MessageStatus.confirmation, "Logged out");
 			LogEntry.appendToLog(logFile,
-					new LogEntry(0, LogType.logout, "ATM logout", java.time.LocalDateTime.now().toString()));
+					new LogEntry(0, LogType.logout, "ATM logout"));
 			break;
 
 		default:
@@ -245,6 +316,11 @@ class ClientHandler implements Runnable {
 				if (!atmLoggedIn || currentAccountNum == null) {
 					sendResponse(MessageStatus.denial, "Not logged in");
 				} else {
+					// the balance on file, which other tellers and transfers may have changed
+					AccountCache.Record account = AccountCache.forFile(accountFile).get(currentAccountNum);
+					if (account != null) {
+						currentBalance = account.getBalance();
+					}
 					sendResponse(MessageStatus.confirmation, String.valueOf(currentBalance));
 				}
 			}
@@ -252,47 +328,13 @@ class ClientHandler implements Runnable {
 		}
 	}
 
-	/**
-	 * Helper used by ATM operations to persist a new balance for the current
-	 * account back to the accounts file.
-	 */
-	private boolean atmUpdateBalance(String accountNum, double newBalance) {
-		boolean worked = false;
-		String[] lines = parse(accountFile);
-		if (lines == null) {
-			return false;
-		}
-
-		for (int i = 0; i < lines.length; i++) {
-			String line = lines[i];
-			String[] info = line.split(",");
-			if (info.length < 4) {
-				continue;
-			}
-			if (!info[0].equals(accountNum)) {
-				continue;
-			}
-			// update balance field
-			info[3] = String.valueOf(newBalance);
-			lines[i] = String.join(",", info);
-			worked = true;
-			break;
-		}
-
-		if (!worked) {
-			return false;
-		}
-
-		try (PrintWriter write = new PrintWriter(accountFile)) {
-			for (String line : lines) {
-				write.println(line);
-			}
-		} catch (IOException e) {
-			System.out.println(e.getMessage());
-			return false;
+	// amount from a message, NaN (rejected by every operation) if it is not a number
+	private double parseAmount(String text) {
+		try {
+			return Double.parseDouble(text.trim());
+		} catch (NumberFormatException e) {
+			return Double.NaN;
 		}
-
-		return true;
 	}
 
 	// safely parse an account number string, returning 0 on failure
@@ -308,7 +350,8 @@ class ClientHandler implements Runnable {
 	}
 
 	private void sendResponse(MessageStatus status, String text) throws Exception {
-		outputStream.writeObject(new Message(status, null, Application.ATM, currentAccountNum, text));
+		lastStatus = status;
+		outputStream.writeObject(new Message(status, null, Application.ATM, currentAccountNum, text, traceId));
 		outputStream.flush();
 	}
 
@@ -347,6 +390,10 @@ class ClientHandler implements Runnable {
 			updateProfile(msg);
 			break;
 
+		case transfer:
+			transfer(msg);
+			break;
+
 		default:
 			// ignore any other message type
 			break;
@@ -356,10 +403,11 @@ class ClientHandler implements Runnable {
 	}
 
 	private void sendMessage(MessageType type, MessageStatus status, String num, String text) {
+		lastStatus = status;
 		// try to write the response to the output stream
 		try {
 			// create a response message to the teller
-			Message response = new Message(status, type, Application.teller, num, text);
+			Message response = new Message(status, type, Application.teller, num, text, traceId);
 			// write to output + flush to send the data immediately
 			outputStream.writeObject(response);
 			outputStream.flush();
@@ -398,14 +446,17 @@ class ClientHandler implements Runnable {
 
 			// Append new profile line to profiles file in format:
 			// username,password,name,phone,address,email,creditScore,accounts
-			try (PrintWriter write = new PrintWriter(new FileWriter(proFile, true))) {
+			try (DataFileLock.Held held = DataFileLock.forFile(proFile).lockExclusive();
+					PrintWriter write = new PrintWriter(new FileWriter(proFile, true))) {
 				write.println(username + "," + password + "," + name + "," + phone + "," + address + "," + email + ","
 						+ creditScore + "," + accounts);
+				held.touched(username);
 			} catch (IOException e) {
 				// send denial if we could not write the new profile
 				sendMessage(MessageType.updateProfile, MessageStatus.denial, null, "error");
 				return;
 			}
+			CredentialIndex.forFile(proFile).put(username, password);
 
 			// send confirmation that the profile was created successfully
 			sendMessage(MessageType.updateProfile, MessageStatus.confirmation, null, "valid");
@@ -444,8 +495,7 @@ class ClientHandler implements Runnable {
 			// log PIN change on server
 			LogEntry.appendToLog(logFile,
 					new LogEntry(Integer.parseInt(accountNum), LogType.updateAccount,
-							"Teller changed PIN for account " + accountNum,
-							java.time.LocalDateTime.now().toString()));
+							"Teller changed PIN for account " + accountNum));
 			// if helper returned false, update failed (e.g., account not found)
 		} else {
 			// send denial message to Teller
@@ -455,52 +505,62 @@ class ClientHandler implements Runnable {
 	}
 
 	private boolean writePin(String accountNum, String newPin) {
-		boolean worked = false;
-		// read account file lines
-		String[] lines = parse(accountFile);
-
-		// loop through lines array to find account
-		for (int i = 0; i < lines.length; i++) {
-			// save the current line
-			String line = lines[i];
-			// split line into info strings
-			String[] info = line.split(",");
-
-			// check if the account number matches the account in info
-			if (!info[0].equals(accountNum)) {
-				// if not move on
-				continue;
+		// read, change and write back under one lock so no other process writes in between
+		try (DataFileLock.Held held = DataFileLock.forFile(accountFile).lockExclusive()) {
+			boolean worked = false;
+			String updatedLine = null;
+			// read account file lines
+			String[] lines = parse(accountFile);
+
+			// loop through lines array to find account
+			for (int i = 0; i < lines.length; i++) {
+				// save the current line
+				String line = lines[i];
+				// split line into info strings
+				String[] info = line.split(",");
+
+				// check if the account number matches the account in info
+				if (!info[0].equals(accountNum)) {
+					// if not move on
+					continue;
+				}
+				// set the PIN field to the new value
+				info[1] = newPin;
+				// rebuild the updated line as CSV
+				lines[i] = String.join(",", info);
+				updatedLine = lines[i];
+				// mark that we updated an account
+				worked = true;
+				// break out of the loop now that we are done
+				break;
 			}
-			// set the PIN field to the new value
-			info[1] = newPin;
-			// rebuild the updated line as CSV
-			lines[i] = String.join(",", info);
-			// mark that we updated an account
-			worked = true;
-			// break out of the loop now that we are done
-			break;
-		}
 
-		// if no account was changed, account not found
-		if (!worked) {
-			return false;
-		}
+			// if no account was changed, account not found
+			if (!worked) {
+				held.unchanged();
+				return false;
+			}
 
-		// try to write data to the accounts file
-		try (PrintWriter write = new PrintWriter(accountFile)) {
-			// for each line in lines
-			for (String line : lines) {
-				// write line to the file
-				write.println(line);
+			// try to write data to the accounts file
+			try (PrintWriter write = new PrintWriter(accountFile)) {
+				// for each line in lines
+				for (String line : lines) {
+					// write line to the file
+					write.println(line);
+				}
+			} catch (IOException e) {
+				// print error if write fails
+				System.out.println(e.getMessage());
+				return false;
 			}
-		} catch (IOException e) {
-			// print error if write fails
-			System.out.println(e.getMessage());
-			return false;
-		}
+			held.touched(accountNum);
+
+			CredentialIndex.forFile(accountFile).put(accountNum, newPin);
+			AccountCache.forFile(accountFile).put(updatedLine);
 
-		// return true for successful pin change + write
-		return true;
+			// return true for successful pin change + write
+			return true;
+		}
 	}
 
 	private void deposit(Message msg) {
@@ -520,17 +580,13 @@ class ClientHandler implements Runnable {
 			return;
 		}
 
-		// call to apply deposit to accounts file
-		boolean worked = fileDeposit(accountNum, amount);
+		// apply deposit to accounts file, batched with other changes; it is logged with the write
+		boolean worked = coalescer.deposit(accountNum, amount,
+				"Teller deposited " + amount).isDone();
 		// if true, deposit succeeded
 		if (worked) {
 			// send confirmation back to Teller
 			sendMessage(MessageType.deposit, MessageStatus.confirmation, accountNum, "valid");
-			// log teller deposit on server
-			LogEntry.appendToLog(logFile,
-					new LogEntry(Integer.parseInt(accountNum), LogType.deposit,
-							"Teller deposited " + amount + ", new balance updated in accounts file",
-							java.time.LocalDateTime.now().toString()));
 
 		} else {
 			// send denial to Teller
@@ -539,78 +595,6 @@ class ClientHandler implements Runnable {
 
 	}
 
-	private boolean fileDeposit(String accountNum, double amount) {
-		boolean worked = false;
-		// read account file lines
-		String[] lines = parse(accountFile);
-
-		// loop through lines array to find account
-		for (int i = 0; i < lines.length; i++) {
-			// save the current line
-			String line = lines[i];
-			// split line into info strings
-			String[] info = line.split(",");
-
-			// check if the account number matches the account in info
-			if (!info[0].equals(accountNum)) {
-				// if not move on
-				continue;
-			}
-			// if so try to deposit to balance
-			try {
-				// get balance as double from info
-				double balance = Double.parseDouble(info[3]);
-				// if its a loc account
-				if (info.length > 4 && info[2].equals(String.valueOf(AccountType.lineOfCredit))) {
-					double initBalance = Double.parseDouble(info[4]);
-					// balance + deposit cannot exceed initial balance
-					if (amount + Double.parseDouble(info[3]) > initBalance) {
-						// send denial to Teller
-						sendMessage(MessageType.deposit, MessageStatus.denial, accountNum, "invalid");
-						// return false
-						return false;
-					}
-				}
-				// add amount to balance
-				balance += amount;
-				// store updated balance as string
-				info[3] = "" + balance;
-				// put info back as a CSV String
-				lines[i] = String.join(",", info);
-				// note that a change was made
-				worked = true;
-				// break from for loop
-				break;
-
-				// catch invalid numbers
-			} catch (NumberFormatException e) {
-				return false;
-			}
-		}
-
-		// if no account was changed, account not found
-		if (!worked) {
-			return false;
-		}
-
-		// try to write data to the accounts file
-		try (PrintWriter write = new PrintWriter(accountFile)) {
-			// for each line in lines
-			for (String line : lines) {
-				// write line to the file
-				write.println(line);
-			}
-
-		} catch (IOException e) {
-			// print error if write fails
-			System.out.println(e.getMessage());
-			return false;
-		}
-
-		// return true for successful deposit and file update
-		return true;
-	}
-
 	private void withdrawal(Message msg) {
 
 		// get the account number + amount from message
@@ -629,17 +613,13 @@ class ClientHandler implements Runnable {
 			return;
 		}
 
-		// call to apply withdrawal to accounts file
-		boolean worked = fileWithdrawal(accountNum, amount);
+		// apply withdrawal to accounts file, batched with other changes; it is logged with the write
+		boolean worked = coalescer.withdraw(accountNum, amount,
+				"Teller withdrew " + amount).isDone();
 		// if true, withdrawal succeeded
 		if (worked) {
 			// send confirmation back to Teller
 			sendMessage(MessageType.withdrawal, MessageStatus.confirmation, accountNum, "valid");
-			// log teller withdrawal on server
-			LogEntry.appendToLog(logFile,
-					new LogEntry(Integer.parseInt(accountNum), LogType.withdrawal,
-							"Teller withdrew " + amount + ", new balance updated in accounts file",
-							java.time.LocalDateTime.now().toString()));
 			// if helper returned false, withdrawal failed (insufficient funds or account
 			// not found)
 		} else {
@@ -649,70 +629,22 @@ class ClientHandler implements Runnable {
 
 	}
 
-	private boolean fileWithdrawal(String accountNum, double amount) {
-		boolean worked = false;
-
-		// read account file lines
-		String[] lines = parse(accountFile);
-
-		// loop through lines array
-		for (int i = 0; i < lines.length; i++) {
-			// save the current line
-			String line = lines[i];
-			// split line into info strings
-			String[] info = line.split(",");
-
-			// check if the account number matches the account in info
-			if (!info[0].equals(accountNum)) {
-				// if not move on
-				continue;
-			}
-			// if so try to withdraw from balance
-			try {
-				// get balance as double from info
-				double balance = Double.parseDouble(info[3]);
-				// if balance is insufficient
-				if (balance < amount) {
-					// return false
-					return false;
-				}
-				// subtract amount from balance
-				balance -= amount;
-				// store updated balance as string
-				info[3] = "" + balance;
-				// put info back as a CSV String
-				lines[i] = String.join(",", info);
-
-				// note that change was made
-				worked = true;
-				// break from for loop
-				break;
-				// catch invalid numbers
-			} catch (NumberFormatException e) {
-				return false;
-			}
-		}
-		// if it didn't work
-		if (!worked) {
-			return false;
+	private void transfer(Message msg) {
+		// source account in the number field, "toAccount,amount" in the text
+		String from = msg.getNum();
+		String[] target = msg.getText() == null ? new String[0] : msg.getText().split(",");
+		if (target.length != 2) {
+			sendMessage(MessageType.transfer, MessageStatus.denial, from, "invalid");
+			return;
 		}
 
-		// try to write data to the accounts file
-		try (PrintWriter write = new PrintWriter(accountFile)) {
-			// for each line in lines
-			for (String line : lines) {
-				// write line to the file
-				write.println(line);
-			}
-
-		} catch (IOException e) {
-			// print error if write fails
-			System.out.println(e.getMessage());
-			return false;
+		// both balances change in one locked write with one log entry
+		AccountTransfer.Result result = transfers.transfer(from, target[0].trim(), parseAmount(target[1]), "Teller");
+		if (result.isDone()) {
+			sendMessage(MessageType.transfer, MessageStatus.confirmation, from, "valid");
+		} else {
+			sendMessage(MessageType.transfer, MessageStatus.denial, from, String.valueOf(result.getStatus()));
 		}
-
-		// return true for successful withdrawal and file update
-		return true;
 	}
 
 	private void logout(Message msg) {
@@ -720,8 +652,7 @@ class ClientHandler implements Runnable {
 		sendMessage(MessageType.logout, MessageStatus.confirmation, null, "logout");
 		// log teller logout (no specific account)
 		LogEntry.appendToLog(logFile,
-				new LogEntry(0, LogType.logout, "Teller session logout",
-						java.time.LocalDateTime.now().toString()));
+				new LogEntry(0, LogType.logout, "Teller session logout"));
 	}
 
 	private void customerLogin(Message msg) {
@@ -740,57 +671,45 @@ class ClientHandler implements Runnable {
 		// get the password from index 1
 		String pass = credentials[1];
 
-		// parse the customer file for searching
-		String[] lines = parse(proFile);
+		// repeated failures are turned away before the password is checked
+		String credential = "customer:" + user;
+		if (LoginThrottle.shared().retryAfter(credential, clientAddress()) > 0) {
+			sendMessage(MessageType.customerLogin, MessageStatus.denial, null, "locked");
+			return;
+		}
 
-		// for each string in the line array
-		for (String line : lines) {
+		// check the password against the credential index before touching the file
+		if (!CredentialIndex.forFile(proFile).verify(user, pass)) {
+			LoginThrottle.shared().failed(credential, clientAddress());
+			sendMessage(MessageType.customerLogin, MessageStatus.denial, null, "invalid");
+			return;
+		}
 
-			// split the line into fields: username,password,name,phone,address,email,creditScore,accounts
-			String[] fields = line.split(",");
-			
-			// need at least username and password
-			if (fields.length < 2) {
-				continue;
-			}
+		// the rest of the profile, with its accounts, comes from the aggregate cache
+		ProfileAggregateCache.Aggregate aggregate = ProfileAggregateCache.forFile(proFile, accountFile).get(user);
+		if (aggregate == null) {
+			LoginThrottle.shared().failed(credential, clientAddress());
+			sendMessage(MessageType.customerLogin, MessageStatus.denial, null, "invalid");
+			return;
+		}
+		LoginThrottle.shared().succeeded(credential, clientAddress());
 
-			// if username and password match
-			if (user.equals(fields[0]) && pass.equals(fields[1])) {
-				// confirmation to Teller
-				sendMessage(MessageType.customerLogin, MessageStatus.confirmation, null, "valid");
-				// log customer login via teller
-				LogEntry.appendToLog(logFile,
-						new LogEntry(0, LogType.login,
-								"Teller logged in customer profile " + user,
-								java.time.LocalDateTime.now().toString()));
-				
-				// parse profile data from this line
-				// Format: username,password,name,phone,address,email,creditScore,accounts
-				String username = fields[0];
-				String password = fields[1];
-				String name = fields.length > 2 ? fields[2] : "";
-				long phone = fields.length > 3 ? Long.parseLong(fields[3]) : 0;
-				String address = fields.length > 4 ? fields[4] : "";
-				String email = fields.length > 5 ? fields[5] : "";
-
-				// create a new Profile with these
-				Profile profile = new Profile(name, username, password, phone, address, email);
-
-				// try sending the profile to teller
-				try {
-					// write Profile to the output stream + flush to send immediately
-					outputStream.writeObject(profile);
-					outputStream.flush();
-				} catch (Exception e) {
-					// print error
-					System.out.println(e.getMessage());
-				}
-				return;
-			}
+		// confirmation to Teller
+		sendMessage(MessageType.customerLogin, MessageStatus.confirmation, null, "valid");
+		// log customer login via teller
+		LogEntry.appendToLog(logFile,
+				new LogEntry(0, LogType.login,
+						"Teller logged in customer profile " + user));
+
+		// try sending the profile to teller
+		try {
+			// write Profile to the output stream + flush to send immediately
+			outputStream.writeObject(aggregate.toProfile(pass));
+			outputStream.flush();
+		} catch (Exception e) {
+			// print error
+			System.out.println(e.getMessage());
 		}
-		
-		// Only send denial AFTER checking all lines and finding no match
-		sendMessage(MessageType.customerLogin, MessageStatus.denial, null, "invalid");
 	}
 
 	private void employeeLogin(Message msg) {
@@ -809,28 +728,22 @@ class ClientHandler implements Runnable {
 		// get the password from index 1
 		String pass = credentials[1];
 
-		// parse the employee file for searching
-		String[] lines = parse(employeeFile);
-
-		// for each string in the line array
-		for (String line : lines) {
+		// repeated failures are turned away before the password is checked
+		String credential = "employee:" + user;
+		if (LoginThrottle.shared().retryAfter(credential, clientAddress()) > 0) {
+			sendMessage(MessageType.employeeLogin, MessageStatus.denial, null, "locked");
+			return;
+		}
 
-			// split into no more than two parts
-			String[] creds = line.split(",", 2);
-			// if we don't get two credentials, move on
-			if (creds.length < 2) {
-				// continue to next line
-				continue;
-			}
-			// if username and password match creds from file
-			if (user.equals(creds[0]) && pass.equals(creds[1])) {
-				// confirmation to Teller
-				sendMessage(MessageType.employeeLogin, MessageStatus.confirmation, null, "valid");
-				return;
-			}
+		// check the password against the credential index
+		if (CredentialIndex.forFile(employeeFile).verify(user, pass)) {
+			LoginThrottle.shared().succeeded(credential, clientAddress());
+			// confirmation to Teller
+			sendMessage(MessageType.employeeLogin, MessageStatus.confirmation, null, "valid");
+			return;
 		}
 		
-		// Only send denial AFTER checking all lines and finding no match
+		LoginThrottle.shared().failed(credential, clientAddress());
 		sendMessage(MessageType.employeeLogin, MessageStatus.denial, null, "invalid");
 	}
 
@@ -0,0 +1,64 @@
+package group3;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers that ask for the same key share one load: the
+ * first caller runs it, everyone who asks while it is running waits for it
+ * and gets the same result. Nothing is kept once the load is done, so this is
+ * not a cache; a caller that arrives after a load finished starts a new one.
+ *
+ * Results are handed to several callers at once and must not be changed.
+ * Callers decide what "the same" means through the key; a key that includes
+ * the record versions (RecordVersions.etag) never lets a caller share a load
+ * that started before a write the caller has already seen.
+ */
+public class SingleFlight<K, V> {
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder shared = new LongAdder();
+
+	// the value for key, loaded by this caller or by one already loading it
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> mine = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+		if (running != null) {
+			shared.increment();
+			try {
+				return running.join();
+			} catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+		}
+		loads.increment();
+		try {
+			V value = loader.get();
+			mine.complete(value);
+			return value;
+		} catch (RuntimeException e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	// counters for /api/stats
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new HashMap<>();
+		long ran = loads.sum();
+		long saved = shared.sum();
+		stats.put("loads", ran);
+		stats.put("savedLoads", saved);
+		// share of requests that did not need a load of their own
+		stats.put("savedRatio", ran + saved == 0 ? 0.0 : (double) saved / (ran + saved));
+		stats.put("inFlight", inFlight.size());
+		return stats;
+	}
+}
@@ -0,0 +1,258 @@
+package group3;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Builds monthly statements for every account from the audit log. The log is
+ * read once, sequentially; entries for the month are hashed by account number
+ * into a fixed number of partitions; a transfer, logged once under the paying
+ * account, also goes to the partition of the account it paid into. When the buffered entries grow past the
+ * memory budget every partition is spilled to its own temp file, so only one
+ * partition per worker has to be in memory when the statements are written.
+ * Partitions are then grouped by account and written out in parallel, one
+ * statement file per account.
+ */
+public class StatementGenerator {
+	private static final int PARTITIONS = 64;
+
+	private final File logFile;
+	private final File outputDir;
+	private final long memoryBudget;
+
+	public StatementGenerator(File log, File outputDir) {
+		// default budget: 64 MB of buffered log text
+		this(log, outputDir, 64L * 1024 * 1024);
+	}
+
+	public StatementGenerator(File log, File outputDir, long memoryBudgetBytes) {
+		this.logFile = log;
+		this.outputDir = outputDir;
+		this.memoryBudget = memoryBudgetBytes;
+	}
+
+	// java group3.StatementGenerator <yyyy-MM> [outputDir] [dataDir]
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: StatementGenerator <yyyy-MM> [output dir] [data dir]");
+			return;
+		}
+		String dataDir = args.length > 2 ? args[2]
+				: (System.getenv("DATA_DIR") != null ? System.getenv("DATA_DIR") : "src/group3");
+		File out = new File(args.length > 1 ? args[1] : dataDir + "/statements");
+		StatementGenerator generator = new StatementGenerator(new File(dataDir + "/log.txt"), out);
+		System.out.println(generator.generate(YearMonth.parse(args[0])));
+	}
+
+	/**
+	 * Writes statement-ACCOUNT-yyyy-MM.txt for every account with activity in
+	 * the given month.
+	 */
+	public Result generate(YearMonth month) throws IOException {
+		long start = System.nanoTime();
+		outputDir.mkdirs();
+		String prefix = month.toString();
+
+		List<List<String>> buffers = new ArrayList<>(PARTITIONS);
+		for (int p = 0; p < PARTITIONS; p++) {
+			buffers.add(new ArrayList<>());
+		}
+		File[] spills = new File[PARTITIONS];
+		long buffered = 0;
+		int entries = 0;
+
+		// single sequential pass over the log; entries of other months or of no
+		// account are skipped without creating a String
+		try (RecordReader reader = new RecordReader(logFile)) {
+			while (reader.next()) {
+				int account = accountOf(reader);
+				if (account <= 0 || !reader.fieldStartsWith(reader.fields() - 1, prefix)) {
+					continue;
+				}
+				String line = reader.line();
+				buffers.get(partition(account)).add(line);
+				int receiver = receiverOf(line);
+				if (receiver > 0 && partition(receiver) != partition(account)) {
+					buffers.get(partition(receiver)).add(line);
+				}
+				entries++;
+				// rough size of a buffered String: header plus two bytes a char
+				buffered += 40 + 2L * line.length();
+				if (buffered > memoryBudget) {
+					spill(buffers, spills);
+					buffered = 0;
+				}
+			}
+		}
+
+		// write statements one partition per task
+		AtomicInteger accounts = new AtomicInteger();
+		boolean spilled = spills[0] != null;
+		try {
+			IntStream.range(0, PARTITIONS).parallel().forEach(p -> {
+				try {
+					accounts.addAndGet(writePartition(p, spills[p], buffers.get(p), month));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			for (File spill : spills) {
+				if (spill != null) {
+					spill.delete();
+				}
+			}
+		}
+		return new Result(accounts.get(), entries, spilled, System.nanoTime() - start);
+	}
+
+	// move every in-memory partition to the end of its spill file
+	private void spill(List<List<String>> buffers, File[] spills) throws IOException {
+		for (int p = 0; p < PARTITIONS; p++) {
+			if (spills[p] == null) {
+				spills[p] = File.createTempFile("statement-part-" + p + "-", ".tmp", outputDir);
+			}
+			try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(spills[p], true)))) {
+				for (String line : buffers.get(p)) {
+					writer.println(line);
+				}
+			}
+			buffers.set(p, new ArrayList<>());
+		}
+	}
+
+	// group one partition by account (keeping log order) and write the statements
+	private int writePartition(int p, File spill, List<String> remainder, YearMonth month) throws IOException {
+		Map<Integer, List<String>> byAccount = new LinkedHashMap<>();
+		if (spill != null) {
+			for (String line : Files.readAllLines(spill.toPath())) {
+				group(byAccount, p, line);
+			}
+		}
+		for (String line : remainder) {
+			group(byAccount, p, line);
+		}
+
+		for (Map.Entry<Integer, List<String>> e : byAccount.entrySet()) {
+			File statement = new File(outputDir, "statement-" + e.getKey() + "-" + month + ".txt");
+			try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(statement)))) {
+				writer.println("Statement for account " + e.getKey() + " - " + month);
+				for (String line : e.getValue()) {
+					writer.println(format(line));
+				}
+				writer.println(e.getValue().size() + " transactions");
+			}
+		}
+		return byAccount.size();
+	}
+
+	// files a line under each of its accounts that belongs to partition p
+	private static void group(Map<Integer, List<String>> byAccount, int p, String line) {
+		int account = accountOf(line);
+		if (partition(account) == p) {
+			byAccount.computeIfAbsent(account, k -> new ArrayList<>()).add(line);
+		}
+		int receiver = receiverOf(line);
+		if (receiver > 0 && receiver != account && partition(receiver) == p) {
+			byAccount.computeIfAbsent(receiver, k -> new ArrayList<>()).add(line);
+		}
+	}
+
+	private static int partition(int account) {
+		return (account & 0x7fffffff) % PARTITIONS;
+	}
+
+	// log line format is accountNum,type,message,date; the message may contain
+	// commas so the date is taken from the last field
+	static int accountOf(String line) {
+		int comma = line.indexOf(',');
+		if (comma <= 0) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(line, 0, comma, 10);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	// the account a transfer line paid into, or 0 for any other line
+	static int receiverOf(String line) {
+		int first = line.indexOf(',');
+		int second = line.indexOf(',', first + 1);
+		if (second < 0 || !line.startsWith(LogType.transfer + ",", first + 1)) {
+			return 0;
+		}
+		return LogEntry.receiverOf(line.substring(second + 1));
+	}
+
+	// the account number of the reader's current entry, or -1
+	private static int accountOf(RecordReader reader) {
+		if (reader.fields() < 2) {
+			return -1;
+		}
+		try {
+			return reader.intField(0);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	// same readable form as Account.getLog: date [type] message
+	static String format(String line) {
+		int first = line.indexOf(',');
+		int second = line.indexOf(',', first + 1);
+		int last = line.lastIndexOf(',');
+		if (second < 0 || last <= second) {
+			return line;
+		}
+		return line.substring(last + 1) + " [" + line.substring(first + 1, second) + "] "
+				+ line.substring(second + 1, last);
+	}
+
+	// summary of one run
+	public static class Result {
+		private final int accounts;
+		private final int entries;
+		private final boolean spilled;
+		private final long elapsedNanos;
+
+		Result(int accounts, int entries, boolean spilled, long elapsedNanos) {
+			this.accounts = accounts;
+			this.entries = entries;
+			this.spilled = spilled;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public int getAccounts() {
+			return accounts;
+		}
+
+		public int getEntries() {
+			return entries;
+		}
+
+		public boolean isSpilled() {
+			return spilled;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedNanos / 1_000_000;
+		}
+
+		@Override
+		public String toString() {
+			return "Wrote " + accounts + " statements from " + entries + " log entries in " + getElapsedMillis()
+					+ " ms" + (spilled ? " (spilled to disk)" : "");
+		}
+	}
+}
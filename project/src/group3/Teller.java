@@ -14,6 +14,7 @@ public class Teller {
 	static MessageStatus request = MessageStatus.request;
 	static MessageType withdraw = MessageType.withdrawal;
 	static MessageType deposit = MessageType.deposit;
+	static MessageType transfer = MessageType.transfer;
 	static MessageType logout = MessageType.logout;
 	static MessageType updateAcc = MessageType.updateAccount;
 	static MessageType updateProf = MessageType.updateProfile;
@@ -144,6 +145,13 @@ public class Teller {
 		}
 	}
 
+	// records the time from sending request to reading its reply next to its trace id
+	private static void logRoundTrip(Message request, long sent) {
+		long nanos = System.nanoTime() - sent;
+		TraceSink.roundTrip(request, nanos);
+		System.out.println("Trace " + RequestTrace.hex(request.getTraceId()) + " round trip " + nanos / 1000 + " us");
+	}
+
 	//withdraw money from account
 	public boolean withdraw(String accountNum, double amount) {
 		if (!connected) {
@@ -154,11 +162,14 @@ public class Teller {
 			// account-specific operation, pass account number as String
 			Message withdrawMsg = new Message(request, withdraw, tellerApp, accountNum, String.valueOf(amount));
 
+			long sent = System.nanoTime();
 			outputStream.writeObject(withdrawMsg);
 			outputStream.flush();
-			System.out.println("Withdrawal request sent: $" + amount);
+			System.out.println("Withdrawal request sent: $" + amount
+					+ " (trace " + RequestTrace.hex(withdrawMsg.getTraceId()) + ")");
 
 			Message response = (Message) inputStream.readObject();
+			logRoundTrip(withdrawMsg, sent);
 
 			if (response.getStatus() == MessageStatus.confirmation) {
 				System.out.println("Withdrawal successful");
@@ -187,11 +198,14 @@ public class Teller {
 			// account-specific operation, pass account number as String
 			Message depositMsg = new Message(request, deposit, tellerApp, accountNum, String.valueOf(amount));
 
+			long sent = System.nanoTime();
 			outputStream.writeObject(depositMsg);
 			outputStream.flush();
-			System.out.println("Deposit request sent: $" + amount);
+			System.out.println("Deposit request sent: $" + amount
+					+ " (trace " + RequestTrace.hex(depositMsg.getTraceId()) + ")");
 
 			Message response = (Message) inputStream.readObject();
+			logRoundTrip(depositMsg, sent);
 
 			if (response.getStatus() == MessageStatus.confirmation) {
 				System.out.println("Deposit successful");
@@ -210,6 +224,38 @@ public class Teller {
 		}
 	}
 
+	//transfer money between two accounts in one step
+	public boolean transfer(String fromAccountNum, String toAccountNum, double amount) {
+		if (!connected) {
+			return false;
+		}
+
+		try {
+			Message transferMsg = new Message(request, transfer, tellerApp, fromAccountNum, toAccountNum + "," + amount);
+
+			long sent = System.nanoTime();
+			outputStream.writeObject(transferMsg);
+			outputStream.flush();
+			System.out.println("Transfer request sent: $" + amount + " from " + fromAccountNum + " to " + toAccountNum
+					+ " (trace " + RequestTrace.hex(transferMsg.getTraceId()) + ")");
+
+			Message response = (Message) inputStream.readObject();
+			logRoundTrip(transferMsg, sent);
+
+			if (response.getStatus() == MessageStatus.confirmation) {
+				System.out.println("Transfer successful");
+				return true;
+			} else {
+				System.out.println("Transfer failed: " + response.getText());
+				return false;
+			}
+
+		} catch (IOException | ClassNotFoundException e) {
+			System.out.println("Error during transfer: " + e.getMessage());
+			return false;
+		}
+	}
+
 	//update account info
 	public boolean updateAccount(String accountNum, String updateData) {
 		if (!connected) {
@@ -0,0 +1,226 @@
+package group3;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the traces of finished requests: the last bank.traceRingSize
+ * (default 10000) in memory, and every one as a line in bank.traceFile if
+ * that is set. slowest finds the slowest requests of a time window in
+ * memory; main does the same over a trace file, for after the fact:
+ *
+ *   java group3.TraceSink traces.txt 20 2025-12-01T09:00 2025-12-01T10:00
+ *
+ * The file is written by one daemon thread: add only queues the line, so a
+ * handler thread never waits on the disk or on another handler's write. If
+ * the writer falls more than bank.traceQueueSize lines (default 65,536)
+ * behind, further lines are dropped and counted rather than slowing requests
+ * down. Lines still queued at exit are written by a shutdown hook.
+ *
+ * The ATM and teller record their side with roundTrip: with
+ * bank.roundTripFile set, each request's trace id goes into it next to the
+ * round trip the client measured, as traceId,start,type,sender,roundTripMicros.
+ * Joined with the server's trace file by trace id, the round trip minus
+ * queueMicros and handlerMicros is the time spent on the network.
+ */
+public class TraceSink {
+	private static final Comparator<RequestTrace> BY_TOTAL = Comparator.comparingLong(RequestTrace::getTotalNanos);
+	private static final int QUEUE_SIZE = Integer.getInteger("bank.traceQueueSize", 65_536);
+	private static final TraceSink shared = new TraceSink(Integer.getInteger("bank.traceRingSize", 10_000),
+			System.getProperty("bank.traceFile") != null ? new File(System.getProperty("bank.traceFile")) : null);
+	private static final LineWriter roundTrips = System.getProperty("bank.roundTripFile") != null
+			? new LineWriter(new File(System.getProperty("bank.roundTripFile")))
+			: null;
+
+	private final RequestTrace[] ring;
+	private int next;
+	private long added;
+	private final LineWriter writer;
+
+	public TraceSink(int capacity, File file) {
+		this.ring = new RequestTrace[capacity];
+		this.writer = file != null ? new LineWriter(file) : null;
+	}
+
+	// the sink ClientHandler's traces go to
+	public static TraceSink shared() {
+		return shared;
+	}
+
+	public void add(RequestTrace trace) {
+		synchronized (this) {
+			ring[next] = trace;
+			next = (next + 1) % ring.length;
+			added++;
+		}
+		if (writer != null) {
+			writer.offer(trace.toString());
+		}
+	}
+
+	/**
+	 * Records the round trip the client measured for request, from sending it
+	 * to reading the reply, if bank.roundTripFile is set.
+	 */
+	public static void roundTrip(Message request, long nanos) {
+		if (roundTrips != null) {
+			roundTrips.offer(RequestTrace.hex(request.getTraceId()) + "," + CoarseClock.format(CoarseClock.micros() - nanos / 1000)
+					+ "," + request.getType() + "," + request.getSender() + "," + nanos / 1000);
+		}
+	}
+
+	// waits until every trace added so far is in the file, or a second has passed
+	public void flush() {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * The n slowest requests in memory that started at or after fromMicros
+	 * and before toMicros, slowest first.
+	 */
+	public synchronized List<RequestTrace> slowest(int n, long fromMicros, long toMicros) {
+		List<RequestTrace> traces = new ArrayList<>(ring.length);
+		for (RequestTrace trace : ring) {
+			if (trace != null) {
+				traces.add(trace);
+			}
+		}
+		return slowest(traces, n, fromMicros, toMicros);
+	}
+
+	// the same over the traces written to a trace file; lines that are not traces are skipped
+	public static List<RequestTrace> slowest(File traceFile, int n, long fromMicros, long toMicros) throws IOException {
+		List<RequestTrace> traces = new ArrayList<>();
+		try (RecordReader reader = new RecordReader(traceFile)) {
+			while (reader.next()) {
+				try {
+					traces.add(RequestTrace.parse(reader.line()));
+					// now and then keep only what can still be among the slowest
+					if (traces.size() >= 4 * n + 1024) {
+						traces = slowest(traces, n, fromMicros, toMicros);
+					}
+				} catch (IllegalArgumentException | DateTimeParseException e) {
+					// not a trace
+				}
+			}
+		}
+		return slowest(traces, n, fromMicros, toMicros);
+	}
+
+	// keeps the n slowest in a min-heap, so a long window costs one pass
+	private static List<RequestTrace> slowest(List<RequestTrace> traces, int n, long fromMicros, long toMicros) {
+		PriorityQueue<RequestTrace> heap = new PriorityQueue<>(BY_TOTAL);
+		for (RequestTrace trace : traces) {
+			if (n <= 0 || trace.getStartMicros() < fromMicros || trace.getStartMicros() >= toMicros) {
+				continue;
+			}
+			if (heap.size() < n) {
+				heap.add(trace);
+			} else if (trace.getTotalNanos() > heap.peek().getTotalNanos()) {
+				heap.poll();
+				heap.add(trace);
+			}
+		}
+		List<RequestTrace> found = new ArrayList<>(heap);
+		found.sort(Collections.reverseOrder(BY_TOTAL));
+		return found;
+	}
+
+	// appends queued lines to one file from a daemon thread, a batch per write and flush
+	private static final class LineWriter {
+		private final File file;
+		private final BlockingQueue<String> queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+		private final AtomicLong queued = new AtomicLong();
+		private final AtomicLong written = new AtomicLong();
+		private final LongAdder dropped = new LongAdder();
+
+		LineWriter(File file) {
+			this.file = file;
+			Thread thread = new Thread(this::run, "trace-writer-" + file.getName());
+			thread.setDaemon(true);
+			thread.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "trace-flush-" + file.getName()));
+		}
+
+		void offer(String line) {
+			// counted first, so flush never sees a line written that it did not see queued
+			queued.incrementAndGet();
+			if (!queue.offer(line)) {
+				queued.decrementAndGet();
+				dropped.increment();
+			}
+		}
+
+		void flush() {
+			long target = queued.get();
+			long deadline = System.nanoTime() + 1_000_000_000L;
+			while (written.get() < target && System.nanoTime() < deadline) {
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+		private void run() {
+			List<String> batch = new ArrayList<>();
+			long reported = 0;
+			try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file, true), 1 << 16))) {
+				while (true) {
+					batch.add(queue.take());
+					queue.drainTo(batch, 4095);
+					for (String line : batch) {
+						out.println(line);
+					}
+					out.flush();
+					if (out.checkError()) {
+						System.out.println("Error writing traces to " + file);
+					}
+					written.addAndGet(batch.size());
+					batch.clear();
+					long lost = dropped.sum();
+					if (lost > reported) {
+						System.out.println("Trace writer behind, " + lost + " lines dropped from " + file);
+						reported = lost;
+					}
+				}
+			} catch (IOException e) {
+				System.out.println("Error writing trace: " + e.getMessage());
+			} catch (InterruptedException e) {
+				// the process is exiting
+			}
+		}
+	}
+
+	// java group3.TraceSink <trace file> [n] [from] [to]
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: TraceSink <trace file> [n] [from yyyy-MM-ddTHH:mm] [to yyyy-MM-ddTHH:mm]");
+			return;
+		}
+		int n = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		long from = args.length > 2 ? CoarseClock.parse(args[2]) : Long.MIN_VALUE;
+		long to = args.length > 3 ? CoarseClock.parse(args[3]) : Long.MAX_VALUE;
+		System.out.println("traceId,start,type,sender,account,outcome,queueMicros,handlerMicros,storageMicros,logMicros");
+		for (RequestTrace trace : slowest(new File(args[0]), n, from, to)) {
+			System.out.println(trace);
+		}
+	}
+}
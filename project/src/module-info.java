@@ -7,5 +7,6 @@
 module project {
 	requires java.desktop;
 	requires jdk.httpserver;
+	requires jdk.jfr;
 	requires com.google.gson;
 }
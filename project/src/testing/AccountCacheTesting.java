@@ -0,0 +1,70 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountCache;
+
+public class AccountCacheTesting {
+
+    private File accounts() throws Exception {
+        File file = File.createTempFile("cache_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("1001,1234,checking,100.0");
+            out.println("1002,4321,saving,20.0");
+            out.println("1003,1111,lineOfCredit,300.0,500.0");
+        }
+        return file;
+    }
+
+    @Test
+    public void testReadThroughAndWriteThrough() throws Exception {
+        AccountCache cache = new AccountCache(accounts(), 10);
+        assertEquals(100.0, cache.get("1001").getBalance());
+        assertEquals(100.0, cache.get("1001").getBalance());
+        assertNull(cache.get("9999"));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+
+        // a write hands the new line to the cache, which serves it without a read
+        cache.put("1001,1234,checking,75.5");
+        assertEquals(75.5, cache.get("1001").getBalance());
+        assertEquals(2L, cache.stats().get("hits"));
+
+        assertEquals(500.0, cache.get("1003").getLimit());
+        assertTrue(Double.isNaN(cache.get("1002").getLimit()));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        AccountCache cache = new AccountCache(accounts(), 2);
+        cache.get("1001");
+        cache.get("1002");
+        cache.get("1001");
+        cache.get("1003");
+
+        assertEquals(2, cache.stats().get("size"));
+        assertEquals(1L, cache.stats().get("evictions"));
+        // 1002 was the least recently used, so it is the one that has to be read again
+        cache.get("1001");
+        cache.get("1002");
+        assertEquals(2L, cache.stats().get("hits"));
+        assertEquals(4L, cache.stats().get("misses"));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        File file = accounts();
+        AccountCache cache = new AccountCache(file, 10);
+        cache.get("1002");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("1001,1234,checking,100.0");
+        }
+        cache.invalidate("1002");
+        assertNull(cache.get("1002"));
+    }
+}
@@ -0,0 +1,66 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountFilter;
+
+public class AccountFilterTesting {
+
+    @Test
+    public void testNoFalseNegatives() throws Exception {
+        File file = File.createTempFile("filter_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int i = 0; i < 5000; i++) {
+                out.println((1000 + i) + ",1111,checking,0");
+            }
+        }
+        AccountFilter filter = AccountFilter.forFile(file);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.mightContain(1000 + i));
+        }
+        assertFalse(filter.mightContain("not-a-number"));
+    }
+
+    @Test
+    public void testAddRemoveAndExternalWrites() throws Exception {
+        File file = File.createTempFile("filter_accounts", ".txt");
+        AccountFilter filter = AccountFilter.forFile(file);
+        assertFalse(filter.mightContain(2223));
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("2223,1163,checking,350.0");
+        }
+        filter.add(2223);
+        assertTrue(filter.mightContain(2223));
+
+        filter.remove(2223);
+        new PrintWriter(file).close();
+        assertFalse(filter.mightContain(2223));
+
+        // a write the filter was not told about is picked up before it says no
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("2224,3630,checking,200.0,extra");
+        }
+        assertTrue(filter.mightContain(2224));
+    }
+
+    @Test
+    public void testExistsChecksTheFileOnMaybe() throws Exception {
+        File file = File.createTempFile("filter_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("1000,1111,checking,0");
+            out.println("1001,1111,saving,0");
+        }
+        AccountFilter filter = AccountFilter.forFile(file);
+        assertTrue(filter.exists("1000"));
+        assertTrue(filter.exists("1001"));
+        assertFalse(filter.exists("1002"));
+        assertFalse(filter.exists("100"));
+    }
+}
@@ -0,0 +1,78 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountNumberAllocator;
+
+public class AccountNumberAllocatorTesting {
+
+    private File accountsWith(String... lines) throws Exception {
+        File file = File.createTempFile("alloc_accounts", ".txt");
+        file.deleteOnExit();
+        new File(file.getPath() + ".seq").deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testStartsAboveExistingAccounts() throws Exception {
+        AccountNumberAllocator allocator = AccountNumberAllocator.forFile(accountsWith("2223,1163,checking,350.0"));
+        assertEquals(2224, allocator.next());
+        assertEquals(2225, allocator.next());
+    }
+
+    @Test
+    public void testObservedNumbersAreSkipped() throws Exception {
+        AccountNumberAllocator allocator = AccountNumberAllocator.forFile(accountsWith());
+        allocator.next();
+        allocator.observe(5000);
+        assertEquals(5001, allocator.next());
+    }
+
+    @Test
+    public void testObservedNumbersArePersisted() throws Exception {
+        File file = accountsWith();
+        AccountNumberAllocator allocator = AccountNumberAllocator.forFile(file);
+        allocator.next();
+        allocator.observe(5000);
+        // a restart or another server starts above the mark, so above 5000
+        int mark = Integer.parseInt(Files.readString(new File(file.getPath() + ".seq").toPath()).trim());
+        assertTrue(mark > 5000);
+        // numbers inside the block just reserved need no further write
+        allocator.observe(5010);
+        assertEquals(mark, Integer.parseInt(Files.readString(new File(file.getPath() + ".seq").toPath()).trim()));
+        assertEquals(5011, allocator.next());
+    }
+
+    @Test
+    public void testNoDuplicatesUnderConcurrency() throws Exception {
+        AccountNumberAllocator allocator = AccountNumberAllocator.forFile(accountsWith());
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    seen.add(allocator.next());
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(8000, seen.size());
+    }
+}
@@ -0,0 +1,70 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountOwnerIndex;
+import group3.RestApiServer;
+
+public class AccountOwnerIndexTesting {
+
+    @Test
+    public void testExactAccountMatch() {
+        AccountOwnerIndex index = new AccountOwnerIndex();
+        index.putProfile("user1,pass1,DEMO USER,1234567890,111 santa street,email@email.com,0,[1212]");
+
+        assertEquals("user1", index.ownerOf(1212));
+        // 12 is a substring of [1212] but not a linked account
+        assertNull(index.ownerOf(12));
+    }
+
+    @Test
+    public void testRewriteDropsOldLinks() {
+        AccountOwnerIndex index = new AccountOwnerIndex();
+        index.putProfile("user1,pass1,A,1,addr,a@a.com,0,[1111,2222]");
+        assertEquals("user1", index.ownerOf(2222));
+
+        index.putProfile("user1,pass1,A,1,addr,a@a.com,0,[1111]");
+        assertNull(index.ownerOf(2222));
+        assertArrayEquals(new int[] { 1111 }, index.accountsOf("user1"));
+    }
+
+    @Test
+    public void testRemovedProfileComesBack() {
+        AccountOwnerIndex index = new AccountOwnerIndex();
+        index.putProfile("user1,pass1,A,1,addr,a@a.com,0,[1111]");
+        index.putProfile("user2,pass2,B,1,addr,b@b.com,0,[2222]");
+        index.removeProfile("user1");
+        assertNull(index.ownerOf(1111));
+        assertEquals("user2", index.ownerOf(2222));
+
+        index.putProfile("user1,pass1,A,1,addr,a@a.com,0,[1111,3333]");
+        assertEquals("user1", index.ownerOf(3333));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testRelinkedAccountKeepsNewOwner() {
+        AccountOwnerIndex index = new AccountOwnerIndex();
+        index.putProfile("user1,pass1,A,1,addr,a@a.com,0,[1111]");
+        index.putProfile("user2,pass2,B,1,addr,b@b.com,0,[1111]");
+        // dropping user1's link must not drop user2's
+        index.putProfile("user1,pass1,A,1,addr,a@a.com,0,[]");
+        assertEquals("user2", index.ownerOf(1111));
+    }
+
+    @Test
+    public void testProfileUpdateKeepsEveryLinkedAccount() {
+        AccountOwnerIndex index = new AccountOwnerIndex();
+        String line = "user1,pass1,A,1,addr,a@a.com,700,[1001,1002,1003]";
+        index.putProfile(line);
+
+        String updated = RestApiServer.updatedProfileLine(line, null, "A B", null, "new addr", null, "710");
+        assertEquals("user1,pass1,A B,1,new addr,a@a.com,710,[1001,1002,1003]", updated);
+        index.putProfile(updated);
+        assertArrayEquals(new int[] { 1001, 1002, 1003 }, index.accountsOf("user1"));
+        assertEquals("user1", index.ownerOf(1002));
+        assertEquals("user1", index.ownerOf(1003));
+    }
+}
@@ -0,0 +1,108 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountTransfer;
+import group3.RecordVersions;
+import group3.StatementGenerator;
+
+public class AccountTransferTesting {
+
+    private File accounts(String... lines) throws Exception {
+        File file = File.createTempFile("transfer_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testTransferMovesMoneyWithOneLogEntry() throws Exception {
+        File file = accounts("1001,1234,checking,100.0", "1002,4321,saving,20.0");
+        File log = File.createTempFile("transfer_log", ".txt");
+        AccountTransfer.Result result = new AccountTransfer(file, log).transfer("1001", "1002", 30.25, "Teller");
+
+        assertTrue(result.isDone());
+        assertEquals(69.75, result.getFromBalance(), 0.001);
+        assertEquals(50.25, result.getToBalance(), 0.001);
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals("1001,1234,checking,69.75", lines.get(0));
+        assertEquals("1002,4321,saving,50.25", lines.get(1));
+        List<String> entries = Files.readAllLines(log.toPath());
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).startsWith(
+                "1001,transfer,Teller transferred 30.25 from 1001 to 1002, new balances 69.75 and 50.25,"));
+    }
+
+    @Test
+    public void testReceiverStatementShowsIncomingTransfer() throws Exception {
+        File file = accounts("1001,1234,checking,100.0", "1002,4321,saving,20.0");
+        File log = File.createTempFile("transfer_log", ".txt");
+        assertTrue(new AccountTransfer(file, log).transfer("1001", "1002", 12.5, "ATM").isDone());
+
+        File out = Files.createTempDirectory("transfer_statements").toFile();
+        YearMonth month = YearMonth.now();
+        new StatementGenerator(log, out).generate(month);
+        List<String> statement = Files.readAllLines(new File(out, "statement-1002-" + month + ".txt").toPath());
+        assertEquals("Statement for account 1002 - " + month, statement.get(0));
+        assertTrue(statement.get(1).endsWith("[transfer] ATM transferred 12.5 from 1001 to 1002, new balances 87.5 and 32.5"));
+        assertEquals("1 transactions", statement.get(2));
+        List<String> payer = Files.readAllLines(new File(out, "statement-1001-" + month + ".txt").toPath());
+        assertEquals(statement.get(1), payer.get(1));
+    }
+
+    @Test
+    public void testRefusedTransfersChangeNothing() throws Exception {
+        File file = accounts("1001,1234,checking,20.0", "1002,4321,lineOfCredit,490.0,500.0");
+        File log = File.createTempFile("transfer_log", ".txt");
+        AccountTransfer transfers = new AccountTransfer(file, log);
+        RecordVersions versions = RecordVersions.forFile(file);
+        long before = versions.version("1001");
+
+        assertEquals(AccountTransfer.Status.insufficientFunds, transfers.transfer("1001", "1002", 50, "ATM").getStatus());
+        assertEquals(AccountTransfer.Status.overLimit, transfers.transfer("1001", "1002", 10.01, "ATM").getStatus());
+        assertEquals(AccountTransfer.Status.noSuchAccount, transfers.transfer("1001", "9999", 1, "ATM").getStatus());
+        assertEquals(AccountTransfer.Status.sameAccount, transfers.transfer("1001", "1001", 1, "ATM").getStatus());
+        assertEquals(AccountTransfer.Status.invalidAmount, transfers.transfer("1001", "1002", -5, "ATM").getStatus());
+        assertEquals(List.of("1001,1234,checking,20.0", "1002,4321,lineOfCredit,490.0,500.0"),
+                Files.readAllLines(file.toPath()));
+        assertEquals(0, Files.readAllLines(log.toPath()).size());
+        // a refusal must not change the account's ETag
+        assertEquals(before, versions.version("1001"));
+    }
+
+    @Test
+    public void testOppositeTransfersConserveTotal() throws Exception {
+        File file = accounts("1001,1234,checking,1000.0", "1002,4321,checking,1000.0");
+        File log = File.createTempFile("transfer_log", ".txt");
+        AccountTransfer transfers = new AccountTransfer(file, log);
+        Thread a = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                transfers.transfer("1001", "1002", 3, "Teller");
+            }
+        });
+        Thread b = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                transfers.transfer("1002", "1001", 2, "Teller");
+            }
+        });
+        a.start();
+        b.start();
+        a.join();
+        b.join();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals("1001,1234,checking,950.0", lines.get(0));
+        assertEquals("1002,4321,checking,1050.0", lines.get(1));
+    }
+}
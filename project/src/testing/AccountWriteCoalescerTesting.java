@@ -0,0 +1,81 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountTransfer;
+import group3.AccountWriteCoalescer;
+import group3.RecordVersions;
+
+public class AccountWriteCoalescerTesting {
+
+    @Test
+    public void testConcurrentDepositsAllLand() throws Exception {
+        File accounts = File.createTempFile("coalesce_accounts", ".txt");
+        File log = File.createTempFile("coalesce_log", ".txt");
+        try (PrintWriter out = new PrintWriter(accounts)) {
+            out.println("1001,1234,checking,0.0");
+            out.println("1002,4321,saving,5.0");
+        }
+        AccountWriteCoalescer coalescer = new AccountWriteCoalescer(accounts, log, 2);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    assertTrue(coalescer.deposit("1001", 1, "test deposit").isDone());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        List<String> lines = Files.readAllLines(accounts.toPath());
+        assertEquals("1001,1234,checking,200.0", lines.get(0));
+        assertEquals("1002,4321,saving,5.0", lines.get(1));
+        assertEquals(200, Files.readAllLines(log.toPath()).size());
+        // the whole point: far fewer writes than deposits
+        assertTrue((long) coalescer.stats().get("fileWrites") < 200);
+    }
+
+    @Test
+    public void testRefusedChangesAreNotWritten() throws Exception {
+        File accounts = File.createTempFile("coalesce_accounts", ".txt");
+        File log = File.createTempFile("coalesce_log", ".txt");
+        try (PrintWriter out = new PrintWriter(accounts)) {
+            out.println("1001,1234,checking,10.0");
+            out.println("1002,4321,lineOfCredit,95.0,100.0");
+        }
+        AccountWriteCoalescer coalescer = new AccountWriteCoalescer(accounts, log, 0);
+        RecordVersions versions = RecordVersions.forFile(accounts);
+        long before1001 = versions.version("1001");
+        long before1002 = versions.version("1002");
+
+        assertEquals(AccountTransfer.Status.insufficientFunds, coalescer.withdraw("1001", 20, "w").getStatus());
+        assertEquals(AccountTransfer.Status.overLimit, coalescer.deposit("1002", 10, "d").getStatus());
+        assertEquals(AccountTransfer.Status.noSuchAccount, coalescer.deposit("9999", 10, "d").getStatus());
+        assertEquals(AccountTransfer.Status.invalidAmount, coalescer.withdraw("1001", -5, "w").getStatus());
+        // refusals leave every ETag as it was
+        assertEquals(before1001, versions.version("1001"));
+        assertEquals(before1002, versions.version("1002"));
+        AccountWriteCoalescer.Update update = coalescer.withdraw("1001", 4, "w");
+        assertTrue(update.isDone());
+        assertEquals(6.0, update.getBalance(), 0.001);
+
+        assertEquals(List.of("1001,1234,checking,6.0", "1002,4321,lineOfCredit,95.0,100.0"),
+                Files.readAllLines(accounts.toPath()));
+        List<String> entries = Files.readAllLines(log.toPath());
+        assertEquals(1, entries.size());
+        // the entry carries the balance the change left
+        assertTrue(entries.get(0).startsWith("1001,withdrawal,w, new balance 6.0,"));
+        assertNotEquals(before1001, versions.version("1001"));
+        assertEquals(before1002, versions.version("1002"));
+    }
+}
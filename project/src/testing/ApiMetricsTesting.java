@@ -0,0 +1,58 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import group3.ApiMetrics;
+
+public class ApiMetricsTesting {
+
+    @Test
+    public void testCountsPerRouteAndStatus() {
+        ApiMetrics metrics = new ApiMetrics();
+        metrics.record("GET", "/api/accounts/balance", 200, 1_500_000);
+        metrics.record("GET", "/api/accounts/balance", 200, 2_500_000);
+        metrics.record("GET", "/api/accounts/balance", 304, 100_000);
+        metrics.record("POST", "/api/accounts/deposit", 403, 50_000);
+
+        String text = metrics.prometheus();
+        assertTrue(text.contains("# TYPE bank_api_requests_total counter\n"));
+        assertTrue(text.contains(
+                "bank_api_requests_total{method=\"GET\",route=\"/api/accounts/balance\",status=\"200\"} 2\n"));
+        assertTrue(text.contains(
+                "bank_api_requests_total{method=\"GET\",route=\"/api/accounts/balance\",status=\"304\"} 1\n"));
+        assertTrue(text.contains(
+                "bank_api_requests_total{method=\"POST\",route=\"/api/accounts/deposit\",status=\"403\"} 1\n"));
+        assertTrue(text.contains("# TYPE bank_api_request_duration_seconds summary\n"));
+        assertTrue(text.contains(
+                "bank_api_request_duration_seconds_count{method=\"GET\",route=\"/api/accounts/balance\"} 3\n"));
+        assertTrue(text.contains(
+                "bank_api_request_duration_seconds_sum{method=\"GET\",route=\"/api/accounts/balance\"} 0.0041\n"));
+        assertTrue(text.contains(
+                "bank_api_request_duration_seconds{method=\"GET\",route=\"/api/accounts/balance\",quantile=\"0.999\"}"));
+    }
+
+    @Test
+    public void testUnknownPathsShareOneRoute() {
+        ApiMetrics metrics = new ApiMetrics();
+        for (int i = 0; i < 100; i++) {
+            metrics.record("GET", null, 404, 10_000);
+        }
+        metrics.record("GET", null, -1, 10_000);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> routes = (List<Map<String, Object>>) metrics.json().get("routes");
+        assertEquals(1, routes.size());
+        assertEquals("unmatched", routes.get(0).get("route"));
+        assertEquals(101L, routes.get(0).get("count"));
+        assertEquals(Map.of("404", 100L, "none", 1L), routes.get(0).get("statuses"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> latency = (Map<String, Object>) routes.get(0).get("latencyMicros");
+        assertEquals(10L, latency.get("p50"));
+        assertEquals(10L, latency.get("p999"));
+    }
+}
@@ -0,0 +1,159 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AuditRing;
+import group3.CoarseClock;
+import group3.LogEntry;
+import group3.LogType;
+
+public class AuditRingTesting {
+    private static final long START = CoarseClock.parse("2025-12-01T00:00");
+
+    @Test
+    public void testMessagesComeBackExactly() {
+        AuditRing ring = new AuditRing(1 << 20);
+        String[] messages = {
+            "ATM deposited 50.0",
+            "Deposited 5.0. New balance: 300.25",
+            "Teller transferred 7.5 from 1001 to 1002, new balances 0.05 and 1.0E7",
+            "Teller changed PIN for account 007",
+            "Customer login via REST API: user42",
+            "Interest credited 0.30000000000000004, new balance 12345678901234567890.5",
+            "ATM logout",
+            "",
+        };
+        for (int i = 0; i < messages.length; i++) {
+            ring.add(new LogEntry(1000 + i, LogType.deposit, messages[i], START + i));
+        }
+
+        List<LogEntry> recent = ring.recent(-1, null, Long.MIN_VALUE, 100);
+        assertEquals(messages.length, recent.size());
+        for (int i = 0; i < messages.length; i++) {
+            LogEntry entry = recent.get(messages.length - 1 - i);
+            assertEquals(messages[i], entry.getMessage());
+            assertEquals(1000 + i, entry.getAccountNum());
+            assertEquals(START + i, entry.getMicros());
+        }
+    }
+
+    @Test
+    public void testRepeatedMessagesShareATemplate() {
+        AuditRing ring = new AuditRing(1 << 20);
+        for (int i = 0; i < 1_000; i++) {
+            ring.add(new LogEntry(1001, LogType.deposit, "ATM deposited " + i + ".5", START + i));
+            ring.add(new LogEntry(1001, LogType.withdrawal, "ATM withdrew " + i + ", new balance " + (i * 3), START + i));
+        }
+        assertEquals(2, ring.stats().get("templates"));
+        assertEquals("ATM withdrew 999, new balance 2997",
+                ring.recent(1001, LogType.withdrawal, Long.MIN_VALUE, 1).get(0).getMessage());
+    }
+
+    @Test
+    public void testFilteredScansAndSummary() {
+        AuditRing ring = new AuditRing(1 << 20);
+        for (int i = 0; i < 100; i++) {
+            ring.add(new LogEntry(1000 + i % 4, i % 2 == 0 ? LogType.deposit : LogType.withdrawal,
+                    "ATM moved " + i + ".0", START + i * 1_000_000L));
+        }
+        List<LogEntry> found = ring.recent(1002, LogType.deposit, START + 50 * 1_000_000L, 100);
+        // account 1002 is every i = 2 mod 4, all deposits: 50, 54 ... 98
+        assertEquals(13, found.size());
+        assertEquals("ATM moved 98.0", found.get(0).getMessage());
+        assertEquals(3, ring.recent(-1, null, Long.MIN_VALUE, 3).size());
+
+        Map<String, Object> summary = ring.summary(START + 90 * 1_000_000L);
+        assertEquals(Map.of("count", 5L, "amount", 90.0 + 92 + 94 + 96 + 98), summary.get("deposit"));
+        assertEquals(Map.of("count", 5L, "amount", 91.0 + 93 + 95 + 97 + 99), summary.get("withdrawal"));
+        assertNull(summary.get("transfer"));
+    }
+
+    @Test
+    public void testTransferMatchesBothAccounts() {
+        AuditRing ring = new AuditRing(1 << 20);
+        ring.add(new LogEntry(1001, LogType.transfer,
+                "ATM transferred 12.5 from 1001 to 1002, new balances 87.5 and 32.5", START));
+        ring.add(new LogEntry(1003, LogType.deposit, "ATM deposited 5.0", START + 1));
+        assertEquals(1, ring.recent(1001, null, Long.MIN_VALUE, 10).size());
+        List<LogEntry> received = ring.recent(1002, null, Long.MIN_VALUE, 10);
+        assertEquals(1, received.size());
+        assertEquals(1001, received.get(0).getAccountNum());
+        assertEquals(1002, received.get(0).getReceiverNum());
+        assertEquals(Map.of("count", 1L, "amount", 12.5), ring.summary(Long.MIN_VALUE).get("transfer"));
+    }
+
+    @Test
+    public void testStaysWithinBudget() {
+        AuditRing ring = new AuditRing(64 * 1024);
+        int capacity = (int) ring.stats().get("capacity");
+        for (int i = 0; i < capacity * 3; i++) {
+            // every message its own template, so the dictionary fills first
+            ring.add(new LogEntry(i, LogType.updateProfile, "REST API updated profile: user" + i, START + i));
+        }
+        Map<String, Object> stats = ring.stats();
+        assertTrue((long) stats.get("columnBytes") + (long) stats.get("dictionaryBytes") <= 64 * 1024);
+        assertEquals(ring.size(), stats.get("templates"));
+        assertTrue(ring.size() > 0 && ring.size() < capacity);
+
+        String newest = "REST API updated profile: user" + (capacity * 3 - 1);
+        assertEquals(newest, ring.recent(-1, null, Long.MIN_VALUE, 1).get(0).getMessage());
+        for (int i = 0; i < capacity * 3; i++) {
+            ring.add(new LogEntry(i, LogType.deposit, "ATM deposited " + i + ".0", START + i));
+        }
+        assertEquals(capacity, ring.size());
+        assertEquals(1, ring.stats().get("templates"));
+        // the ring has wrapped; still newest first
+        List<LogEntry> all = ring.recent(-1, null, Long.MIN_VALUE, capacity);
+        assertEquals(capacity, all.size());
+        for (int i = 0; i < capacity; i++) {
+            assertEquals("ATM deposited " + (capacity * 3 - 1 - i) + ".0", all.get(i).getMessage());
+        }
+    }
+
+    @Test
+    public void testLoadsTheLogAndFollowsAppends() throws Exception {
+        File log = File.createTempFile("ring_log", ".txt");
+        try (PrintWriter out = new PrintWriter(log)) {
+            out.println(new LogEntry(1001, LogType.deposit, "Teller deposited 5.0, new balance updated", START));
+            out.println("not a log entry");
+        }
+        LogEntry.appendToLog(log, new LogEntry(1002, LogType.withdrawal, "ATM withdrew 2.5", START + 1));
+
+        List<LogEntry> recent = AuditRing.forFile(log).recent(-1, null, Long.MIN_VALUE, 10);
+        assertEquals(2, recent.size());
+        assertEquals("1002,withdrawal,ATM withdrew 2.5," + CoarseClock.format(START + 1), recent.get(0).toString());
+        assertEquals("Teller deposited 5.0, new balance updated", recent.get(1).getMessage());
+    }
+
+    @Test
+    public void testPicksUpWhatAnotherProcessLogs() throws Exception {
+        File log = File.createTempFile("ring_log", ".txt");
+        AuditRing ring = AuditRing.forFile(log);
+        assertEquals(0, ring.size());
+
+        // written straight to the file, as the other server does; the last line is not finished yet
+        String whole = new LogEntry(1001, LogType.deposit, "ATM deposited 5.0, new balance 15.0", START).toString();
+        String next = new LogEntry(1002, LogType.withdrawal, "ATM withdrew 1.0, new balance 9.0", START + 1).toString();
+        try (FileWriter out = new FileWriter(log, true)) {
+            out.write(whole + "\n" + next.substring(0, 10));
+        }
+        List<LogEntry> recent = ring.recent(-1, null, Long.MIN_VALUE, 10);
+        assertEquals(1, recent.size());
+        assertEquals(whole, recent.get(0).toString());
+
+        try (FileWriter out = new FileWriter(log, true)) {
+            out.write(next.substring(10) + "\n");
+        }
+        recent = ring.recent(-1, null, Long.MIN_VALUE, 10);
+        assertEquals(2, recent.size());
+        assertEquals(next, recent.get(0).toString());
+    }
+}
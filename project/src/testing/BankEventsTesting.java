@@ -0,0 +1,85 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountTransfer;
+import group3.LogEntry;
+import group3.LogType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class BankEventsTesting {
+
+    @Test
+    public void testTransferIsRecorded() throws Exception {
+        File accounts = File.createTempFile("events_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(accounts)) {
+            out.println("1001,1234,checking,100.0");
+            out.println("1002,4321,saving,20.0");
+        }
+        File log = File.createTempFile("events_log", ".txt");
+        File dump = File.createTempFile("events", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("bank.StorageAccess");
+            recording.enable("bank.LogAppend");
+            recording.start();
+            assertTrue(new AccountTransfer(accounts, log).transfer("1001", "1002", 5, "Teller").isDone());
+            recording.stop();
+            recording.dump(dump.toPath());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath()).stream()
+                .filter(e -> e.getEventType().getName().startsWith("bank."))
+                .collect(Collectors.toList());
+        List<String> operations = events.stream()
+                .filter(e -> e.getEventType().getName().equals("bank.StorageAccess"))
+                .map(e -> e.getString("operation"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("read", "rewrite"), operations);
+
+        RecordedEvent rewrite = events.stream()
+                .filter(e -> e.getEventType().getName().equals("bank.StorageAccess")
+                        && e.getString("operation").equals("rewrite"))
+                .findFirst().get();
+        assertEquals(accounts.getName(), rewrite.getString("file"));
+        assertEquals(1001, rewrite.getInt("account"));
+        assertEquals(2, rewrite.getInt("lines"));
+        assertEquals(accounts.length(), rewrite.getLong("bytes"));
+
+        RecordedEvent append = events.stream().filter(e -> e.getEventType().getName().equals("bank.LogAppend"))
+                .findFirst().get();
+        assertEquals(1001, append.getInt("account"));
+        assertEquals(1, append.getInt("entries"));
+        assertEquals(log.length(), append.getLong("bytes"));
+        assertEquals("ok", append.getString("outcome"));
+    }
+
+    @Test
+    public void testBatchAppendIsOneEvent() throws Exception {
+        File log = File.createTempFile("events_log", ".txt");
+        File dump = File.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("bank.LogAppend");
+            recording.start();
+            LogEntry.appendAllToLog(log, List.of(new LogEntry(1001, LogType.deposit, "ATM deposited 5.0"),
+                    new LogEntry(1002, LogType.withdrawal, "ATM withdrew 2.0")));
+            recording.stop();
+            recording.dump(dump.toPath());
+        }
+        List<RecordedEvent> appends = RecordingFile.readAllEvents(dump.toPath()).stream()
+                .filter(e -> e.getEventType().getName().equals("bank.LogAppend"))
+                .collect(Collectors.toList());
+        assertEquals(1, appends.size());
+        assertEquals(2, appends.get(0).getInt("entries"));
+        assertEquals(log.length(), appends.get(0).getLong("bytes"));
+    }
+}
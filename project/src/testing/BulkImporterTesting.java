@@ -0,0 +1,84 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import group3.BulkImporter;
+
+public class BulkImporterTesting {
+
+    private File accounts;
+    private File profiles;
+    private BulkImporter importer;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        accounts = File.createTempFile("import_accounts", ".txt");
+        profiles = File.createTempFile("import_profiles", ".txt");
+        File log = File.createTempFile("import_log", ".txt");
+        try (PrintWriter out = new PrintWriter(accounts)) {
+            out.println("1234,1111,checking,500.0");
+        }
+        importer = new BulkImporter(accounts, profiles, log);
+    }
+
+    @Test
+    public void testImportCsvAndJson() throws Exception {
+        String input = "account,3001,1111,checking,100\n"
+                + "{\"kind\":\"account\",\"accountNumber\":\"3002\",\"pin\":\"2222\",\"type\":\"lineOfCredit\",\"initialBalance\":1000}\n"
+                + "profile,jdoe,pw,Jane Doe,5551234,1 Main St,jane@mail.com\n";
+
+        BulkImporter.Result result = importer.importFrom(new StringReader(input));
+
+        assertEquals(2, result.getAccounts());
+        assertEquals(1, result.getProfiles());
+        assertTrue(Files.readAllLines(accounts.toPath()).contains("3002,2222,lineOfCredit,1000.0,1000.0"));
+        assertEquals("jdoe,pw,Jane Doe,5551234,1 Main St,jane@mail.com,0,[]",
+                Files.readAllLines(profiles.toPath()).get(0));
+    }
+
+    @Test
+    public void testDuplicatesAndInvalidLinesRejected() throws Exception {
+        String input = "account,1234,1111,checking,100\n"
+                + "account,3001,1111,checking,100\n"
+                + "account,3001,1111,checking,100\n"
+                + "account,abc,1111,checking,100\n"
+                + "account,3003,1111,bogus,100\n";
+
+        BulkImporter.Result result = importer.importFrom(new StringReader(input));
+
+        assertEquals(1, result.getAccounts());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(2, result.getInvalid());
+        assertEquals(2, Files.readAllLines(accounts.toPath()).size());
+    }
+
+    @Test
+    public void testFieldsThatWouldCorruptTheFilesAreRejected() throws Exception {
+        String input = "account,3101,1111,checking,NaN\n"
+                + "account,3102,1111,saving,Infinity\n"
+                + "account,3103,1111,checking,-50\n"
+                + "account,3104,-111,checking,5\n"
+                + "profile,smith,pw,\"Smith, John\",5551234,1 Main St,s@mail.com\n"
+                + "{\"kind\":\"profile\",\"username\":\"jones\",\"password\":\"pw\",\"name\":\"Jones, Ann\","
+                + "\"phone\":\"5551234\",\"address\":\"2 Main St\",\"email\":\"j@mail.com\"}\n"
+                + "{\"kind\":\"profile\",\"username\":\"lee\",\"password\":\"pw\",\"name\":\"Lee\","
+                + "\"phone\":\"5551234\",\"address\":\"3 Main St\\nevil,x\",\"email\":\"l@mail.com\"}\n"
+                + "account,3105,1111,checking,5\n";
+        int before = Files.readAllLines(profiles.toPath()).size();
+
+        BulkImporter.Result result = importer.importFrom(new StringReader(input));
+
+        assertEquals(1, result.getAccounts());
+        assertEquals(0, result.getProfiles());
+        assertEquals(7, result.getInvalid());
+        assertEquals(before, Files.readAllLines(profiles.toPath()).size());
+    }
+}
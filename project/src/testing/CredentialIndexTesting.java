@@ -0,0 +1,81 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+
+import org.junit.jupiter.api.Test;
+
+import group3.CredentialIndex;
+
+public class CredentialIndexTesting {
+
+    @Test
+    public void testVerify() throws Exception {
+        File file = File.createTempFile("cred_profiles", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("alice,secret,Alice,5551234,1 Main St,a@x.com,700,[]");
+            out.println("bob,hunter2,Bob,5555678,2 Main St,b@x.com,650,[1001]");
+        }
+        CredentialIndex index = CredentialIndex.forFile(file);
+        assertEquals(2, index.size());
+        assertTrue(index.verify("alice", "secret"));
+        assertTrue(index.verify("alice", "secret"));
+        assertFalse(index.verify("alice", "hunter2"));
+        assertFalse(index.verify("carol", "secret"));
+        assertFalse(index.verify(null, "secret"));
+    }
+
+    @Test
+    public void testPutAndExternalWrites() throws Exception {
+        File file = File.createTempFile("cred_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("1001,1234,checking,50.0");
+        }
+        CredentialIndex index = CredentialIndex.forFile(file);
+        assertTrue(index.verify("1001", "1234"));
+
+        // PIN changed through the server
+        index.put("1001", "4321");
+        assertFalse(index.verify("1001", "1234"));
+        assertTrue(index.verify("1001", "4321"));
+
+        // account added by another process
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("1002,9999,saving,10.0");
+        }
+        assertTrue(index.verify("1002", "9999"));
+        assertTrue(index.contains("1002"));
+    }
+
+    @Test
+    public void testRebuildKeepsWritesMadeWhileLoading() throws Exception {
+        File file = File.createTempFile("cred_rebuild", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int i = 0; i < 20_000; i++) {
+                out.println((100_000 + i) + ",1234,checking,50.0");
+            }
+        }
+        CredentialIndex index = CredentialIndex.forFile(file);
+        assertEquals(20_000, index.size());
+
+        // an edit made without the lock: the next check starts a rebuild and
+        // is answered from the map as it was
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("200000,5555,saving,10.0");
+        }
+        assertTrue(index.verify("100000", "1234"));
+        // an account created while the rebuild may already be past the end of the file
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("200001,7777,saving,10.0");
+        }
+        index.put("200001", "7777");
+
+        // a key the old map does not know waits for the rebuild
+        assertTrue(index.verify("200000", "5555"));
+        assertTrue(index.verify("200001", "7777"));
+        assertEquals(20_002, index.size());
+    }
+}
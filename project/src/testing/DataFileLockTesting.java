@@ -0,0 +1,102 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import group3.DataFileLock;
+import group3.RecordVersions;
+
+public class DataFileLockTesting {
+
+    @Test
+    public void testNoLostUpdates() throws Exception {
+        File file = File.createTempFile("lock_accounts", ".txt");
+        DataFileLock lock = DataFileLock.forFile(file);
+        long before = lock.version();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    try (DataFileLock.Held held = lock.lockExclusive()) {
+                        String text = Files.readString(file.toPath()).trim();
+                        long value = text.isEmpty() ? 0 : Long.parseLong(text);
+                        try (PrintWriter out = new PrintWriter(file)) {
+                            out.println(value + 1);
+                        }
+                        held.touched("1001");
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals("400", Files.readString(file.toPath()).trim());
+        assertEquals(before + 400, lock.version());
+    }
+
+    @Test
+    public void testCursorSkipsOwnWritesAndFlagsUnlockedEdits() throws Exception {
+        File file = File.createTempFile("lock_profiles", ".txt");
+        DataFileLock lock = DataFileLock.forFile(file);
+        DataFileLock.Cursor cursor = lock.cursor();
+        assertEquals(0, cursor.poll().length);
+
+        // a locked write made by this process is already known to it
+        try (DataFileLock.Held held = lock.lockExclusive();
+                PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("alice,secret,Alice,5551234,1 Main St,a@x.com,700,[]");
+            held.touched("alice");
+        }
+        assertEquals(0, cursor.poll().length);
+
+        // an edit made without the lock cannot be narrowed down
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("bob,hunter2,Bob,5555678,2 Main St,b@x.com,650,[]");
+        }
+        assertNull(cursor.poll());
+        assertEquals(0, cursor.poll().length);
+    }
+
+    @Test
+    public void testRefusedWriteChangesNoVersion() throws Exception {
+        File file = File.createTempFile("lock_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("1001,1234,checking,50.0");
+            out.println("1002,4321,saving,20.0");
+        }
+        RecordVersions versions = RecordVersions.forFile(file);
+        long v1001 = versions.version("1001");
+        long v1002 = versions.version("1002");
+        DataFileLock lock = DataFileLock.forFile(file);
+        long before = lock.version();
+
+        try (DataFileLock.Held held = lock.lockExclusive()) {
+            held.unchanged();
+        }
+        assertEquals(before, lock.version());
+        assertEquals(v1001, versions.version("1001"));
+
+        // a hold that reports a record still publishes it, and only it
+        try (DataFileLock.Held held = lock.lockExclusive()) {
+            held.unchanged();
+            held.touched("1001");
+        }
+        assertEquals(before + 1, lock.version());
+        assertNotEquals(v1001, versions.version("1001"));
+        assertEquals(v1002, versions.version("1002"));
+
+        // one that says nothing is taken to have changed the whole file
+        lock.lockExclusive().close();
+        assertNotEquals(v1002, versions.version("1002"));
+    }
+}
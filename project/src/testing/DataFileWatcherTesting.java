@@ -0,0 +1,44 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import group3.DataFileWatcher;
+
+public class DataFileWatcherTesting {
+
+    @Test
+    public void testReloadPassesOnlyChangedRecords() throws Exception {
+        File dir = Files.createTempDirectory("watch").toFile();
+        File file = new File(dir, "profiles.txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("alice,secret,Alice,5551234,1 Main St,a@x.com,700,[]");
+            out.println("bob,hunter2,Bob,5555678,2 Main St,b@x.com,650,[1001]");
+            out.println("carol,pw,Carol,5550000,3 Main St,c@x.com,600,[]");
+        }
+        Map<String, String> changes = new HashMap<>();
+        DataFileWatcher watcher = new DataFileWatcher(dir).watch(file, changes::put);
+
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("alice,secret,Alice,5551234,1 Main St,a@x.com,700,[]");
+            out.println("bob,newpass,Bob,5555678,2 Main St,b@x.com,650,[1001]");
+            out.println("dave,pw,Dave,5551111,4 Main St,d@x.com,0,[]");
+        }
+        assertEquals(3, watcher.reload(file));
+        assertEquals("bob,newpass,Bob,5555678,2 Main St,b@x.com,650,[1001]", changes.get("bob"));
+        assertEquals("dave,pw,Dave,5551111,4 Main St,d@x.com,0,[]", changes.get("dave"));
+        assertTrue(changes.containsKey("carol"));
+        assertNull(changes.get("carol"));
+        assertFalse(changes.containsKey("alice"));
+
+        // nothing changed since the last reload
+        assertEquals(0, watcher.reload(file));
+    }
+}
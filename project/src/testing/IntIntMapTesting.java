@@ -0,0 +1,73 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import group3.IntIntMap;
+
+public class IntIntMapTesting {
+
+    @Test
+    public void testPutGetRemove() {
+        IntIntMap map = new IntIntMap(4);
+        assertEquals(IntIntMap.NO_VALUE, map.put(1212, 0));
+        assertEquals(0, map.put(1212, 5));
+        assertEquals(5, map.get(1212));
+        assertEquals(IntIntMap.NO_VALUE, map.get(1213));
+        assertEquals(1, map.size());
+
+        assertEquals(5, map.remove(1212));
+        assertEquals(IntIntMap.NO_VALUE, map.remove(1212));
+        assertFalse(map.containsKey(1212));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testZeroAndNegativeKeys() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(0, 7);
+        map.put(-1, 8);
+        map.put(Integer.MIN_VALUE, 9);
+        assertEquals(7, map.get(0));
+        assertEquals(8, map.get(-1));
+        assertEquals(9, map.get(Integer.MIN_VALUE));
+        assertEquals(3, map.size());
+        assertEquals(7, map.remove(0));
+        assertEquals(IntIntMap.NO_VALUE, map.get(0));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testNegativeValuesRejected() {
+        IntIntMap map = new IntIntMap(4);
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+    }
+
+    @Test
+    public void testAgreesWithHashMap() {
+        // random puts and removes over a small key range, so probe runs collide and shift often
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? IntIntMap.NO_VALUE : previous, map.remove(key));
+            } else {
+                Integer previous = expected.put(key, i);
+                assertEquals(previous == null ? IntIntMap.NO_VALUE : previous, map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 5_000; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? IntIntMap.NO_VALUE : value, map.get(key));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import group3.InterestAccrualJob;
+
+public class InterestAccrualJobTesting {
+
+    private File accountsWith(String... lines) throws Exception {
+        File accounts = File.createTempFile("accrual_accounts", ".txt");
+        accounts.deleteOnExit();
+        new File(accounts.getPath() + ".accrued").deleteOnExit();
+        try (PrintWriter out = new PrintWriter(accounts)) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        return accounts;
+    }
+
+    @Test
+    public void testSavingsAndCreditAccrual() throws Exception {
+        File accounts = accountsWith("1000,1111,checking,500.0", "1001,1111,saving,36500.0",
+                "1002,2222,lineOfCredit,10.0,3660", "1003,2222,lineOfCredit,1000,1000",
+                "1004,2222,lineOfCredit,0.5,3650.5", "1005,2222,lineOfCredit,0,3650");
+        File log = File.createTempFile("accrual_log", ".txt");
+
+        // 1% a year on savings, 10% a year on credit used
+        InterestAccrualJob job = new InterestAccrualJob(accounts, log, 0.01, 0.10, ForkJoinPool.commonPool());
+        InterestAccrualJob.Result result = job.run();
+
+        List<String> lines = Files.readAllLines(accounts.toPath());
+        assertEquals("1000,1111,checking,500.0", lines.get(0));
+        assertEquals("1001,1111,saving,36501.0", lines.get(1));
+        assertEquals("1002,2222,lineOfCredit,9.0,3660", lines.get(2));
+        assertEquals("1003,2222,lineOfCredit,1000,1000", lines.get(3));
+        // a charge never takes the available balance below 0
+        assertEquals("1004,2222,lineOfCredit,0.0,3650.5", lines.get(4));
+        assertEquals("1005,2222,lineOfCredit,0,3650", lines.get(5));
+        assertEquals(3, result.getChanged());
+        assertEquals(3, Files.readAllLines(log.toPath()).size());
+    }
+
+    @Test
+    public void testEachDayIsAccruedOnce() throws Exception {
+        File accounts = accountsWith("1001,1111,saving,36500.0");
+        File log = File.createTempFile("accrual_log", ".txt");
+        InterestAccrualJob job = new InterestAccrualJob(accounts, log, 0.01, 0.10, ForkJoinPool.commonPool());
+        LocalDate day = LocalDate.of(2024, 3, 1);
+
+        assertEquals(1, job.run(day).getDays());
+        // a second run, or another process, finds the day done
+        assertEquals(0, job.run(day).getDays());
+        assertEquals(0, new InterestAccrualJob(accounts, log, 0.01, 0.10, ForkJoinPool.commonPool()).run(day)
+                .getDays());
+        assertEquals("1001,1111,saving,36501.0", Files.readAllLines(accounts.toPath()).get(0));
+
+        // two missed days are caught up, compounding as two runs would
+        assertEquals(3, job.run(day.plusDays(3)).getDays());
+        assertEquals("1001,1111,saving,36504.0", Files.readAllLines(accounts.toPath()).get(0));
+        assertEquals(2, Files.readAllLines(log.toPath()).size());
+    }
+}
@@ -0,0 +1,72 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import group3.LatencyHistogram;
+
+public class LatencyHistogramTesting {
+
+    @Test
+    public void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000L * 10_001 / 2, histogram.getSumMicros());
+        assertEquals(10_000, histogram.getMaxMicros());
+        assertEquals(5_000, histogram.percentile(0.5), 5_000 / 32.0);
+        assertEquals(9_900, histogram.percentile(0.99), 9_900 / 32.0);
+        assertEquals(9_990, histogram.percentile(0.999), 9_990 / 32.0);
+        assertEquals(10_000, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 63; i++) {
+            histogram.record(i);
+        }
+        assertEquals(31, histogram.percentile(0.5));
+        assertEquals(0, new LatencyHistogram().percentile(0.99));
+    }
+
+    @Test
+    public void testOutliersShowInTheTail() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 998; i++) {
+            histogram.record(200);
+        }
+        histogram.record(3_000_000);
+        histogram.record(-5);
+        assertEquals(200, histogram.percentile(0.99), 200 / 32.0);
+        assertEquals(3_000_000, histogram.percentile(0.9995), 3_000_000 / 32.0);
+        assertEquals(3_000_000, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i % 1_000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(999, histogram.percentile(1.0));
+        assertEquals(500, histogram.percentile(0.5), 500 / 32.0);
+    }
+}
@@ -1,3 +1,31 @@
 package testing;
 
-//LogEntry in progress
\ No newline at end of file
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import group3.CoarseClock;
+import group3.LogEntry;
+import group3.LogType;
+
+public class LogEntryTesting {
+
+    @Test
+    public void testDateRenderedOnlyOnOutput() {
+        long micros = CoarseClock.parse("2025-12-01T09:30:00.123456");
+        LogEntry entry = new LogEntry(1001, LogType.deposit, "Deposited 5.0", micros);
+
+        assertEquals(micros, entry.getMicros());
+        assertEquals("1001,deposit,Deposited 5.0,2025-12-01T09:30:00.123456", entry.toString());
+        assertEquals(micros, CoarseClock.parse(entry.getDateTime()));
+    }
+
+    @Test
+    public void testCoarseClockNeverGoesBackwards() throws Exception {
+        long first = new LogEntry(0, LogType.login, "first").getMicros();
+        Thread.sleep(5);
+        long second = new LogEntry(0, LogType.login, "second").getMicros();
+        assertTrue(second > first);
+        assertTrue(Math.abs(System.currentTimeMillis() * 1000 - second) < 1_000_000);
+    }
+}
@@ -0,0 +1,83 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import group3.CoarseClock;
+import group3.LogEntry;
+import group3.LogIndex;
+import group3.LogType;
+
+public class LogIndexTesting {
+    private static final long START = CoarseClock.parse("2025-12-01T00:00");
+    private static final long MINUTE = 60_000_000L;
+
+    // one entry a minute from START, with a comma in the message like some real ones
+    private File writeLog(int entries) throws Exception {
+        File log = File.createTempFile("index_log", ".txt");
+        try (PrintWriter out = new PrintWriter(log)) {
+            for (int i = 0; i < entries; i++) {
+                out.println(new LogEntry(1000 + i % 7, LogType.deposit, "Deposited " + i + ", ok", START + i * MINUTE));
+            }
+        }
+        return log;
+    }
+
+    @Test
+    public void testRangeAcrossSegments() throws Exception {
+        // small segments so a range spans many of them
+        LogIndex index = new LogIndex(writeLog(1_000), 512);
+
+        List<String> lines = index.between(START + 100 * MINUTE, START + 200 * MINUTE, 10_000);
+        assertEquals(100, lines.size());
+        assertTrue(lines.get(0).contains("Deposited 100,"));
+        assertTrue(lines.get(99).contains("Deposited 199,"));
+        assertTrue((int) index.stats().get("segments") > 10);
+
+        assertEquals(1_000, index.between(Long.MIN_VALUE, Long.MAX_VALUE, 10_000).size());
+        assertEquals(5, index.between(START, Long.MAX_VALUE, 5).size());
+        assertTrue(index.between(START - 10 * MINUTE, START, 10).isEmpty());
+    }
+
+    @Test
+    public void testFollowsAppendsAndRewrites() throws Exception {
+        File log = writeLog(10);
+        LogIndex index = new LogIndex(log, 128);
+        assertEquals(10, index.between(START, Long.MAX_VALUE, 100).size());
+
+        LogEntry.appendToLog(log, new LogEntry(1001, LogType.withdrawal, "later", START + 500 * MINUTE));
+        List<String> lines = index.between(START + 400 * MINUTE, Long.MAX_VALUE, 100);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("later"));
+
+        // a shorter log replaced the old one
+        try (PrintWriter out = new PrintWriter(new FileWriter(log))) {
+            out.println(new LogEntry(1002, LogType.login, "fresh", START + 5 * MINUTE));
+        }
+        assertEquals(1, index.between(START, Long.MAX_VALUE, 100).size());
+    }
+
+    @Test
+    public void testLateEntryInsideTheRangeIsFound() throws Exception {
+        File log = File.createTempFile("index_log", ".txt");
+        try (PrintWriter out = new PrintWriter(log)) {
+            for (int i = 0; i < 100; i++) {
+                out.println(new LogEntry(1001, LogType.login, "login " + i, START + i * MINUTE));
+            }
+            // stamped before a long rewrite, appended after entries with later times
+            out.println(new LogEntry(1002, LogType.deposit, "late", START + 99 * MINUTE - 20_000_000L));
+            out.println(new LogEntry(1001, LogType.logout, "after", START + 100 * MINUTE));
+        }
+        LogIndex index = new LogIndex(log, 256, 30_000_000L);
+
+        List<String> lines = index.between(START + 98 * MINUTE + MINUTE / 2, START + 99 * MINUTE, 100);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("late"));
+    }
+}
@@ -0,0 +1,96 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import group3.LoginThrottle;
+
+public class LoginThrottleTesting {
+
+    @Test
+    public void testLocksAfterFreeFailuresWithGrowingBackoff() {
+        LoginThrottle throttle = new LoginThrottle(100, 3, 100, 1_000, 60_000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.retryAfter("atm:1001", "10.0.0.1"));
+            throttle.failed("atm:1001", "10.0.0.1");
+        }
+        // the third failure was the last free one
+        assertEquals(0, throttle.retryAfter("atm:1001", "10.0.0.1"));
+
+        throttle.failed("atm:1001", "10.0.0.1");
+        long first = throttle.retryAfter("atm:1001", "10.0.0.1");
+        assertTrue(first > 0 && first <= 1_000);
+
+        throttle.failed("atm:1001", "10.0.0.1");
+        long second = throttle.retryAfter("atm:1001", "10.0.0.1");
+        assertTrue(second > 1_000 && second <= 2_000);
+        assertEquals(2L, throttle.stats().get("lockouts"));
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        LoginThrottle throttle = new LoginThrottle(100, 0, 1_000, 1_000, 5_000);
+        for (int i = 0; i < 50; i++) {
+            throttle.failed("customer:user1", "10.0.0.1");
+        }
+        assertTrue(throttle.retryAfter("customer:user1", "10.0.0.1") <= 5_000);
+    }
+
+    @Test
+    public void testOtherAddressesAreNotLockedOut() {
+        LoginThrottle throttle = new LoginThrottle(100, 1, 100, 60_000, 60_000);
+        throttle.failed("atm:1001", "10.0.0.66");
+        throttle.failed("atm:1001", "10.0.0.66");
+        assertTrue(throttle.retryAfter("atm:1001", "10.0.0.66") > 0);
+
+        // the owner of the account, somewhere else, can still log in
+        assertEquals(0, throttle.retryAfter("atm:1001", "10.0.0.1"));
+    }
+
+    @Test
+    public void testAddressIsLockedAcrossCredentials() {
+        LoginThrottle throttle = new LoginThrottle(100, 100, 3, 60_000, 60_000);
+        for (int i = 0; i < 4; i++) {
+            throttle.failed("atm:" + (1000 + i), "10.0.0.66");
+        }
+        // an account never tried from here is turned away as well
+        assertTrue(throttle.retryAfter("atm:2000", "10.0.0.66") > 0);
+        assertEquals(0, throttle.retryAfter("atm:2000", "10.0.0.1"));
+        assertEquals(1L, throttle.stats().get("rejected"));
+    }
+
+    @Test
+    public void testSuccessClearsPair() {
+        LoginThrottle throttle = new LoginThrottle(100, 2, 100, 60_000, 60_000);
+        throttle.failed("employee:admin", "10.0.0.1");
+        throttle.failed("employee:admin", "10.0.0.1");
+        throttle.succeeded("employee:admin", "10.0.0.1");
+        // the count starts over, so one more mistake does not lock
+        throttle.failed("employee:admin", "10.0.0.1");
+        assertEquals(0, throttle.retryAfter("employee:admin", "10.0.0.1"));
+    }
+
+    @Test
+    public void testKnownLoginIsNotHeldBackByItsAddress() {
+        LoginThrottle throttle = new LoginThrottle(100, 3, 2, 60_000, 15 * 60_000, 60_000);
+        throttle.succeeded("atm:1001", "10.0.0.66");
+        // a neighbour behind the same address guesses another account
+        throttle.failed("atm:2000", "10.0.0.66");
+        throttle.failed("atm:2000", "10.0.0.66");
+        throttle.failed("atm:2000", "10.0.0.66");
+        assertEquals(0, throttle.retryAfter("atm:1001", "10.0.0.66"));
+        long wait = throttle.retryAfter("atm:3000", "10.0.0.66");
+        assertTrue(wait > 0 && wait <= 60_000);
+    }
+
+    @Test
+    public void testBounded() {
+        LoginThrottle throttle = new LoginThrottle(10, 3, 3, 1_000, 60_000);
+        for (int i = 0; i < 1_000; i++) {
+            throttle.failed("atm:" + i, "10.0." + (i / 256) + "." + (i % 256));
+        }
+        assertEquals(10, throttle.stats().get("trackedPairs"));
+        assertEquals(10, throttle.stats().get("trackedAddresses"));
+    }
+}
@@ -61,6 +61,17 @@ public class MessageTesting {
         assertEquals("452", m.getNum());
         
     }
-}
 
-    
+    @Test
+    public void testReplyKeepsTraceId() {
+
+        Message request = new Message(MessageStatus.request, MessageType.deposit, Application.teller, "1001", "5.0");
+        Message other = new Message(MessageStatus.request, MessageType.deposit, Application.teller, "1001", "5.0");
+        Message reply = new Message(MessageStatus.confirmation, MessageType.deposit, Application.teller, "1001", "valid",
+                request.getTraceId());
+
+        assertNotEquals(request.getTraceId(), other.getTraceId());
+        assertEquals(request.getTraceId(), reply.getTraceId());
+
+    }
+}
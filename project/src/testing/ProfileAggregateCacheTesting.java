@@ -0,0 +1,82 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountCache;
+import group3.DataFileLock;
+import group3.Profile;
+import group3.ProfileAggregateCache;
+
+public class ProfileAggregateCacheTesting {
+
+    private File write(String prefix, String... lines) throws Exception {
+        File file = File.createTempFile(prefix, ".txt");
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testBuildsAndHits() throws Exception {
+        File accounts = write("aggregate_accounts", "1001,1234,checking,100.0", "1002,4321,saving,20.0");
+        File profiles = write("aggregate_profiles",
+                "user1,pass1,DEMO USER,1234567890,111 street,a@b.com,400,[1001,1002]");
+        ProfileAggregateCache cache = new ProfileAggregateCache(profiles, accounts, 10);
+
+        ProfileAggregateCache.Aggregate aggregate = cache.get("user1");
+        assertEquals("DEMO USER", aggregate.getName());
+        assertEquals(2, aggregate.getAccounts().size());
+        assertEquals(20.0, aggregate.getAccounts().get(1).getBalance());
+        assertSame(aggregate, cache.get("user1"));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+
+        Profile profile = aggregate.toProfile("pass1");
+        assertEquals("pass1", profile.getPassword());
+        assertEquals(400, profile.getCreditScore());
+        assertEquals(2, profile.getAccounts().length);
+        assertEquals(1001, profile.getAccounts()[0].getNum());
+    }
+
+    @Test
+    public void testRebuildsAfterAccountWrite() throws Exception {
+        File accounts = write("aggregate_accounts", "1001,1234,checking,100.0");
+        File profiles = write("aggregate_profiles", "user1,pass1,DEMO USER,1234567890,111 street,a@b.com,0,[1001]");
+        ProfileAggregateCache cache = new ProfileAggregateCache(profiles, accounts, 10);
+        ProfileAggregateCache.Aggregate before = cache.get("user1");
+
+        // the way every writer does it: under the exclusive lock, touching the account
+        try (DataFileLock.Held held = DataFileLock.forFile(accounts).lockExclusive();
+                PrintWriter out = new PrintWriter(accounts)) {
+            out.println("1001,1234,checking,55.0");
+            held.touched("1001");
+            AccountCache.forFile(accounts).put("1001,1234,checking,55.0");
+        }
+
+        ProfileAggregateCache.Aggregate after = cache.get("user1");
+        assertNotSame(before, after);
+        assertNotEquals(before.getVersions(), after.getVersions());
+        assertEquals(55.0, after.getAccounts().get(0).getBalance());
+        assertEquals(1L, cache.stats().get("rebuilds"));
+    }
+
+    @Test
+    public void testUnknownUser() throws Exception {
+        File accounts = write("aggregate_accounts", "1001,1234,checking,100.0");
+        File profiles = write("aggregate_profiles", "user1,pass1,DEMO USER,1234567890,111 street,a@b.com,0,[]");
+        ProfileAggregateCache cache = new ProfileAggregateCache(profiles, accounts, 10);
+
+        assertNull(cache.get("nobody"));
+        // a prefix of another username is not a match
+        assertNull(cache.get("user"));
+        assertTrue(cache.get("user1").getAccounts().isEmpty());
+    }
+}
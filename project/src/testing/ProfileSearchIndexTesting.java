@@ -0,0 +1,76 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import group3.ProfileSearchIndex;
+
+public class ProfileSearchIndexTesting {
+
+    private ProfileSearchIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new ProfileSearchIndex();
+        index.put("mbrown,secure456,Mark Brown,7778888,456 Example Rd,mark@mail.com,0,[]");
+        index.put("jdoe,pw,Jane Doe,5551234567,1 Main St,jane.doe@gmail.com,700,[1212]");
+        index.put("markus,pw,Markus Stone,5550000000,9 Elm St,stone@mail.com,0,[]");
+    }
+
+    @Test
+    public void testExactMatchRanksFirst() {
+        List<Map<String, Object>> results = index.search("mark", 10);
+        assertEquals(2, results.size());
+        assertEquals("mbrown", results.get(0).get("username"));
+        assertEquals("markus", results.get(1).get("username"));
+    }
+
+    @Test
+    public void testPartialPhoneAndEmail() {
+        assertEquals("jdoe", index.search("4567", 10).get(0).get("username"));
+        assertEquals("jdoe", index.search("gmail", 10).get(0).get("username"));
+    }
+
+    @Test
+    public void testAllTermsMustMatch() {
+        List<Map<String, Object>> results = index.search("mark stone", 10);
+        assertEquals(1, results.size());
+        assertEquals("markus", results.get(0).get("username"));
+    }
+
+    @Test
+    public void testUpdateReplacesOldFields() {
+        index.put("jdoe,pw,Jane Smith,5551234567,1 Main St,jane.doe@gmail.com,700,[1212]");
+        assertTrue(index.search("doe jane smith", 10).size() == 1);
+        assertTrue(index.search("jane doe st", 10).get(0).get("name").equals("Jane Smith"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testTypoFallsBackToNgrams() {
+        assertEquals("markus", index.search("markis", 10).get(0).get("username"));
+    }
+
+    @Test
+    public void testRepeatedUpdatesAreCompactedAway() {
+        for (int i = 0; i < 1000; i++) {
+            index.put("jdoe,pw,Jane Doe,5551234567," + i + " Main St,jane.doe@gmail.com,700,[1212]");
+        }
+        index.remove("markus");
+
+        Map<String, Object> stats = index.stats();
+        assertTrue((Long) stats.get("compactions") > 0);
+        assertTrue((Integer) stats.get("deadDocs") < 64);
+        assertEquals(2, index.size());
+        List<Map<String, Object>> results = index.search("jane", 10);
+        assertEquals(1, results.size());
+        assertEquals("999 Main St", results.get(0).get("address"));
+        assertEquals("mbrown", index.search("mark", 10).get(0).get("username"));
+        assertTrue(index.search("stone", 10).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import group3.RecordReader;
+
+public class RecordReaderTesting {
+
+    private RecordReader reader(String text) {
+        return new RecordReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testFieldsAndLines() throws Exception {
+        RecordReader r = reader("1001,1234,checking,100.5\r\n\nuser1,pass1,Zo\u00eb,,0,[1,2]");
+        assertTrue(r.next());
+        assertEquals(4, r.fields());
+        assertEquals(1001, r.intField(0));
+        assertTrue(r.fieldEquals(2, "checking"));
+        assertFalse(r.fieldEquals(2, "check"));
+        assertTrue(r.fieldStartsWith(2, "check"));
+        assertEquals(100.5, r.decimalField(3));
+        assertEquals("1001,1234,checking,100.5", r.line());
+
+        assertTrue(r.next());
+        assertTrue(r.isBlank());
+        assertEquals(1, r.fields());
+
+        assertTrue(r.next());
+        assertTrue(r.fieldEquals(2, "Zo\u00eb"));
+        assertEquals("Zo\u00eb", r.field(2));
+        assertEquals("", r.field(3));
+        assertEquals("[1,2]", r.rest(5));
+        assertFalse(r.next());
+        assertFalse(reader("").next());
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        RecordReader r = reader("-2147483648,9223372036854775807,12x,2147483648, 42 ");
+        assertTrue(r.next());
+        assertEquals(Integer.MIN_VALUE, r.intField(0));
+        assertEquals(Long.MAX_VALUE, r.longField(1));
+        assertThrows(NumberFormatException.class, () -> r.intField(2));
+        assertThrows(NumberFormatException.class, () -> r.intField(3));
+        assertEquals(42, r.intField(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> r.field(5));
+    }
+
+    @Test
+    public void testDecimalsMatchParseDouble() throws Exception {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder("1.0E7,-0.0,.5,5.,NaN,0.30000000000000004\n");
+        for (int i = 0; i < 10_000; i++) {
+            text.append(random.nextInt(10_000_000) / 100.0).append(',')
+                    .append(String.valueOf(random.nextDouble() * 1e6)).append('\n');
+        }
+        RecordReader r = reader(text.toString());
+        while (r.next()) {
+            for (int i = 0; i < r.fields(); i++) {
+                assertEquals(Double.parseDouble(r.field(i)), r.decimalField(i));
+            }
+        }
+    }
+
+    @Test
+    public void testLinesAcrossChunks() throws Exception {
+        File file = File.createTempFile("records", ".txt");
+        String longField = "x".repeat(200_000);
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int i = 0; i < 50_000; i++) {
+                out.println(i + ",1234,checking," + i + ".25");
+            }
+            out.print("50000," + longField);
+        }
+        int count = 0;
+        try (RecordReader r = new RecordReader(file)) {
+            while (r.next()) {
+                assertEquals(count, r.intField(0));
+                if (count < 50_000) {
+                    assertEquals(count + 0.25, r.decimalField(3));
+                } else {
+                    assertEquals(longField, r.field(1));
+                }
+                count++;
+            }
+        }
+        assertEquals(50_001, count);
+    }
+}
@@ -0,0 +1,54 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+
+import org.junit.jupiter.api.Test;
+
+import group3.DataFileLock;
+import group3.RecordVersions;
+
+public class RecordVersionsTesting {
+
+    @Test
+    public void testOnlyWrittenRecordsChangeVersion() throws Exception {
+        File file = File.createTempFile("versions_accounts", ".txt");
+        RecordVersions versions = RecordVersions.forFile(file);
+        String aliceTag = RecordVersions.etag(versions, "1001");
+        String bobTag = RecordVersions.etag(versions, "1002");
+        assertEquals(aliceTag, RecordVersions.etag(versions, "1001"));
+
+        try (DataFileLock.Held held = DataFileLock.forFile(file).lockExclusive();
+                PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("1001,1234,checking,50.0");
+            held.touched("1001");
+        }
+        assertNotEquals(aliceTag, RecordVersions.etag(versions, "1001"));
+        assertEquals(bobTag, RecordVersions.etag(versions, "1002"));
+    }
+
+    @Test
+    public void testUnlockedEditChangesEveryVersion() throws Exception {
+        File file = File.createTempFile("versions_profiles", ".txt");
+        RecordVersions versions = RecordVersions.forFile(file);
+        String tag = RecordVersions.etag(versions, "alice", versions, "bob");
+
+        Thread.sleep(1100);
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("carol,pw,Carol,5550000,2 Elm St,c@x.com,650,[]");
+        }
+        assertNotEquals(tag, RecordVersions.etag(versions, "alice", versions, "bob"));
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(RecordVersions.matches("\"a.1\"", "\"a.1\""));
+        assertTrue(RecordVersions.matches("\"a.0\", W/\"a.1\"", "\"a.1\""));
+        assertTrue(RecordVersions.matches("*", "\"a.1\""));
+        assertFalse(RecordVersions.matches("\"a.0\"", "\"a.1\""));
+        assertFalse(RecordVersions.matches(null, "\"a.1\""));
+    }
+}
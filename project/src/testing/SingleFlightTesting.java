@@ -0,0 +1,62 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import group3.SingleFlight;
+
+public class SingleFlightTesting {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, Double> flights = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Double[] results = new Double[10];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            int i = t;
+            threads[t] = new Thread(() -> results[i] = flights.load("1001", () -> {
+                runs.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 42.0;
+            }));
+            threads[t].start();
+        }
+        // let every caller arrive while the first load is still running
+        while ((long) flights.stats().get("loads") + (long) flights.stats().get("savedLoads") < threads.length) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(1, runs.get());
+        for (Double result : results) {
+            assertEquals(42.0, result);
+        }
+        assertEquals(9L, flights.stats().get("savedLoads"));
+        assertEquals(0, flights.stats().get("inFlight"));
+    }
+
+    @Test
+    public void testLaterCallersLoadAgain() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        assertEquals(1, flights.load("k", runs::incrementAndGet));
+        assertEquals(2, flights.load("k", runs::incrementAndGet));
+        assertThrows(IllegalStateException.class, () -> flights.load("k", () -> {
+            throw new IllegalStateException("file gone");
+        }));
+        assertEquals(3, flights.load("k", runs::incrementAndGet));
+    }
+}
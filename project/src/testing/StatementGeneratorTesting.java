@@ -0,0 +1,56 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import group3.StatementGenerator;
+
+public class StatementGeneratorTesting {
+
+    private File writeLog() throws Exception {
+        File log = File.createTempFile("statement_log", ".txt");
+        try (PrintWriter out = new PrintWriter(log)) {
+            out.println("2223,deposit,ATM deposited 50.0, new balance 300.0,2025-12-01T10:00:00");
+            out.println("2224,withdrawal,Withdrew 20.0. New balance: 80.0,2025-12-02T10:00:00");
+            out.println("2223,withdrawal,Withdrew 10.0. New balance: 290.0,2025-12-03T10:00:00");
+            out.println("2223,deposit,Deposited 5.0. New balance: 295.0,2025-11-30T10:00:00");
+            out.println("0,logout,ATM logout,2025-12-03T11:00:00");
+        }
+        return log;
+    }
+
+    @Test
+    public void testStatementsGroupedByAccount() throws Exception {
+        File out = Files.createTempDirectory("statements").toFile();
+        StatementGenerator.Result result = new StatementGenerator(writeLog(), out).generate(YearMonth.of(2025, 12));
+
+        assertEquals(2, result.getAccounts());
+        assertEquals(3, result.getEntries());
+        assertFalse(result.isSpilled());
+
+        List<String> lines = Files.readAllLines(new File(out, "statement-2223-2025-12.txt").toPath());
+        assertEquals(4, lines.size());
+        assertEquals("2025-12-01T10:00:00 [deposit] ATM deposited 50.0, new balance 300.0", lines.get(1));
+        assertEquals("2025-12-03T10:00:00 [withdrawal] Withdrew 10.0. New balance: 290.0", lines.get(2));
+    }
+
+    @Test
+    public void testSpillKeepsLogOrder() throws Exception {
+        File out = Files.createTempDirectory("statements").toFile();
+        // a one byte budget spills after every entry
+        StatementGenerator.Result result = new StatementGenerator(writeLog(), out, 1).generate(YearMonth.of(2025, 12));
+
+        assertTrue(result.isSpilled());
+        List<String> lines = Files.readAllLines(new File(out, "statement-2223-2025-12.txt").toPath());
+        assertTrue(lines.get(1).startsWith("2025-12-01"));
+        assertTrue(lines.get(2).startsWith("2025-12-03"));
+        assertEquals(2, out.list().length);
+    }
+}
@@ -0,0 +1,96 @@
+package testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import group3.AccountWriteCoalescer;
+import group3.Application;
+import group3.CoarseClock;
+import group3.Message;
+import group3.MessageStatus;
+import group3.MessageType;
+import group3.RequestTrace;
+import group3.TraceSink;
+
+public class TraceSinkTesting {
+
+    private static Message request(MessageType type) {
+        return new Message(MessageStatus.request, type, Application.teller, "1001", "5.0");
+    }
+
+    @Test
+    public void testCoalescedDepositIsTimedForTheCaller() throws Exception {
+        File accounts = File.createTempFile("trace_accounts", ".txt");
+        try (PrintWriter out = new PrintWriter(accounts)) {
+            out.println("1001,1234,checking,100.0");
+        }
+        File log = File.createTempFile("trace_log", ".txt");
+        AccountWriteCoalescer coalescer = new AccountWriteCoalescer(accounts, log, 1);
+
+        Message msg = request(MessageType.deposit);
+        RequestTrace trace = RequestTrace.begin(msg, 1001, 2_000);
+        assertTrue(coalescer.deposit("1001", 5, "Teller deposited 5.0").isDone());
+        trace.end("confirmation");
+
+        assertEquals(msg.getTraceId(), trace.getTraceId());
+        assertTrue(trace.getStorageNanos() > 0);
+        assertTrue(trace.getLogNanos() > 0);
+        assertTrue(trace.getHandlerNanos() >= trace.getStorageNanos() + trace.getLogNanos());
+        assertEquals(trace.getHandlerNanos() + 2_000, trace.getTotalNanos());
+        assertTrue(TraceSink.shared().slowest(Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE).contains(trace));
+
+        // nothing is charged to a trace once it has ended
+        coalescer.deposit("1001", 5, "Teller deposited 5.0");
+        assertEquals("confirmation", trace.getOutcome());
+    }
+
+    @Test
+    public void testSlowestInAWindow() throws Exception {
+        File file = File.createTempFile("traces", ".txt");
+        TraceSink sink = new TraceSink(4, file);
+        for (int i = 0; i < 10; i++) {
+            RequestTrace trace = RequestTrace.begin(request(MessageType.withdrawal), 1001, i * 1_000_000L);
+            trace.end("confirmation");
+            sink.add(trace);
+        }
+
+        // only the last four are kept in memory
+        List<RequestTrace> inMemory = sink.slowest(2, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, inMemory.size());
+        assertTrue(inMemory.get(0).getQueueNanos() == 9_000_000L && inMemory.get(1).getQueueNanos() == 8_000_000L);
+        assertTrue(sink.slowest(5, Long.MIN_VALUE, CoarseClock.micros() - 60_000_000L).isEmpty());
+
+        // the file has all ten, and reads back as written
+        sink.flush();
+        List<RequestTrace> fromFile = TraceSink.slowest(file, 20, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(10, fromFile.size());
+        assertEquals(9_000, fromFile.get(0).getQueueNanos() / 1000);
+        assertEquals(0, fromFile.get(9).getQueueNanos());
+        for (int i = 1; i < fromFile.size(); i++) {
+            assertTrue(fromFile.get(i - 1).getTotalNanos() >= fromFile.get(i).getTotalNanos());
+        }
+    }
+
+    @Test
+    public void testLineFormatRoundTrip() {
+        RequestTrace trace = RequestTrace.begin(request(MessageType.transfer), 1002, 1_500_000);
+        trace.end("denial");
+        RequestTrace back = RequestTrace.parse(trace.toString());
+
+        assertEquals(trace.getTraceId(), back.getTraceId());
+        assertEquals("transfer", back.getType());
+        assertEquals("teller", back.getSender());
+        assertEquals(1002, back.getAccount());
+        assertEquals("denial", back.getOutcome());
+        assertEquals(trace.getStartMicros(), back.getStartMicros());
+        assertEquals(1_500_000, back.getQueueNanos());
+        assertEquals(trace.getHandlerNanos() / 1000, back.getHandlerNanos() / 1000);
+        assertEquals(trace.toString(), back.toString());
+        assertThrows(IllegalArgumentException.class, () -> RequestTrace.parse("1001,deposit,ATM deposited 5.0"));
+    }
+}